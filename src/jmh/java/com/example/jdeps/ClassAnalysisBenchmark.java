@@ -0,0 +1,93 @@
+package com.example.jdeps;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-class cost of the ASM analysis: the allocation-light class file scanner enabled by
+ * {@value ASMBytecodeAnalyzer#ALLOCATION_LIGHT_PROPERTY}, the streaming visitor used by default,
+ * the tree-based reference implementation and the cyclomatic complexity pass. Each invocation analyzes the next class of the synthetic JAR, so larger JARs show the
+ * effect of a working set that no longer fits in cache. Run with {@code -prof gc} to compare the
+ * bytes allocated per class.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Danalysis.classCache.enabled=false")
+public class ClassAnalysisBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int classCount;
+
+    private byte[][] classes;
+    private SymbolTable symbols;
+    private MethodNode[] methods;
+    private int nextClass;
+    private int nextMethod;
+
+    public ClassAnalysisBenchmark() {
+        super();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        classes = SyntheticJars.classBytes(SyntheticJars.jar(classCount)).toArray(new byte[0][]);
+        // One table per trial, as one analysis shares a table across all of its classes
+        symbols = new SymbolTable();
+
+        List<MethodNode> allMethods = new ArrayList<>();
+        for (byte[] classBytes : classes) {
+            ClassNode classNode = new ClassNode();
+            new ClassReader(classBytes).accept(classNode, 0);
+            allMethods.addAll(classNode.methods);
+        }
+        methods = allMethods.toArray(new MethodNode[0]);
+    }
+
+    @Benchmark
+    public ASMBytecodeAnalyzer.ClassAnalysisResult analyzeClassScanner() {
+        byte[] classBytes = nextClass();
+        ASMBytecodeAnalyzer.ClassAnalysisResult result = new ASMBytecodeAnalyzer.ClassAnalysisResult(symbols);
+        ClassFileScanner.analyze(classBytes, classBytes.length, result);
+        return result;
+    }
+
+    @Benchmark
+    public ASMBytecodeAnalyzer.ClassAnalysisResult analyzeClassVisitor() {
+        byte[] classBytes = nextClass();
+        return ASMBytecodeAnalyzer.analyzeClassWithVisitor(classBytes, classBytes.length, symbols);
+    }
+
+    @Benchmark
+    public ASMBytecodeAnalyzer.ClassAnalysisResult analyzeClassStream() throws IOException {
+        return ASMBytecodeAnalyzer.analyzeClass(new ByteArrayInputStream(nextClass()));
+    }
+
+    @Benchmark
+    public ASMBytecodeAnalyzer.ClassAnalysisResult analyzeClassTree() throws IOException {
+        return ASMBytecodeAnalyzer.analyzeClassTree(new ByteArrayInputStream(nextClass()));
+    }
+
+    @Benchmark
+    public int calculateCyclomaticComplexity() {
+        MethodNode method = methods[nextMethod];
+        nextMethod = nextMethod + 1 < methods.length ? nextMethod + 1 : 0;
+        return ASMBytecodeAnalyzer.calculateCyclomaticComplexity(method);
+    }
+
+    private byte[] nextClass() {
+        byte[] classBytes = classes[nextClass];
+        nextClass = nextClass + 1 < classes.length ? nextClass + 1 : 0;
+        return classBytes;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.jdeps;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of jdeps output into dependency graphs and views. The class-level output is produced
+ * by {@link BytecodeDependencyExtractor}, which matches {@code jdeps -verbose:class} line for
+ * line, so large inputs do not need a jdeps run during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Danalysis.classCache.enabled=false")
+public class JDepsParserBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int classCount;
+
+    private String verboseOutput;
+    private String basicOutput;
+    private String summaryOutput;
+
+    public JDepsParserBenchmark() {
+        super();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        JDepsViews views = BytecodeDependencyExtractor.analyzeJar(SyntheticJars.jar(classCount)).getViews();
+        verboseOutput = views.getVerboseAnalysis();
+        basicOutput = views.getBasicAnalysis();
+        summaryOutput = views.getSummaryAnalysis();
+    }
+
+    @Benchmark
+    public DependencyGraph parseClassDependencies() {
+        return DependencyGraph.fromJDepsOutput(verboseOutput, DependencyGraph.LineFilter.DEPENDENCIES);
+    }
+
+    @Benchmark
+    public DependencyGraph parsePackageDependencies() {
+        return DependencyGraph.fromJDepsOutput(basicOutput, DependencyGraph.LineFilter.DEPENDENCIES);
+    }
+
+    @Benchmark
+    public DependencyGraph parseSummary() {
+        return DependencyGraph.fromJDepsOutput(summaryOutput, DependencyGraph.LineFilter.SUMMARY);
+    }
+
+    @Benchmark
+    public JDepsViews deriveViews() {
+        return JDepsViews.fromClassLevelOutput(verboseOutput);
+    }
+}
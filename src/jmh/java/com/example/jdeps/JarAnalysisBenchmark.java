@@ -0,0 +1,61 @@
+package com.example.jdeps;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole-JAR throughput of the ASM analysis and of the jdeps-compatible dependency extraction,
+ * including reading and inflating the entries. The parallel variant runs on a pool sized by
+ * {@value ASMBytecodeAnalyzer#PARALLELISM_PROPERTY}, created once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Danalysis.classCache.enabled=false")
+public class JarAnalysisBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int classCount;
+
+    private Path jar;
+    private String jarPath;
+    private ForkJoinPool pool;
+
+    public JarAnalysisBenchmark() {
+        super();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        jar = SyntheticJars.jar(classCount);
+        jarPath = jar.toString();
+        pool = new ForkJoinPool(ASMBytecodeAnalyzer.getAnalysisParallelism());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> analyzeJarFile() throws IOException {
+        return ASMBytecodeAnalyzer.analyzeJarFile(jarPath, pool);
+    }
+
+    @Benchmark
+    public Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> analyzeJarFileSequential() throws IOException {
+        return ASMBytecodeAnalyzer.analyzeJarFileSequential(jarPath);
+    }
+
+    @Benchmark
+    public BytecodeDependencyExtractor.ExtractionResult extractDependencies() throws IOException {
+        return BytecodeDependencyExtractor.analyzeJar(jar);
+    }
+}
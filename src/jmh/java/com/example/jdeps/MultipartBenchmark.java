@@ -0,0 +1,52 @@
+package com.example.jdeps;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming of an uploaded synthetic JAR out of a multipart/form-data body, the way
+ * {@link JDepsWebServer} receives uploads. The body is held in memory and the file content is
+ * discarded, so only the boundary scan and copying are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MultipartBenchmark {
+
+    private static final String BOUNDARY = "----JDepsBenchmarkBoundary7MA4YWxkTrZu0gW";
+
+    @Param({"1000", "10000", "100000"})
+    public int classCount;
+
+    private byte[] body;
+    private WritableByteChannel discard;
+
+    public MultipartBenchmark() {
+        super();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LoadDriver.writeMultipartBody(out, BOUNDARY, "synthetic.jar",
+                Files.readAllBytes(SyntheticJars.jar(classCount)));
+        body = out.toByteArray();
+        discard = Channels.newChannel(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public long transferFirstFile() throws IOException {
+        return new MultipartStreamParser(new ByteArrayInputStream(body), BOUNDARY).transferFirstFile(discard);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.jdeps;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generation of the HTML and JSON reports from a finished analysis of a synthetic JAR
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Danalysis.classCache.enabled=false")
+public class ReportBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int classCount;
+
+    private ZipProjectAnalyzer analyzer;
+    private ZipProjectAnalyzer.ProjectAnalysis analysis;
+    private Path jsonFile;
+
+    public ReportBenchmark() {
+        super();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path jar = SyntheticJars.jar(classCount);
+        BytecodeDependencyExtractor.ExtractionResult extraction = BytecodeDependencyExtractor.analyzeJar(jar);
+
+        analysis = new ZipProjectAnalyzer.ProjectAnalysis();
+        analysis.projectName = "synthetic-" + classCount;
+        analysis.projectType = "Unknown";
+        analysis.jarFiles = Collections.singletonList(jar.getFileName().toString());
+        analysis.jarFile = jar.getFileName().toString();
+        analysis.jdepsResults = new ZipProjectAnalyzer.JDepsResults();
+        analysis.jdepsResults.basicAnalysis = extraction.getViews().getBasicAnalysis();
+        analysis.jdepsResults.verboseAnalysis = extraction.getViews().getVerboseAnalysis();
+        analysis.jdepsResults.summaryAnalysis = extraction.getViews().getSummaryAnalysis();
+        analysis.asmResults = extraction.getClassResults();
+
+        analyzer = new ZipProjectAnalyzer();
+        jsonFile = Files.createTempFile("report-benchmark", ".json");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(jsonFile);
+    }
+
+    @Benchmark
+    public String htmlReport() {
+        return analyzer.generateAdvancedHtmlReport(analysis);
+    }
+
+    @Benchmark
+    public void jsonReport() throws IOException {
+        analyzer.writeJsonReport(analysis, jsonFile);
+    }
+
+    @Benchmark
+    public String asmHtmlReport() {
+        return ASMBytecodeAnalyzer.generateHTMLReport(analysis.asmResults);
+    }
+}
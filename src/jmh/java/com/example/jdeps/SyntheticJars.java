@@ -0,0 +1,59 @@
+package com.example.jdeps;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * The JARs the benchmarks run over, generated by {@link SyntheticProjectGenerator} with its
+ * default shape. JARs are cached under {@code java.io.tmpdir} so forks and repeated runs do
+ * not generate them again.
+ */
+public class SyntheticJars {
+
+    public SyntheticJars() {
+        super();
+    }
+
+    /**
+     * Returns a JAR with the given number of generated classes, creating it on first use
+     */
+    public static synchronized Path jar(int classCount) throws IOException {
+        Path directory = Paths.get(System.getProperty("java.io.tmpdir"), "jdeps-benchmarks");
+        Path jarPath = directory.resolve("generated-" + classCount + ".jar");
+        if (!Files.exists(jarPath)) {
+            Files.createDirectories(directory);
+            Path tempJar = Files.createTempFile(directory, "generated-", ".tmp");
+            new SyntheticProjectGenerator().classCount(classCount).writeJar(tempJar);
+            Files.move(tempJar, jarPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return jarPath;
+    }
+
+    /**
+     * Reads the bytes of every class in a JAR, in entry order
+     */
+    public static List<byte[]> classBytes(Path jarPath) throws IOException {
+        List<byte[]> classes = new ArrayList<>();
+        try (JarFile jarFile = new JarFile(jarPath.toFile())) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (entry.getName().endsWith(".class")) {
+                    try (InputStream in = jarFile.getInputStream(entry)) {
+                        classes.add(in.readAllBytes());
+                    }
+                }
+            }
+        }
+        return classes;
+    }
+}
@@ -3,7 +3,14 @@ package com.example.jdeps;
 import org.objectweb.asm.*;
 import org.objectweb.asm.tree.*;
 import java.io.*;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.zip.ZipEntry;
@@ -15,17 +22,30 @@ import java.util.zip.ZipFile;
  */
 public class ASMBytecodeAnalyzer {
 
+    /** System property controlling the number of workers used for JAR analysis */
+    public static final String PARALLELISM_PROPERTY = "asm.analysis.parallelism";
+
+    /**
+     * System property that, when set to true, analyzes classes through the allocation-light
+     * {@link ClassFileScanner} instead of ASM's ClassReader and the streaming visitor
+     */
+    public static final String ALLOCATION_LIGHT_PROPERTY = "asm.analysis.allocationLight";
+
+    private static volatile ForkJoinPool sharedPool;
+
     public ASMBytecodeAnalyzer() {
         super();
     }
     
     public static class ClassAnalysisResult {
+        private final SymbolTable symbols;
         private String className;
         private String superClass;
-        private Set<String> interfaces = new HashSet<>();
-        private Set<String> methodCalls = new HashSet<>();
-        private Set<String> fieldAccess = new HashSet<>();
-        private Set<String> annotations = new HashSet<>();
+        // Dependency sets hold IDs from the symbol table; the getters expose read-only string views
+        private final IntSet interfaces = new IntSet(4);
+        private final IntSet methodCalls = new IntSet();
+        private final IntSet fieldAccess = new IntSet();
+        private final IntSet annotations = new IntSet(4);
         private Map<String, Integer> methodComplexity = new HashMap<>();
         private int totalMethods = 0;
         private int totalFields = 0;
@@ -33,10 +53,35 @@ public class ASMBytecodeAnalyzer {
         private boolean isInterface = false;
         private boolean isFinal = false;
 
+        /**
+         * Creates a result with a symbol table of its own, for a class analyzed on its own
+         */
         public ClassAnalysisResult() {
+            this(new SymbolTable());
+        }
+        
+        /**
+         * Creates a result that interns its symbols into the table of the analysis it belongs to
+         */
+        public ClassAnalysisResult(SymbolTable symbols) {
             super();
+            this.symbols = symbols;
         }
         
+        public void addInterface(String name) { interfaces.add(symbols.intern(name)); }
+        public void addAnnotation(String descriptor) { annotations.add(symbols.intern(descriptor)); }
+        public void addMethodCall(String owner, String name, String descriptor) {
+            methodCalls.add(symbols.internMethod(owner, name, descriptor));
+        }
+        public void addTypeReference(String type) { methodCalls.add(symbols.internType(type)); }
+        public void addFieldAccess(String owner, String name) { fieldAccess.add(symbols.internField(owner, name)); }
+        
+        public SymbolTable getSymbolTable() { return symbols; }
+        public IntSet getInterfaceIds() { return interfaces; }
+        public IntSet getMethodCallIds() { return methodCalls; }
+        public IntSet getFieldAccessIds() { return fieldAccess; }
+        public IntSet getAnnotationIds() { return annotations; }
+        
         // Getters and setters
         public String getClassName() { return className; }
         public void setClassName(String className) { this.className = className; }
@@ -44,10 +89,10 @@ public class ASMBytecodeAnalyzer {
         public String getSuperClass() { return superClass; }
         public void setSuperClass(String superClass) { this.superClass = superClass; }
         
-        public Set<String> getInterfaces() { return interfaces; }
-        public Set<String> getMethodCalls() { return methodCalls; }
-        public Set<String> getFieldAccess() { return fieldAccess; }
-        public Set<String> getAnnotations() { return annotations; }
+        public Set<String> getInterfaces() { return new SymbolSetView(symbols, interfaces, false); }
+        public Set<String> getMethodCalls() { return new SymbolSetView(symbols, methodCalls, true); }
+        public Set<String> getFieldAccess() { return new SymbolSetView(symbols, fieldAccess, true); }
+        public Set<String> getAnnotations() { return new SymbolSetView(symbols, annotations, false); }
         public Map<String, Integer> getMethodComplexity() { return methodComplexity; }
         
         public int getTotalMethods() { return totalMethods; }
@@ -75,9 +120,111 @@ public class ASMBytecodeAnalyzer {
     }
     
     /**
-     * Analyzes a single class file using ASM
+     * Read-only set of strings backed by symbol IDs. Strings are only rebuilt while iterating.
+     */
+    private static class SymbolSetView extends AbstractSet<String> {
+        private final SymbolTable symbols;
+        private final IntSet ids;
+        private final boolean memberIds;
+        
+        SymbolSetView(SymbolTable symbols, IntSet ids, boolean memberIds) {
+            super();
+            this.symbols = symbols;
+            this.ids = ids;
+            this.memberIds = memberIds;
+        }
+        
+        @Override
+        public int size() {
+            return ids.size();
+        }
+        
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof String)) {
+                return false;
+            }
+            String symbol = (String) o;
+            return ids.contains(memberIds ? symbols.findMember(symbol) : symbols.find(symbol));
+        }
+        
+        @Override
+        public Iterator<String> iterator() {
+            int[] values = ids.toSortedArray();
+            return new Iterator<String>() {
+                private int index = 0;
+                
+                @Override
+                public boolean hasNext() {
+                    return index < values.length;
+                }
+                
+                @Override
+                public String next() {
+                    if (index >= values.length) {
+                        throw new NoSuchElementException();
+                    }
+                    int id = values[index++];
+                    return memberIds ? symbols.member(id) : symbols.atom(id);
+                }
+            };
+        }
+    }
+    
+    /**
+     * Analyzes a single class file using ASM in a single streaming pass
      */
     public static ClassAnalysisResult analyzeClass(InputStream classStream) throws IOException {
+        return analyzeClass(classStream, new SymbolTable());
+    }
+    
+    /**
+     * Analyzes a single class file, interning its symbols into the given table so that classes
+     * of the same analysis share them
+     */
+    public static ClassAnalysisResult analyzeClass(InputStream classStream, SymbolTable symbols) throws IOException {
+        ClassAnalysisResult result = new ClassAnalysisResult(symbols);
+        if (isAllocationLight()) {
+            ClassFileScanner.analyze(classStream, result);
+            return result;
+        }
+        ClassReader classReader = new ClassReader(classStream);
+        classReader.accept(new AnalysisClassVisitor(result), ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return result;
+    }
+    
+    /**
+     * Analyzes the class file held in the first {@code length} bytes of a buffer through ASM's
+     * ClassReader and the streaming visitor, regardless of {@value #ALLOCATION_LIGHT_PROPERTY}
+     */
+    static ClassAnalysisResult analyzeClassWithVisitor(byte[] buffer, int length, SymbolTable symbols) {
+        ClassAnalysisResult result = new ClassAnalysisResult(symbols);
+        new ClassReader(buffer, 0, length).accept(new AnalysisClassVisitor(result),
+                ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return result;
+    }
+    
+    /**
+     * Whether classes are analyzed by {@link ClassFileScanner}, configurable through the
+     * {@value #ALLOCATION_LIGHT_PROPERTY} system property
+     */
+    static boolean isAllocationLight() {
+        return Boolean.parseBoolean(System.getProperty(ALLOCATION_LIGHT_PROPERTY, "false"));
+    }
+    
+    /**
+     * Returns the streaming visitor used by {@link #analyzeClass(InputStream)}, so other
+     * passes over the same ClassReader can fill a result without reading the class again
+     */
+    static ClassVisitor newAnalysisVisitor(ClassAnalysisResult result) {
+        return new AnalysisClassVisitor(result);
+    }
+    
+    /**
+     * Analyzes a single class file by building the full ASM tree. Kept as the reference
+     * implementation for {@link #analyzeClass(InputStream)}.
+     */
+    public static ClassAnalysisResult analyzeClassTree(InputStream classStream) throws IOException {
         ClassReader classReader = new ClassReader(classStream);
         ClassNode classNode = new ClassNode();
         classReader.accept(classNode, 0);
@@ -91,13 +238,15 @@ public class ASMBytecodeAnalyzer {
         
         // Analyze interfaces
         if (classNode.interfaces != null) {
-            result.getInterfaces().addAll(classNode.interfaces);
+            for (String interfaceName : classNode.interfaces) {
+                result.addInterface(interfaceName);
+            }
         }
         
         // Analyze annotations
         if (classNode.visibleAnnotations != null) {
             for (AnnotationNode annotation : classNode.visibleAnnotations) {
-                result.getAnnotations().add(annotation.desc);
+                result.addAnnotation(annotation.desc);
             }
         }
         
@@ -107,7 +256,7 @@ public class ASMBytecodeAnalyzer {
             for (FieldNode field : classNode.fields) {
                 if (field.visibleAnnotations != null) {
                     for (AnnotationNode annotation : field.visibleAnnotations) {
-                        result.getAnnotations().add(annotation.desc);
+                        result.addAnnotation(annotation.desc);
                     }
                 }
             }
@@ -134,7 +283,7 @@ public class ASMBytecodeAnalyzer {
         // Analyze method annotations
         if (method.visibleAnnotations != null) {
             for (AnnotationNode annotation : method.visibleAnnotations) {
-                result.getAnnotations().add(annotation.desc);
+                result.addAnnotation(annotation.desc);
             }
         }
         
@@ -149,7 +298,7 @@ public class ASMBytecodeAnalyzer {
     /**
      * Calculates cyclomatic complexity of a method
      */
-    private static int calculateCyclomaticComplexity(MethodNode method) {
+    static int calculateCyclomaticComplexity(MethodNode method) {
         int complexity = 1; // Base complexity
         
         if (method.instructions != null) {
@@ -198,24 +347,259 @@ public class ASMBytecodeAnalyzer {
         switch (instruction.getType()) {
             case AbstractInsnNode.METHOD_INSN:
                 MethodInsnNode methodInsn = (MethodInsnNode) instruction;
-                result.getMethodCalls().add(methodInsn.owner + "." + methodInsn.name + methodInsn.desc);
+                result.addMethodCall(methodInsn.owner, methodInsn.name, methodInsn.desc);
                 break;
             case AbstractInsnNode.FIELD_INSN:
                 FieldInsnNode fieldInsn = (FieldInsnNode) instruction;
-                result.getFieldAccess().add(fieldInsn.owner + "." + fieldInsn.name);
+                result.addFieldAccess(fieldInsn.owner, fieldInsn.name);
                 break;
             case AbstractInsnNode.TYPE_INSN:
                 TypeInsnNode typeInsn = (TypeInsnNode) instruction;
-                result.getMethodCalls().add("TYPE:" + typeInsn.desc);
+                result.addTypeReference(typeInsn.desc);
                 break;
         }
     }
     
     /**
-     * Analyzes all classes in a JAR file
+     * Single-pass class visitor that fills a {@link ClassAnalysisResult} while the class is read.
+     * Produces the same result as {@link #analyzeClassTree(InputStream)} without building a tree.
+     */
+    private static class AnalysisClassVisitor extends ClassVisitor {
+        private final ClassAnalysisResult result;
+        private final AnalysisFieldVisitor fieldVisitor;
+        private final AnalysisMethodVisitor methodVisitor;
+        
+        AnalysisClassVisitor(ClassAnalysisResult result) {
+            super(Opcodes.ASM9);
+            this.result = result;
+            this.fieldVisitor = new AnalysisFieldVisitor(result);
+            this.methodVisitor = new AnalysisMethodVisitor(result);
+        }
+        
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            result.setClassName(name);
+            result.setSuperClass(superName);
+            result.setAbstract((access & Opcodes.ACC_ABSTRACT) != 0);
+            result.setInterface((access & Opcodes.ACC_INTERFACE) != 0);
+            result.setFinal((access & Opcodes.ACC_FINAL) != 0);
+            if (interfaces != null) {
+                for (String interfaceName : interfaces) {
+                    result.addInterface(interfaceName);
+                }
+            }
+        }
+        
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            if (visible) {
+                result.addAnnotation(descriptor);
+            }
+            return null;
+        }
+        
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+            result.setTotalFields(result.getTotalFields() + 1);
+            return fieldVisitor;
+        }
+        
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            result.setTotalMethods(result.getTotalMethods() + 1);
+            // ClassReader finishes each method before starting the next, so one visitor is reused
+            methodVisitor.reset(name);
+            return methodVisitor;
+        }
+    }
+    
+    /**
+     * Field visitor that records visible field annotations
+     */
+    private static class AnalysisFieldVisitor extends FieldVisitor {
+        private final ClassAnalysisResult result;
+        
+        AnalysisFieldVisitor(ClassAnalysisResult result) {
+            super(Opcodes.ASM9);
+            this.result = result;
+        }
+        
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            if (visible) {
+                result.addAnnotation(descriptor);
+            }
+            return null;
+        }
+    }
+    
+    /**
+     * Method visitor that computes cyclomatic complexity and dependencies in one pass over the code
+     */
+    private static class AnalysisMethodVisitor extends MethodVisitor {
+        private final ClassAnalysisResult result;
+        private String methodName;
+        private int complexity;
+        
+        AnalysisMethodVisitor(ClassAnalysisResult result) {
+            super(Opcodes.ASM9);
+            this.result = result;
+        }
+        
+        void reset(String methodName) {
+            this.methodName = methodName;
+            this.complexity = 1; // Base complexity
+        }
+        
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            if (visible) {
+                result.addAnnotation(descriptor);
+            }
+            return null;
+        }
+        
+        @Override
+        public void visitJumpInsn(int opcode, Label label) {
+            if (opcode != Opcodes.GOTO && opcode != Opcodes.JSR) {
+                complexity++;
+            }
+        }
+        
+        @Override
+        public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+            complexity += labels.length;
+        }
+        
+        @Override
+        public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+            complexity += labels.length;
+        }
+        
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+            result.addMethodCall(owner, name, descriptor);
+        }
+        
+        @Override
+        public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+            result.addFieldAccess(owner, name);
+        }
+        
+        @Override
+        public void visitTypeInsn(int opcode, String type) {
+            result.addTypeReference(type);
+        }
+        
+        @Override
+        public void visitEnd() {
+            result.getMethodComplexity().put(methodName, complexity);
+        }
+    }
+    
+    /**
+     * Analyzes all classes in a JAR file, in parallel when more than one worker is configured
      */
     public static Map<String, ClassAnalysisResult> analyzeJarFile(String jarPath) throws IOException {
+        return analyzeJarFile(jarPath, (ClassResultCache) null);
+    }
+    
+    /**
+     * Analyzes all classes in a JAR file on the given pool. Entry reads and class analysis
+     * are split across the pool's workers and merged into a concurrent result map.
+     */
+    public static Map<String, ClassAnalysisResult> analyzeJarFile(String jarPath, ForkJoinPool pool) throws IOException {
+        return analyzeJarFile(jarPath, pool, null);
+    }
+    
+    /**
+     * Analyzes all classes in a JAR file, reusing cached results for class files whose bytes
+     * have been analyzed before and storing results for the rest
+     */
+    public static Map<String, ClassAnalysisResult> analyzeJarFile(String jarPath, ClassResultCache cache) throws IOException {
+        if (getAnalysisParallelism() <= 1) {
+            return analyzeJarFileSequential(jarPath, cache);
+        }
+        return analyzeJarFile(jarPath, sharedPool(), cache);
+    }
+    
+    /**
+     * Returns the process-wide pool for analysis work, created on first use with
+     * {@link #getAnalysisParallelism()} workers. Analyses running at the same time share its
+     * workers instead of each starting one thread per processor.
+     */
+    static ForkJoinPool sharedPool() {
+        ForkJoinPool pool = sharedPool;
+        if (pool == null) {
+            synchronized (ASMBytecodeAnalyzer.class) {
+                if (sharedPool == null) {
+                    sharedPool = new ForkJoinPool(getAnalysisParallelism(), new AnalysisWorkerFactory(), null, false);
+                }
+                pool = sharedPool;
+            }
+        }
+        return pool;
+    }
+    
+    /**
+     * Analyzes all classes in a JAR file on the given pool, which may be shared with other work,
+     * reusing and filling the cache when one is given
+     */
+    public static Map<String, ClassAnalysisResult> analyzeJarFile(String jarPath, ForkJoinPool pool,
+                                                                  ClassResultCache cache) throws IOException {
+        Map<String, ClassAnalysisResult> results = new ConcurrentHashMap<>();
+        SymbolTable symbols = new SymbolTable();
+        
+        if (MappedJarReader.canMap(Paths.get(jarPath))) {
+            try (MappedJarReader jar = MappedJarReader.open(Paths.get(jarPath))) {
+                List<MappedJarReader.Entry> classEntries = analyzableEntries(jar);
+                pool.invoke(new JarAnalysisTask(0, classEntries.size(),
+                        i -> analyzeMappedEntry(jar, classEntries.get(i), results, cache, symbols)));
+            }
+            return results;
+        }
+        
+        try (JarFile jarFile = new JarFile(jarPath)) {
+            List<JarEntry> classEntries = new ArrayList<>();
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (isAnalyzableClassEntry(entry.getName())) {
+                    classEntries.add(entry);
+                }
+            }
+            
+            pool.invoke(new JarAnalysisTask(0, classEntries.size(),
+                    i -> analyzeJarEntry(jarFile, classEntries.get(i), results, cache, symbols)));
+        }
+        
+        return results;
+    }
+    
+    /**
+     * Analyzes all classes in a JAR file one entry at a time on the calling thread
+     */
+    public static Map<String, ClassAnalysisResult> analyzeJarFileSequential(String jarPath) throws IOException {
+        return analyzeJarFileSequential(jarPath, null);
+    }
+    
+    /**
+     * Analyzes all classes in a JAR file on the calling thread, reusing and filling the cache
+     * when one is given
+     */
+    public static Map<String, ClassAnalysisResult> analyzeJarFileSequential(String jarPath,
+                                                                            ClassResultCache cache) throws IOException {
         Map<String, ClassAnalysisResult> results = new HashMap<>();
+        SymbolTable symbols = new SymbolTable();
+        
+        if (MappedJarReader.canMap(Paths.get(jarPath))) {
+            try (MappedJarReader jar = MappedJarReader.open(Paths.get(jarPath))) {
+                for (MappedJarReader.Entry entry : analyzableEntries(jar)) {
+                    analyzeMappedEntry(jar, entry, results, cache, symbols);
+                }
+            }
+            return results;
+        }
         
         try (JarFile jarFile = new JarFile(jarPath)) {
             Enumeration<JarEntry> entries = jarFile.entries();
@@ -223,13 +607,8 @@ public class ASMBytecodeAnalyzer {
             while (entries.hasMoreElements()) {
                 JarEntry entry = entries.nextElement();
                 
-                if (entry.getName().endsWith(".class") && !entry.getName().contains("$")) {
-                    try (InputStream inputStream = jarFile.getInputStream(entry)) {
-                        ClassAnalysisResult result = analyzeClass(inputStream);
-                        results.put(result.getClassName(), result);
-                    } catch (Exception e) {
-                        System.err.println("Error analyzing class " + entry.getName() + ": " + e.getMessage());
-                    }
+                if (isAnalyzableClassEntry(entry.getName())) {
+                    analyzeJarEntry(jarFile, entry, results, cache, symbols);
                 }
             }
         }
@@ -237,24 +616,225 @@ public class ASMBytecodeAnalyzer {
         return results;
     }
     
+    /**
+     * Number of workers of the shared analysis pool, configurable through the
+     * {@value #PARALLELISM_PROPERTY} system property
+     */
+    static int getAnalysisParallelism() {
+        int defaultParallelism = Runtime.getRuntime().availableProcessors();
+        String configured = System.getProperty(PARALLELISM_PROPERTY);
+        if (configured == null) {
+            return defaultParallelism;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(configured.trim()));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid " + PARALLELISM_PROPERTY + " value: " + configured);
+            return defaultParallelism;
+        }
+    }
+    
+    private static boolean isAnalyzableClassEntry(String name) {
+        return name.endsWith(".class") && !name.contains("$");
+    }
+    
+    private static List<MappedJarReader.Entry> analyzableEntries(MappedJarReader jar) {
+        List<MappedJarReader.Entry> classEntries = new ArrayList<>();
+        for (MappedJarReader.Entry entry : jar.getEntries()) {
+            if (isAnalyzableClassEntry(entry.getName())) {
+                classEntries.add(entry);
+            }
+        }
+        return classEntries;
+    }
+    
+    private static void analyzeMappedEntry(MappedJarReader jar, MappedJarReader.Entry entry,
+                                           Map<String, ClassAnalysisResult> results, ClassResultCache cache,
+                                           SymbolTable symbols) {
+        try {
+            // The worker's scratch buffer is only read while this class is analyzed
+            ClassAnalysisResult result = analyzeClass(jar.readShared(entry), entry.getSize(), cache, symbols);
+            results.put(result.getClassName(), result);
+        } catch (Exception e) {
+            System.err.println("Error analyzing class " + entry.getName() + ": " + e.getMessage());
+        }
+    }
+    
+    private static void analyzeJarEntry(JarFile jarFile, JarEntry entry, Map<String, ClassAnalysisResult> results,
+                                        ClassResultCache cache, SymbolTable symbols) {
+        try (InputStream inputStream = jarFile.getInputStream(entry)) {
+            if (cache == null) {
+                ClassAnalysisResult result = analyzeClass(inputStream, symbols);
+                results.put(result.getClassName(), result);
+                return;
+            }
+            
+            ClassAnalysisResult result = analyzeClass(inputStream.readAllBytes(), cache, symbols);
+            results.put(result.getClassName(), result);
+        } catch (Exception e) {
+            System.err.println("Error analyzing class " + entry.getName() + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Analyzes class file bytes, reusing the cached result for bytes analyzed before when a
+     * cache is given
+     */
+    public static ClassAnalysisResult analyzeClass(byte[] classBytes, ClassResultCache cache) {
+        return analyzeClass(classBytes, classBytes.length, cache, new SymbolTable());
+    }
+    
+    /**
+     * Analyzes class file bytes like {@link #analyzeClass(byte[], ClassResultCache)}, interning
+     * symbols into the table of the analysis the class belongs to
+     */
+    public static ClassAnalysisResult analyzeClass(byte[] classBytes, ClassResultCache cache, SymbolTable symbols) {
+        return analyzeClass(classBytes, classBytes.length, cache, symbols);
+    }
+    
+    /**
+     * Analyzes the class file held in the first {@code length} bytes of a buffer, which may be
+     * a reused scratch buffer: the result keeps no reference to it
+     */
+    static ClassAnalysisResult analyzeClass(byte[] buffer, int length, ClassResultCache cache, SymbolTable symbols) {
+        String digest = cache != null ? ClassResultCache.digest(buffer, length) : null;
+        ClassResultCache.Entry cached = cache != null ? cache.get(digest, symbols, false, true) : null;
+        ClassAnalysisResult result = cached != null ? cached.getResult() : null;
+        if (result == null) {
+            if (isAllocationLight()) {
+                result = new ClassAnalysisResult(symbols);
+                ClassFileScanner.analyze(buffer, length, result);
+            } else {
+                result = analyzeClassWithVisitor(buffer, length, symbols);
+            }
+            if (cache != null) {
+                // Keep references another pass already recorded for the same bytes
+                cache.put(digest, new ClassResultCache.Entry(result.getClassName(),
+                        cached != null ? cached.getReferences() : null, result));
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Analyzes class files held in memory, keyed by JAR entry name, such as the output of
+     * {@link InMemoryCompiler}. Nested classes are skipped as in {@link #analyzeJarFile(String)}.
+     */
+    public static Map<String, ClassAnalysisResult> analyzeClassFiles(Map<String, byte[]> classFiles,
+                                                                     ClassResultCache cache) {
+        Map<String, ClassAnalysisResult> results = new HashMap<>();
+        SymbolTable symbols = new SymbolTable();
+        for (Map.Entry<String, byte[]> classFile : classFiles.entrySet()) {
+            String name = classFile.getKey();
+            if (!name.endsWith(".class") || name.contains("$")) {
+                continue;
+            }
+            try {
+                ClassAnalysisResult result = analyzeClass(classFile.getValue(), cache, symbols);
+                results.put(result.getClassName(), result);
+            } catch (Exception e) {
+                System.err.println("Error analyzing class " + name + ": " + e.getMessage());
+            }
+        }
+        return results;
+    }
+    
+    /**
+     * Creates the shared pool's daemon workers, named analysis-pool-N
+     */
+    private static class AnalysisWorkerFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger();
+        
+        AnalysisWorkerFactory() {
+            super();
+        }
+        
+        @Override
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            return new AnalysisWorker(pool, "analysis-pool-" + threadCount.incrementAndGet());
+        }
+    }
+    
+    /**
+     * Worker thread of the shared analysis pool. Its per-thread scratch state lives as long as
+     * the worker and is released when the pool retires it.
+     */
+    private static class AnalysisWorker extends ForkJoinWorkerThread {
+        AnalysisWorker(ForkJoinPool pool, String name) {
+            super(pool);
+            setName(name);
+            setDaemon(true);
+        }
+        
+        @Override
+        protected void onTermination(Throwable exception) {
+            try {
+                releaseScratch();
+            } finally {
+                super.onTermination(exception);
+            }
+        }
+    }
+    
+    /**
+     * Releases the calling thread's class scanner and JAR reading scratch state
+     */
+    static void releaseScratch() {
+        ClassFileScanner.releaseScratch();
+        MappedJarReader.releaseScratch();
+    }
+    
+    /**
+     * Fork-join task that splits a range of JAR entry indexes until it is small enough to analyze directly
+     */
+    private static class JarAnalysisTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int SEQUENTIAL_THRESHOLD = 64;
+        
+        private final int from;
+        private final int to;
+        private final IntConsumer analyzeEntry;
+        
+        JarAnalysisTask(int from, int to, IntConsumer analyzeEntry) {
+            super();
+            this.from = from;
+            this.to = to;
+            this.analyzeEntry = analyzeEntry;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    analyzeEntry.accept(i);
+                }
+                return;
+            }
+            
+            int mid = (from + to) >>> 1;
+            invokeAll(new JarAnalysisTask(from, mid, analyzeEntry), new JarAnalysisTask(mid, to, analyzeEntry));
+        }
+    }
+    
     /**
      * Analyzes all classes in a directory
      */
     public static Map<String, ClassAnalysisResult> analyzeDirectory(File directory) throws IOException {
         Map<String, ClassAnalysisResult> results = new HashMap<>();
-        analyzeDirectoryRecursive(directory, results);
+        analyzeDirectoryRecursive(directory, results, new SymbolTable());
         return results;
     }
     
-    private static void analyzeDirectoryRecursive(File directory, Map<String, ClassAnalysisResult> results) throws IOException {
+    private static void analyzeDirectoryRecursive(File directory, Map<String, ClassAnalysisResult> results,
+                                                  SymbolTable symbols) throws IOException {
         File[] files = directory.listFiles();
         if (files != null) {
             for (File file : files) {
                 if (file.isDirectory()) {
-                    analyzeDirectoryRecursive(file, results);
+                    analyzeDirectoryRecursive(file, results, symbols);
                 } else if (file.getName().endsWith(".class")) {
                     try (FileInputStream fis = new FileInputStream(file)) {
-                        ClassAnalysisResult result = analyzeClass(fis);
+                        ClassAnalysisResult result = analyzeClass(fis, symbols);
                         results.put(result.getClassName(), result);
                     } catch (Exception e) {
                         System.err.println("Error analyzing class " + file.getName() + ": " + e.getMessage());
@@ -0,0 +1,183 @@
+package com.example.jdeps;
+
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs project analyses on a bounded worker pool, separate from the HTTP threads.
+ * Submitting returns a job immediately; callers poll the job for state and progress.
+ */
+public class AnalysisJobQueue {
+
+    /** System property for the number of concurrent analyses */
+    public static final String WORKERS_PROPERTY = "analysis.workers";
+
+    /** System property for the number of analyses that may wait for a worker */
+    public static final String QUEUE_CAPACITY_PROPERTY = "analysis.queueCapacity";
+
+    /** Finished jobs kept for status queries before the oldest are dropped */
+    private static final int MAX_FINISHED_JOBS = 1000;
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * One queued analysis. Fields are written by the worker and read by status requests.
+     */
+    public static class Job {
+        private final String id;
+        private final String filePath;
+        private final long submittedAt = System.currentTimeMillis();
+        private volatile State state = State.QUEUED;
+        private volatile int progress = 0;
+        private volatile String stage = "Queued";
+        private volatile String reportPath;
+        private volatile String message;
+        private volatile long finishedAt;
+
+        Job(String id, String filePath) {
+            super();
+            this.id = id;
+            this.filePath = filePath;
+        }
+
+        public String getId() { return id; }
+        public String getFilePath() { return filePath; }
+        public long getSubmittedAt() { return submittedAt; }
+        public State getState() { return state; }
+        public int getProgress() { return progress; }
+        public String getStage() { return stage; }
+        public String getReportPath() { return reportPath; }
+        public String getMessage() { return message; }
+        public long getFinishedAt() { return finishedAt; }
+
+        /** Report directory name, as served under /reports */
+        public String getReportId() {
+            return reportPath != null ? Paths.get(reportPath).getFileName().toString() : null;
+        }
+
+        public boolean isFinished() {
+            return state == State.COMPLETED || state == State.FAILED;
+        }
+    }
+
+    /**
+     * Runs one analysis for a job; the default runs {@link ZipProjectAnalyzer}
+     */
+    public interface Analysis {
+        String run(String filePath, ZipProjectAnalyzer.ProgressListener progress) throws Exception;
+    }
+
+    private final ThreadPoolExecutor workers;
+    private final Analysis analysis;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Queue<Job> finishedJobs = new ConcurrentLinkedQueue<>();
+    private final AtomicLong nextJobId = new AtomicLong(1);
+
+    public AnalysisJobQueue() {
+        this(Integer.getInteger(WORKERS_PROPERTY, Math.max(1, Runtime.getRuntime().availableProcessors() / 2)),
+             Integer.getInteger(QUEUE_CAPACITY_PROPERTY, 32));
+    }
+
+    public AnalysisJobQueue(int workerCount, int queueCapacity) {
+        this(workerCount, queueCapacity, (filePath, progress) -> {
+            ZipProjectAnalyzer analyzer = new ZipProjectAnalyzer();
+            analyzer.setProgressListener(progress);
+            return analyzer.analyzeZipProject(filePath);
+        });
+    }
+
+    public AnalysisJobQueue(int workerCount, int queueCapacity, Analysis analysis) {
+        super();
+        this.analysis = analysis;
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new WorkerThreadFactory());
+    }
+
+    /**
+     * Queues an analysis of the given ZIP file
+     *
+     * @throws RejectedExecutionException if every worker is busy and the queue is full
+     */
+    public Job submit(String filePath) {
+        Job job = new Job("job-" + nextJobId.getAndIncrement(), filePath);
+        jobs.put(job.getId(), job);
+        try {
+            workers.execute(() -> runJob(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * Returns the job with the given ID, or null if it is unknown or has expired
+     */
+    public Job getJob(String id) {
+        return jobs.get(id);
+    }
+
+    public int getQueuedCount() {
+        return workers.getQueue().size();
+    }
+
+    public int getRunningCount() {
+        return workers.getActiveCount();
+    }
+
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private void runJob(Job job) {
+        job.state = State.RUNNING;
+        job.stage = "Starting analysis";
+        try {
+            job.reportPath = analysis.run(job.getFilePath(), (percent, stage) -> {
+                job.progress = percent;
+                job.stage = stage;
+            });
+            job.progress = 100;
+            job.stage = "Analysis complete";
+            job.state = State.COMPLETED;
+        } catch (Exception e) {
+            System.err.println("Analysis job " + job.getId() + " failed: " + e.getMessage());
+            job.message = e.getMessage() != null ? e.getMessage() : e.toString();
+            job.stage = "Analysis failed";
+            job.state = State.FAILED;
+        } finally {
+            job.finishedAt = System.currentTimeMillis();
+            retire(job);
+        }
+    }
+
+    private void retire(Job job) {
+        finishedJobs.add(job);
+        while (finishedJobs.size() > MAX_FINISHED_JOBS) {
+            Job expired = finishedJobs.poll();
+            if (expired != null) {
+                jobs.remove(expired.getId());
+            }
+        }
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger(1);
+
+        WorkerThreadFactory() {
+            super();
+        }
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "analysis-worker-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.jdeps;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide timings and counters for the analysis stages, rendered in the Prometheus text
+ * format. Each stage records wall time as a histogram, plus CPU time and allocated bytes from
+ * {@link ThreadMXBean} for the thread that ran it; stages fanned out to {@link ClassPipeline}
+ * workers add the workers' own usage. Bytes and classes processed and cache lookups are counted
+ * alongside.
+ */
+public class AnalysisMetrics {
+
+    /** Upper bounds of the stage duration histogram buckets, in seconds */
+    static final double[] DURATION_BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120};
+
+    private static final AnalysisMetrics SHARED = new AnalysisMetrics();
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final Map<String, StageMetrics> stages = new ConcurrentSkipListMap<>();
+    private final Map<String, LongAdder[]> caches = new ConcurrentSkipListMap<>();
+
+    public AnalysisMetrics() {
+        super();
+    }
+
+    /**
+     * Returns the metrics recorded by every analysis in this process
+     */
+    public static AnalysisMetrics shared() {
+        return SHARED;
+    }
+
+    /**
+     * Starts timing a stage on the calling thread; close the timer when the stage ends
+     */
+    public Timer time(String stage) {
+        return new Timer(stage(stage));
+    }
+
+    /**
+     * Adds CPU time and allocations measured on another thread that worked for the stage
+     */
+    public void recordThreadUsage(String stage, long cpuNanos, long allocatedBytes) {
+        StageMetrics metrics = stage(stage);
+        metrics.cpuNanos.add(Math.max(0, cpuNanos));
+        metrics.allocatedBytes.add(Math.max(0, allocatedBytes));
+    }
+
+    public void recordBytes(String stage, long bytes) {
+        stage(stage).bytes.add(bytes);
+    }
+
+    public void recordClasses(String stage, long classes) {
+        stage(stage).classes.add(classes);
+    }
+
+    /**
+     * Counts one lookup in the named cache
+     */
+    public void recordCacheLookup(String cache, boolean hit) {
+        caches.computeIfAbsent(cache, name -> new LongAdder[] {new LongAdder(), new LongAdder()})[hit ? 0 : 1].increment();
+    }
+
+    /**
+     * Returns the number of completed runs of a stage
+     */
+    public long getCount(String stage) {
+        StageMetrics metrics = stages.get(stage);
+        return metrics != null ? metrics.count.sum() : 0;
+    }
+
+    private StageMetrics stage(String stage) {
+        return stages.computeIfAbsent(stage, name -> new StageMetrics());
+    }
+
+    /**
+     * CPU time of the calling thread in nanoseconds, or -1 if the JVM cannot measure it
+     */
+    static long currentThreadCpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    /**
+     * Bytes allocated so far by the calling thread, or -1 if the JVM cannot measure it
+     */
+    @SuppressWarnings("deprecation")
+    static long currentThreadAllocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Renders all metrics in the Prometheus text exposition format, version 0.0.4
+     */
+    public String toPrometheusText() {
+        StringBuilder out = new StringBuilder(4096);
+
+        header(out, "analysis_stage_duration_seconds", "histogram", "Wall time of each analysis stage");
+        for (Map.Entry<String, StageMetrics> stage : stages.entrySet()) {
+            StageMetrics metrics = stage.getValue();
+            long cumulative = 0;
+            for (int i = 0; i <= DURATION_BUCKETS.length; i++) {
+                cumulative += metrics.buckets.get(i);
+                String bound = i < DURATION_BUCKETS.length ? format(DURATION_BUCKETS[i]) : "+Inf";
+                out.append("analysis_stage_duration_seconds_bucket{stage=\"").append(stage.getKey())
+                   .append("\",le=\"").append(bound).append("\"} ").append(cumulative).append('\n');
+            }
+            sample(out, "analysis_stage_duration_seconds_sum", stage.getKey(), format(metrics.wallNanos.sum() / 1e9));
+            sample(out, "analysis_stage_duration_seconds_count", stage.getKey(), Long.toString(metrics.count.sum()));
+        }
+
+        header(out, "analysis_stage_cpu_seconds_total", "counter", "CPU time spent in each analysis stage");
+        for (Map.Entry<String, StageMetrics> stage : stages.entrySet()) {
+            sample(out, "analysis_stage_cpu_seconds_total", stage.getKey(), format(stage.getValue().cpuNanos.sum() / 1e9));
+        }
+        header(out, "analysis_stage_allocated_bytes_total", "counter", "Heap bytes allocated by each analysis stage");
+        for (Map.Entry<String, StageMetrics> stage : stages.entrySet()) {
+            sample(out, "analysis_stage_allocated_bytes_total", stage.getKey(),
+                    Long.toString(stage.getValue().allocatedBytes.sum()));
+        }
+        header(out, "analysis_stage_bytes_processed_total", "counter", "Input bytes processed by each analysis stage");
+        for (Map.Entry<String, StageMetrics> stage : stages.entrySet()) {
+            sample(out, "analysis_stage_bytes_processed_total", stage.getKey(), Long.toString(stage.getValue().bytes.sum()));
+        }
+        header(out, "analysis_stage_classes_processed_total", "counter", "Classes processed by each analysis stage");
+        for (Map.Entry<String, StageMetrics> stage : stages.entrySet()) {
+            sample(out, "analysis_stage_classes_processed_total", stage.getKey(),
+                    Long.toString(stage.getValue().classes.sum()));
+        }
+
+        Map<String, long[]> cacheCounts = new ConcurrentSkipListMap<>();
+        for (Map.Entry<String, LongAdder[]> cache : caches.entrySet()) {
+            cacheCounts.put(cache.getKey(), new long[] {cache.getValue()[0].sum(), cache.getValue()[1].sum()});
+        }
+        // The per-class cache keeps its own counters; it is process-wide like the shared metrics
+        if (this == SHARED && ClassResultCache.isEnabled()) {
+            ClassResultCache classCache = ClassResultCache.shared();
+            cacheCounts.put("class", new long[] {classCache.getHitCount(), classCache.getMissCount()});
+        }
+
+        header(out, "analysis_cache_requests_total", "counter", "Cache lookups by result");
+        for (Map.Entry<String, long[]> cache : cacheCounts.entrySet()) {
+            out.append("analysis_cache_requests_total{cache=\"").append(cache.getKey()).append("\",result=\"hit\"} ")
+               .append(cache.getValue()[0]).append('\n');
+            out.append("analysis_cache_requests_total{cache=\"").append(cache.getKey()).append("\",result=\"miss\"} ")
+               .append(cache.getValue()[1]).append('\n');
+        }
+        header(out, "analysis_cache_hit_ratio", "gauge", "Fraction of cache lookups that hit");
+        for (Map.Entry<String, long[]> cache : cacheCounts.entrySet()) {
+            long lookups = cache.getValue()[0] + cache.getValue()[1];
+            out.append("analysis_cache_hit_ratio{cache=\"").append(cache.getKey()).append("\"} ")
+               .append(format(lookups == 0 ? 0 : (double) cache.getValue()[0] / lookups)).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String stage, String value) {
+        out.append(name).append("{stage=\"").append(stage).append("\"} ").append(value).append('\n');
+    }
+
+    private static String format(double value) {
+        return Double.toString(value);
+    }
+
+    /**
+     * Measures one run of a stage; closing it records wall time, CPU time and allocations
+     */
+    public static class Timer implements AutoCloseable {
+        private final StageMetrics metrics;
+        private final long startNanos = System.nanoTime();
+        private final long startCpuNanos = currentThreadCpuTime();
+        private final long startAllocatedBytes = currentThreadAllocatedBytes();
+
+        Timer(StageMetrics metrics) {
+            super();
+            this.metrics = metrics;
+        }
+
+        public void addBytes(long bytes) {
+            metrics.bytes.add(bytes);
+        }
+
+        public void addClasses(long classes) {
+            metrics.classes.add(classes);
+        }
+
+        @Override
+        public void close() {
+            long wallNanos = System.nanoTime() - startNanos;
+            metrics.observe(wallNanos);
+            if (startCpuNanos >= 0) {
+                metrics.cpuNanos.add(currentThreadCpuTime() - startCpuNanos);
+            }
+            if (startAllocatedBytes >= 0) {
+                metrics.allocatedBytes.add(currentThreadAllocatedBytes() - startAllocatedBytes);
+            }
+        }
+    }
+
+    static class StageMetrics {
+        private final AtomicLongArray buckets = new AtomicLongArray(DURATION_BUCKETS.length + 1);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder wallNanos = new LongAdder();
+        private final LongAdder cpuNanos = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder classes = new LongAdder();
+
+        StageMetrics() {
+            super();
+        }
+
+        void observe(long nanos) {
+            double seconds = nanos / 1e9;
+            int bucket = 0;
+            while (bucket < DURATION_BUCKETS.length && seconds > DURATION_BUCKETS[bucket]) {
+                bucket++;
+            }
+            buckets.incrementAndGet(bucket);
+            count.increment();
+            wallNanos.add(nanos);
+        }
+    }
+}
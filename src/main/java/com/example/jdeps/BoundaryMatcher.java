@@ -0,0 +1,58 @@
+package com.example.jdeps;
+
+import java.util.Arrays;
+
+/**
+ * Boyer-Moore-Horspool byte pattern search with a precomputed skip table.
+ * Searches take an explicit range, so a caller streaming through a buffer can resume a scan
+ * after refilling instead of rescanning bytes it has already ruled out.
+ */
+public class BoundaryMatcher {
+
+    private final byte[] pattern;
+    private final int[] skip = new int[256];
+
+    public BoundaryMatcher(byte[] pattern) {
+        super();
+        if (pattern.length == 0) {
+            throw new IllegalArgumentException("Pattern must not be empty");
+        }
+        this.pattern = pattern.clone();
+        int last = pattern.length - 1;
+        Arrays.fill(skip, pattern.length);
+        for (int i = 0; i < last; i++) {
+            skip[pattern[i] & 0xFF] = last - i;
+        }
+    }
+
+    public int length() {
+        return pattern.length;
+    }
+
+    /**
+     * Returns the index of the first match that lies entirely within data[from, to), or -1
+     */
+    public int indexOf(byte[] data, int from, int to) {
+        int last = pattern.length - 1;
+        byte lastByte = pattern[last];
+        int i = from;
+        int limit = to - pattern.length;
+        while (i <= limit) {
+            byte b = data[i + last];
+            // Check the last byte first, then compare the rest in one (intrinsified) range compare
+            if (b == lastByte && Arrays.equals(data, i, i + last, pattern, 0, last)) {
+                return i;
+            }
+            i += skip[b & 0xFF];
+        }
+        return -1;
+    }
+
+    /**
+     * First index in data[from, to) where a later search must resume after more bytes are
+     * appended at {@code to}: only the last length() - 1 bytes can still start a match
+     */
+    public int resumeIndex(int from, int to) {
+        return Math.max(from, to - (pattern.length - 1));
+    }
+}
@@ -0,0 +1,638 @@
+package com.example.jdeps;
+
+import org.objectweb.asm.*;
+import org.objectweb.asm.signature.SignatureReader;
+import org.objectweb.asm.signature.SignatureVisitor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReference;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * ASM-based replacement for jdeps class and package dependency analysis.
+ * Each class is read once: the constant pool, descriptors, signatures, annotations,
+ * invokedynamic bootstrap arguments and {@code ldc} types are scanned for referenced classes,
+ * and the same pass fills the {@link ASMBytecodeAnalyzer.ClassAnalysisResult} metrics.
+ * Target modules are resolved against the running JDK through {@link ModuleFinder#ofSystem()}.
+ */
+public class BytecodeDependencyExtractor {
+
+    /** System property selecting the dependency engine: "jdeps" (default) or "asm" */
+    public static final String ENGINE_PROPERTY = "analysis.dependencyEngine";
+
+    // Constant pool tags from the class file format (JVMS 4.4)
+    private static final int CONSTANT_CLASS_TAG = 7;
+    private static final int CONSTANT_NAME_AND_TYPE_TAG = 12;
+
+    private static final String NOT_FOUND = "not found";
+    private static final String DEPENDENCY_FORMAT = "   %-50s -> %-50s %s";
+
+    // JDK package name -> module name, and the packages each module exports to everyone
+    private static final Map<String, String> SYSTEM_PACKAGE_MODULES = new HashMap<>();
+    private static final Set<String> SYSTEM_EXPORTED_PACKAGES = new HashSet<>();
+
+    static {
+        for (ModuleReference reference : ModuleFinder.ofSystem().findAll()) {
+            ModuleDescriptor descriptor = reference.descriptor();
+            for (String pkg : descriptor.packages()) {
+                SYSTEM_PACKAGE_MODULES.put(pkg, descriptor.name());
+            }
+            for (ModuleDescriptor.Exports exports : descriptor.exports()) {
+                if (!exports.isQualified()) {
+                    SYSTEM_EXPORTED_PACKAGES.add(exports.source());
+                }
+            }
+        }
+    }
+
+    public BytecodeDependencyExtractor() {
+        super();
+    }
+
+    /**
+     * Returns true if dependency analysis should use this extractor instead of jdeps
+     */
+    public static boolean isEnabled() {
+        return "asm".equalsIgnoreCase(System.getProperty(ENGINE_PROPERTY, "jdeps"));
+    }
+
+    /**
+     * Combined result of the single pass over a JAR
+     */
+    public static class ExtractionResult {
+        private final String archiveName;
+        private final Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> classResults;
+        private final Map<String, Map<String, String>> classEdges;
+        private final JDepsViews views;
+
+        ExtractionResult(String archiveName, Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> classResults,
+                         Map<String, Map<String, String>> classEdges, JDepsViews views) {
+            super();
+            this.archiveName = archiveName;
+            this.classResults = classResults;
+            this.classEdges = classEdges;
+            this.views = views;
+        }
+
+        public String getArchiveName() { return archiveName; }
+
+        /** ASM metrics per class, as returned by {@link ASMBytecodeAnalyzer#analyzeJarFile(String)} */
+        public Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> getClassResults() { return classResults; }
+
+        /** Source class -> (target class -> target module), sorted as jdeps sorts its output */
+        public Map<String, Map<String, String>> getClassEdges() { return classEdges; }
+
+        /** Class, package and summary views in jdeps output format */
+        public JDepsViews getViews() { return views; }
+    }
+
+    /**
+     * Reads every class in the JAR once and extracts both dependencies and ASM metrics
+     */
+    public static ExtractionResult analyzeJar(Path jarPath) throws IOException {
+        return analyzeJar(jarPath, null);
+    }
+
+    /**
+     * Like {@link #analyzeJar(Path)}, but classes whose bytes are already in the cache are not
+     * parsed again; their references and metrics are merged from the cache instead
+     */
+    public static ExtractionResult analyzeJar(Path jarPath, ClassResultCache cache) throws IOException {
+        String archiveName = jarPath.getFileName().toString();
+        Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> classResults = new HashMap<>();
+        Map<String, Set<String>> references = new TreeMap<>();
+        SymbolTable symbols = new SymbolTable();
+
+        if (MappedJarReader.canMap(jarPath)) {
+            try (MappedJarReader jar = MappedJarReader.open(jarPath)) {
+                for (MappedJarReader.Entry entry : jar.getEntries()) {
+                    if (isAnalyzableEntry(entry.getName())) {
+                        addClass(entry.getName(), jar.readShared(entry), entry.getSize(), cache, symbols,
+                                references, classResults);
+                    }
+                }
+            }
+            return toResult(archiveName, references, classResults);
+        }
+
+        try (JarFile jarFile = new JarFile(jarPath.toFile())) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (isAnalyzableEntry(entry.getName())) {
+                    try (InputStream inputStream = jarFile.getInputStream(entry)) {
+                        byte[] classBytes = inputStream.readAllBytes();
+                        addClass(entry.getName(), classBytes, classBytes.length, cache, symbols, references, classResults);
+                    }
+                }
+            }
+        }
+
+        return toResult(archiveName, references, classResults);
+    }
+
+    /**
+     * Analyzes a JAR read sequentially from a stream, such as a JAR nested in an uploaded ZIP,
+     * without writing it to disk
+     */
+    public static ExtractionResult analyzeJarStream(String archiveName, InputStream jarStream,
+                                                    ClassResultCache cache) throws IOException {
+        Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> classResults = new HashMap<>();
+        Map<String, Set<String>> references = new TreeMap<>();
+        SymbolTable symbols = new SymbolTable();
+
+        ZipInputStream zipStream = new ZipInputStream(jarStream);
+        ZipEntry entry;
+        while ((entry = zipStream.getNextEntry()) != null) {
+            if (!entry.isDirectory() && isAnalyzableEntry(entry.getName())) {
+                byte[] classBytes = zipStream.readAllBytes();
+                addClass(entry.getName(), classBytes, classBytes.length, cache, symbols, references, classResults);
+            }
+        }
+
+        return toResult(archiveName, references, classResults);
+    }
+
+    /**
+     * Analyzes class files held in memory, keyed by JAR entry name, as if they were the entries
+     * of a JAR called {@code archiveName}
+     */
+    public static ExtractionResult analyzeClassFiles(String archiveName, Map<String, byte[]> classFiles,
+                                                     ClassResultCache cache) {
+        ClassCollector collector = new ClassCollector(cache);
+        for (Map.Entry<String, byte[]> classFile : classFiles.entrySet()) {
+            collector.add(classFile.getKey(), classFile.getValue());
+        }
+        return collector.toResult(archiveName);
+    }
+
+    /**
+     * Collects classes added one at a time, from any number of threads, into one extraction
+     * result; used where class files arrive incrementally, such as from a {@link ClassPipeline}
+     */
+    public static class ClassCollector {
+        private final ClassResultCache cache;
+        private final SymbolTable symbols = new SymbolTable();
+        private final Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> classResults = new ConcurrentHashMap<>();
+        private final Map<String, Set<String>> references = new ConcurrentSkipListMap<>();
+
+        public ClassCollector(ClassResultCache cache) {
+            super();
+            this.cache = cache;
+        }
+
+        /** Adds one class file; entries that are not analyzable classes are ignored */
+        public void add(String entryName, byte[] classBytes) {
+            if (isAnalyzableEntry(entryName)) {
+                addClass(entryName, classBytes, classBytes.length, cache, symbols, references, classResults);
+            }
+        }
+
+        /** Resolves the collected classes as the contents of the named archive */
+        public ExtractionResult toResult(String archiveName) {
+            return BytecodeDependencyExtractor.toResult(archiveName, references, classResults);
+        }
+    }
+
+    private static boolean isAnalyzableEntry(String name) {
+        return name.endsWith(".class") && !name.endsWith("module-info.class") && !name.startsWith("META-INF/");
+    }
+
+    /**
+     * Adds the class file held in the first {@code length} bytes of the buffer, which may be a
+     * reused scratch buffer: nothing kept refers to it
+     */
+    private static void addClass(String name, byte[] classBytes, int length, ClassResultCache cache,
+                                 SymbolTable symbols, Map<String, Set<String>> references,
+                                 Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> classResults) {
+        try {
+            // Only top-level classes get metrics, matching ASMBytecodeAnalyzer.analyzeJarFile
+            boolean topLevel = !name.contains("$");
+
+            String digest = cache != null ? ClassResultCache.digest(classBytes, length) : null;
+            ClassResultCache.Entry cached = cache != null ? cache.get(digest, symbols, true, topLevel) : null;
+            if (cached == null || cached.getReferences() == null || (topLevel && cached.getResult() == null)) {
+                cached = extractClass(classBytes, length, topLevel, symbols);
+                if (cache != null) {
+                    cache.put(digest, cached);
+                }
+            }
+
+            references.put(cached.getClassName(), cached.getReferences());
+            if (topLevel) {
+                classResults.put(cached.getResult().getClassName(), cached.getResult());
+            }
+        } catch (Exception e) {
+            System.err.println("Error analyzing class " + name + ": " + e.getMessage());
+        }
+    }
+
+    private static ExtractionResult toResult(String archiveName, Map<String, Set<String>> references,
+                                             Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> classResults) {
+        Map<String, Map<String, String>> classEdges = resolveEdges(archiveName, references);
+        return new ExtractionResult(archiveName, classResults, classEdges,
+                JDepsViews.fromClassLevelOutput(formatClassLevel(archiveName, classEdges)));
+    }
+
+    private static ClassResultCache.Entry extractClass(byte[] classBytes, int length, boolean withMetrics,
+                                                       SymbolTable symbols) {
+        ClassReader classReader = new ClassReader(classBytes, 0, length);
+        Set<String> referenced = new HashSet<>();
+        collectConstantPoolReferences(classReader, referenced);
+
+        ASMBytecodeAnalyzer.ClassAnalysisResult result = null;
+        ClassVisitor delegate = null;
+        if (withMetrics) {
+            result = new ASMBytecodeAnalyzer.ClassAnalysisResult(symbols);
+            delegate = ASMBytecodeAnalyzer.newAnalysisVisitor(result);
+        }
+        classReader.accept(new DependencyClassVisitor(delegate, referenced),
+                ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return new ClassResultCache.Entry(classReader.getClassName(), referenced, result);
+    }
+
+    /**
+     * Resolves raw internal-name references into class-level edges, dropping self and
+     * same-package references the way jdeps does by default
+     */
+    private static Map<String, Map<String, String>> resolveEdges(String archiveName, Map<String, Set<String>> references) {
+        Set<String> localClasses = new HashSet<>();
+        for (String internalName : references.keySet()) {
+            localClasses.add(internalName.replace('/', '.'));
+        }
+
+        Map<String, Map<String, String>> classEdges = new TreeMap<>();
+        for (Map.Entry<String, Set<String>> entry : references.entrySet()) {
+            String source = entry.getKey().replace('/', '.');
+            String sourcePackage = packageOf(source);
+            Map<String, String> targets = new TreeMap<>();
+
+            for (String internalName : entry.getValue()) {
+                String target = internalName.replace('/', '.');
+                if (target.equals(source) || packageOf(target).equals(sourcePackage)) {
+                    continue;
+                }
+                targets.put(target, localClasses.contains(target) ? archiveName : resolveModule(target));
+            }
+            if (!targets.isEmpty()) {
+                classEdges.put(source, targets);
+            }
+        }
+        return classEdges;
+    }
+
+    /**
+     * Returns the module label jdeps prints for a class outside the analyzed archive
+     */
+    static String resolveModule(String className) {
+        String pkg = packageOf(className);
+        String module = SYSTEM_PACKAGE_MODULES.get(pkg);
+        if (module == null) {
+            return NOT_FOUND;
+        }
+        return SYSTEM_EXPORTED_PACKAGES.contains(pkg) ? module : "JDK internal API (" + module + ")";
+    }
+
+    /**
+     * Formats class-level edges exactly like {@code jdeps -verbose:class}
+     */
+    private static String formatClassLevel(String archiveName, Map<String, Map<String, String>> classEdges) {
+        Set<String> targetModules = new TreeSet<>();
+        for (Map<String, String> targets : classEdges.values()) {
+            for (String module : targets.values()) {
+                if (!module.equals(archiveName)) {
+                    targetModules.add(module.startsWith("JDK internal API (")
+                            ? module.substring("JDK internal API (".length(), module.length() - 1)
+                            : module);
+                }
+            }
+        }
+
+        StringBuilder output = new StringBuilder();
+        for (String module : targetModules) {
+            output.append(archiveName).append(" -> ").append(module).append("\n");
+        }
+        for (Map.Entry<String, Map<String, String>> entry : classEdges.entrySet()) {
+            for (Map.Entry<String, String> target : entry.getValue().entrySet()) {
+                output.append(String.format(DEPENDENCY_FORMAT, entry.getKey(), target.getKey(), target.getValue()))
+                      .append("\n");
+            }
+        }
+        return output.toString();
+    }
+
+    /**
+     * Adds every class named by the constant pool: class entries and member descriptors.
+     * Method-type constants are skipped, as jdeps does not report them.
+     */
+    private static void collectConstantPoolReferences(ClassReader classReader, Set<String> referenced) {
+        char[] buffer = new char[classReader.getMaxStringLength()];
+        for (int i = 1; i < classReader.getItemCount(); i++) {
+            int offset = classReader.getItem(i);
+            if (offset == 0) {
+                continue; // Second slot of a long or double constant
+            }
+            switch (classReader.readByte(offset - 1)) {
+                case CONSTANT_CLASS_TAG:
+                    addInternalName(classReader.readUTF8(offset, buffer), referenced);
+                    break;
+                case CONSTANT_NAME_AND_TYPE_TAG:
+                    addDescriptor(classReader.readUTF8(offset + 2, buffer), referenced);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static void addInternalName(String internalName, Set<String> referenced) {
+        if (internalName == null) {
+            return;
+        }
+        if (internalName.startsWith("[")) {
+            addType(Type.getType(internalName), referenced);
+        } else {
+            referenced.add(internalName);
+        }
+    }
+
+    private static void addDescriptor(String descriptor, Set<String> referenced) {
+        if (descriptor == null || descriptor.isEmpty()) {
+            return;
+        }
+        if (descriptor.charAt(0) == '(') {
+            Type methodType = Type.getMethodType(descriptor);
+            addType(methodType.getReturnType(), referenced);
+            for (Type argument : methodType.getArgumentTypes()) {
+                addType(argument, referenced);
+            }
+        } else {
+            addType(Type.getType(descriptor), referenced);
+        }
+    }
+
+    private static void addType(Type type, Set<String> referenced) {
+        switch (type.getSort()) {
+            case Type.ARRAY:
+                addType(type.getElementType(), referenced);
+                break;
+            case Type.OBJECT:
+                referenced.add(type.getInternalName());
+                break;
+            case Type.METHOD:
+                addDescriptor(type.getDescriptor(), referenced);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void addSignature(String signature, Set<String> referenced) {
+        if (signature != null) {
+            new SignatureReader(signature).accept(new SignatureCollector(referenced, false));
+        }
+    }
+
+    private static void addClassSignature(String signature, Set<String> referenced) {
+        if (signature != null) {
+            // jdeps ignores the bounds of a class's own type parameters
+            new SignatureReader(signature).accept(new SignatureCollector(referenced, true));
+        }
+    }
+
+    private static void addConstant(Object value, Set<String> referenced) {
+        if (value instanceof Type) {
+            // Method types (e.g. lambda signatures in bootstrap arguments) are not dependencies for jdeps
+            if (((Type) value).getSort() != Type.METHOD) {
+                addType((Type) value, referenced);
+            }
+        } else if (value instanceof Handle) {
+            Handle handle = (Handle) value;
+            referenced.add(handle.getOwner());
+            addDescriptor(handle.getDesc(), referenced);
+        } else if (value instanceof ConstantDynamic) {
+            ConstantDynamic constant = (ConstantDynamic) value;
+            addDescriptor(constant.getDescriptor(), referenced);
+            addConstant(constant.getBootstrapMethod(), referenced);
+            for (int i = 0; i < constant.getBootstrapMethodArgumentCount(); i++) {
+                addConstant(constant.getBootstrapMethodArgument(i), referenced);
+            }
+        }
+    }
+
+    private static String packageOf(String className) {
+        int lastDot = className.lastIndexOf('.');
+        return lastDot > 0 ? className.substring(0, lastDot) : "";
+    }
+
+    /**
+     * Class visitor collecting references from declarations, signatures and annotations,
+     * delegating to the ASM metrics visitor when one is given
+     */
+    private static class DependencyClassVisitor extends ClassVisitor {
+        private final Set<String> referenced;
+
+        DependencyClassVisitor(ClassVisitor delegate, Set<String> referenced) {
+            super(Opcodes.ASM9, delegate);
+            this.referenced = referenced;
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            super.visit(version, access, name, signature, superName, interfaces);
+            addInternalName(superName, referenced);
+            if (interfaces != null) {
+                for (String interfaceName : interfaces) {
+                    addInternalName(interfaceName, referenced);
+                }
+            }
+            addClassSignature(signature, referenced);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            super.visitAnnotation(descriptor, visible);
+            addDescriptor(descriptor, referenced);
+            return new AnnotationCollector(referenced);
+        }
+
+        @Override
+        public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible) {
+            super.visitTypeAnnotation(typeRef, typePath, descriptor, visible);
+            addDescriptor(descriptor, referenced);
+            return new AnnotationCollector(referenced);
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+            FieldVisitor delegate = super.visitField(access, name, descriptor, signature, value);
+            addDescriptor(descriptor, referenced);
+            addSignature(signature, referenced);
+            return new FieldVisitor(Opcodes.ASM9, delegate) {
+                @Override
+                public AnnotationVisitor visitAnnotation(String annotationDescriptor, boolean visible) {
+                    super.visitAnnotation(annotationDescriptor, visible);
+                    addDescriptor(annotationDescriptor, referenced);
+                    return new AnnotationCollector(referenced);
+                }
+            };
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            MethodVisitor delegate = super.visitMethod(access, name, descriptor, signature, exceptions);
+            addDescriptor(descriptor, referenced);
+            addSignature(signature, referenced);
+            if (exceptions != null) {
+                for (String exception : exceptions) {
+                    addInternalName(exception, referenced);
+                }
+            }
+            return new DependencyMethodVisitor(delegate, referenced);
+        }
+    }
+
+    /**
+     * Method visitor collecting references from instructions, handlers and annotations
+     */
+    private static class DependencyMethodVisitor extends MethodVisitor {
+        private final Set<String> referenced;
+
+        DependencyMethodVisitor(MethodVisitor delegate, Set<String> referenced) {
+            super(Opcodes.ASM9, delegate);
+            this.referenced = referenced;
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            super.visitAnnotation(descriptor, visible);
+            addDescriptor(descriptor, referenced);
+            return new AnnotationCollector(referenced);
+        }
+
+        @Override
+        public AnnotationVisitor visitParameterAnnotation(int parameter, String descriptor, boolean visible) {
+            super.visitParameterAnnotation(parameter, descriptor, visible);
+            addDescriptor(descriptor, referenced);
+            return new AnnotationCollector(referenced);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotationDefault() {
+            super.visitAnnotationDefault();
+            return new AnnotationCollector(referenced);
+        }
+
+        @Override
+        public void visitTypeInsn(int opcode, String type) {
+            super.visitTypeInsn(opcode, type);
+            addInternalName(type, referenced);
+        }
+
+        @Override
+        public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+            super.visitFieldInsn(opcode, owner, name, descriptor);
+            addInternalName(owner, referenced);
+            addDescriptor(descriptor, referenced);
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+            super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+            addInternalName(owner, referenced);
+            addDescriptor(descriptor, referenced);
+        }
+
+        @Override
+        public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle,
+                                           Object... bootstrapMethodArguments) {
+            super.visitInvokeDynamicInsn(name, descriptor, bootstrapMethodHandle, bootstrapMethodArguments);
+            addDescriptor(descriptor, referenced);
+            addConstant(bootstrapMethodHandle, referenced);
+            for (Object argument : bootstrapMethodArguments) {
+                addConstant(argument, referenced);
+            }
+        }
+
+        @Override
+        public void visitLdcInsn(Object value) {
+            super.visitLdcInsn(value);
+            addConstant(value, referenced);
+        }
+
+        @Override
+        public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+            super.visitMultiANewArrayInsn(descriptor, numDimensions);
+            addDescriptor(descriptor, referenced);
+        }
+
+        @Override
+        public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
+            super.visitTryCatchBlock(start, end, handler, type);
+            addInternalName(type, referenced);
+        }
+    }
+
+    /**
+     * Annotation visitor collecting nested annotation types. Enum and class values are
+     * skipped because jdeps does not report types used only as annotation values.
+     */
+    private static class AnnotationCollector extends AnnotationVisitor {
+        private final Set<String> referenced;
+
+        AnnotationCollector(Set<String> referenced) {
+            super(Opcodes.ASM9);
+            this.referenced = referenced;
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String name, String descriptor) {
+            addDescriptor(descriptor, referenced);
+            return this;
+        }
+
+        @Override
+        public AnnotationVisitor visitArray(String name) {
+            return this;
+        }
+    }
+
+    /**
+     * Signature visitor collecting class types from generic signatures
+     */
+    private static class SignatureCollector extends SignatureVisitor {
+        private final Set<String> referenced;
+        private final boolean skipBounds;
+
+        SignatureCollector(Set<String> referenced, boolean skipBounds) {
+            super(Opcodes.ASM9);
+            this.referenced = referenced;
+            this.skipBounds = skipBounds;
+        }
+
+        @Override
+        public SignatureVisitor visitClassBound() {
+            return skipBounds ? new SignatureCollector(new HashSet<>(), false) : this;
+        }
+
+        @Override
+        public SignatureVisitor visitInterfaceBound() {
+            return skipBounds ? new SignatureCollector(new HashSet<>(), false) : this;
+        }
+
+        @Override
+        public void visitClassType(String name) {
+            referenced.add(name);
+        }
+    }
+}
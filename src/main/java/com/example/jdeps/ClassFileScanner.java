@@ -0,0 +1,533 @@
+package com.example.jdeps;
+
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Allocation-light class analysis that reads the class file format directly instead of going
+ * through ASM's ClassReader, which allocates offset arrays, a label array per method and a new
+ * String for every constant it decodes. Here the constant pool offsets, the symbol IDs resolved
+ * for each constant and the character buffer used to decode names are per-thread scratch state
+ * reused from class to class, and UTF-8 constants are looked up by their bytes, so a name that
+ * any earlier class on the thread used is not decoded again. Fills the same
+ * {@link ASMBytecodeAnalyzer.ClassAnalysisResult} as the streaming ASM visitor.
+ */
+public class ClassFileScanner {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final byte[] CODE = "Code".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Lengths in bytes of the instructions up to jsr_w (201); 0 for the switches and wide, whose
+     * length depends on their operands
+     */
+    private static final byte[] INSTRUCTION_LENGTHS = new byte[202];
+
+    static {
+        Arrays.fill(INSTRUCTION_LENGTHS, (byte) 1);
+        for (int opcode : new int[] {Opcodes.BIPUSH, Opcodes.LDC, Opcodes.ILOAD, Opcodes.LLOAD, Opcodes.FLOAD,
+                Opcodes.DLOAD, Opcodes.ALOAD, Opcodes.ISTORE, Opcodes.LSTORE, Opcodes.FSTORE, Opcodes.DSTORE,
+                Opcodes.ASTORE, Opcodes.RET, Opcodes.NEWARRAY}) {
+            INSTRUCTION_LENGTHS[opcode] = 2;
+        }
+        for (int opcode = Opcodes.IFEQ; opcode <= Opcodes.JSR; opcode++) {
+            INSTRUCTION_LENGTHS[opcode] = 3;
+        }
+        for (int opcode = Opcodes.GETSTATIC; opcode <= Opcodes.INVOKESTATIC; opcode++) {
+            INSTRUCTION_LENGTHS[opcode] = 3;
+        }
+        for (int opcode : new int[] {Opcodes.SIPUSH, 19 /* ldc_w */, 20 /* ldc2_w */, Opcodes.IINC, Opcodes.NEW,
+                Opcodes.ANEWARRAY, Opcodes.CHECKCAST, Opcodes.INSTANCEOF, Opcodes.IFNULL, Opcodes.IFNONNULL}) {
+            INSTRUCTION_LENGTHS[opcode] = 3;
+        }
+        INSTRUCTION_LENGTHS[Opcodes.MULTIANEWARRAY] = 4;
+        INSTRUCTION_LENGTHS[Opcodes.INVOKEINTERFACE] = 5;
+        INSTRUCTION_LENGTHS[Opcodes.INVOKEDYNAMIC] = 5;
+        INSTRUCTION_LENGTHS[200 /* goto_w */] = 5;
+        INSTRUCTION_LENGTHS[201 /* jsr_w */] = 5;
+        INSTRUCTION_LENGTHS[Opcodes.TABLESWITCH] = 0;
+        INSTRUCTION_LENGTHS[Opcodes.LOOKUPSWITCH] = 0;
+        INSTRUCTION_LENGTHS[196 /* wide */] = 0;
+    }
+
+    private static final ThreadLocal<Scanner> SCANNER = ThreadLocal.withInitial(Scanner::new);
+
+    public ClassFileScanner() {
+        super();
+    }
+
+    /**
+     * Analyzes the class file held in the first {@code length} bytes of a buffer into the result
+     *
+     * @throws IllegalArgumentException if the bytes are not a well-formed class file
+     */
+    public static void analyze(byte[] buffer, int length, ASMBytecodeAnalyzer.ClassAnalysisResult result) {
+        SCANNER.get().scan(buffer, length, result);
+    }
+
+    /**
+     * Reads a class file into the calling thread's input buffer and analyzes it into the result
+     */
+    public static void analyze(InputStream classStream, ASMBytecodeAnalyzer.ClassAnalysisResult result) throws IOException {
+        Scanner scanner = SCANNER.get();
+        int length = 0;
+        while (true) {
+            if (length == scanner.input.length) {
+                scanner.input = Arrays.copyOf(scanner.input, scanner.input.length * 2);
+            }
+            int read = classStream.read(scanner.input, length, scanner.input.length - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+        scanner.scan(scanner.input, length, result);
+    }
+
+    /**
+     * Drops the calling thread's scanner and its scratch state. Called by analysis threads
+     * before they exit.
+     */
+    public static void releaseScratch() {
+        SCANNER.remove();
+    }
+
+    /**
+     * Per-thread scanner. The buffer being scanned is only referenced while {@link #scan} runs.
+     */
+    private static class Scanner {
+        private byte[] input = new byte[16 * 1024];
+        private int[] constantOffsets = new int[256];
+        // Symbol resolved for each constant: the atom of a UTF-8 constant, the member of a field or
+        // method reference and the type reference of a class constant; -1 until first needed
+        private int[] constantIds = new int[256];
+        private final AtomCache atoms = new AtomCache();
+
+        private byte[] bytes;
+        private int length;
+        private SymbolTable symbols;
+        private ASMBytecodeAnalyzer.ClassAnalysisResult result;
+
+        Scanner() {
+            super();
+        }
+
+        void scan(byte[] buffer, int length, ASMBytecodeAnalyzer.ClassAnalysisResult result) {
+            this.bytes = buffer;
+            this.length = length;
+            this.result = result;
+            this.symbols = result.getSymbolTable();
+            try {
+                scanClass();
+            } finally {
+                this.bytes = null;
+                this.result = null;
+            }
+        }
+
+        private void scanClass() {
+            if (length < 10 || readInt(0) != MAGIC) {
+                throw new IllegalArgumentException("Not a class file");
+            }
+            int offset = readConstantPool();
+
+            int access = readUnsignedShort(offset);
+            result.setClassName(symbols.atom(classAtom(readUnsignedShort(offset + 2))));
+            int superClass = readUnsignedShort(offset + 4);
+            result.setSuperClass(superClass != 0 ? symbols.atom(classAtom(superClass)) : null);
+            result.setAbstract((access & Opcodes.ACC_ABSTRACT) != 0);
+            result.setInterface((access & Opcodes.ACC_INTERFACE) != 0);
+            result.setFinal((access & Opcodes.ACC_FINAL) != 0);
+
+            int interfaceCount = readUnsignedShort(offset + 6);
+            offset += 8;
+            for (int i = 0; i < interfaceCount; i++, offset += 2) {
+                result.getInterfaceIds().add(classAtom(readUnsignedShort(offset)));
+            }
+
+            int fieldCount = readUnsignedShort(offset);
+            offset += 2;
+            result.setTotalFields(fieldCount);
+            for (int i = 0; i < fieldCount; i++) {
+                offset = scanMember(offset, false);
+            }
+
+            int methodCount = readUnsignedShort(offset);
+            offset += 2;
+            result.setTotalMethods(methodCount);
+            for (int i = 0; i < methodCount; i++) {
+                offset = scanMember(offset, true);
+            }
+
+            int attributeCount = readUnsignedShort(offset);
+            offset += 2;
+            for (int i = 0; i < attributeCount; i++) {
+                int attributeLength = readInt(offset + 2);
+                if (utf8Equals(readUnsignedShort(offset), VISIBLE_ANNOTATIONS)) {
+                    scanAnnotations(offset + 6);
+                }
+                offset += 6 + attributeLength;
+            }
+        }
+
+        /**
+         * Records the offset of every constant and clears the IDs resolved for the previous class
+         */
+        private int readConstantPool() {
+            int count = readUnsignedShort(8);
+            if (constantOffsets.length < count) {
+                constantOffsets = new int[Math.max(count, constantOffsets.length * 2)];
+                constantIds = new int[constantOffsets.length];
+            }
+            Arrays.fill(constantIds, 0, count, -1);
+
+            int offset = 10;
+            for (int i = 1; i < count; i++) {
+                // Offsets point past the tag byte, at the constant's contents
+                constantOffsets[i] = offset + 1;
+                int tag = readByte(offset);
+                switch (tag) {
+                    case 1: // Utf8
+                        offset += 3 + readUnsignedShort(offset + 1);
+                        break;
+                    case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+                        offset += 5;
+                        break;
+                    case 5: case 6: // Long and Double take two entries
+                        offset += 9;
+                        i++;
+                        break;
+                    case 7: case 8: case 16: case 19: case 20:
+                        offset += 3;
+                        break;
+                    case 15: // MethodHandle
+                        offset += 4;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Invalid constant pool tag " + tag + " at " + offset);
+                }
+            }
+            return offset;
+        }
+
+        /**
+         * Scans a field or method: visible annotations, and complexity and references for method code
+         */
+        private int scanMember(int offset, boolean method) {
+            int nameIndex = readUnsignedShort(offset + 2);
+            int attributeCount = readUnsignedShort(offset + 6);
+            offset += 8;
+            int complexity = 1; // Base complexity
+            for (int i = 0; i < attributeCount; i++) {
+                int attributeName = readUnsignedShort(offset);
+                int attributeLength = readInt(offset + 2);
+                if (utf8Equals(attributeName, VISIBLE_ANNOTATIONS)) {
+                    scanAnnotations(offset + 6);
+                } else if (method && utf8Equals(attributeName, CODE)) {
+                    complexity = scanCode(offset + 6);
+                }
+                offset += 6 + attributeLength;
+            }
+            if (method) {
+                result.getMethodComplexity().put(symbols.atom(atom(nameIndex)), complexity);
+            }
+            return offset;
+        }
+
+        /**
+         * Walks the instructions of a Code attribute, recording references and returning the
+         * method's cyclomatic complexity
+         */
+        private int scanCode(int offset) {
+            int codeStart = offset + 8;
+            int codeEnd = codeStart + readInt(offset + 4);
+            if (codeEnd > length || codeEnd < codeStart) {
+                throw new IllegalArgumentException("Code extends past the end of the class file");
+            }
+            int complexity = 1;
+            int position = codeStart;
+            while (position < codeEnd) {
+                int opcode = readByte(position);
+                switch (opcode) {
+                    case Opcodes.IFEQ: case Opcodes.IFNE: case Opcodes.IFLT: case Opcodes.IFGE:
+                    case Opcodes.IFGT: case Opcodes.IFLE: case Opcodes.IF_ICMPEQ: case Opcodes.IF_ICMPNE:
+                    case Opcodes.IF_ICMPLT: case Opcodes.IF_ICMPGE: case Opcodes.IF_ICMPGT: case Opcodes.IF_ICMPLE:
+                    case Opcodes.IF_ACMPEQ: case Opcodes.IF_ACMPNE: case Opcodes.IFNULL: case Opcodes.IFNONNULL:
+                        complexity++;
+                        position += 3;
+                        break;
+                    case Opcodes.TABLESWITCH: {
+                        // Operands are aligned to a multiple of four bytes from the start of the code
+                        int operands = position + 4 - ((position - codeStart) & 3);
+                        int cases = readInt(operands + 8) - readInt(operands + 4) + 1;
+                        complexity += cases;
+                        position = operands + 12 + 4 * cases;
+                        break;
+                    }
+                    case Opcodes.LOOKUPSWITCH: {
+                        int operands = position + 4 - ((position - codeStart) & 3);
+                        int pairs = readInt(operands + 4);
+                        complexity += pairs;
+                        position = operands + 8 + 8 * pairs;
+                        break;
+                    }
+                    case Opcodes.GETSTATIC: case Opcodes.PUTSTATIC: case Opcodes.GETFIELD: case Opcodes.PUTFIELD:
+                        result.getFieldAccessIds().add(member(readUnsignedShort(position + 1), false));
+                        position += 3;
+                        break;
+                    case Opcodes.INVOKEVIRTUAL: case Opcodes.INVOKESPECIAL: case Opcodes.INVOKESTATIC:
+                    case Opcodes.INVOKEINTERFACE:
+                        result.getMethodCallIds().add(member(readUnsignedShort(position + 1), true));
+                        position += INSTRUCTION_LENGTHS[opcode];
+                        break;
+                    case Opcodes.NEW: case Opcodes.ANEWARRAY: case Opcodes.CHECKCAST: case Opcodes.INSTANCEOF:
+                        result.getMethodCallIds().add(typeReference(readUnsignedShort(position + 1)));
+                        position += 3;
+                        break;
+                    case 196: // wide
+                        position += readByte(position + 1) == Opcodes.IINC ? 6 : 4;
+                        break;
+                    default:
+                        if (opcode >= INSTRUCTION_LENGTHS.length) {
+                            throw new IllegalArgumentException("Invalid opcode " + opcode + " at " + (position - codeStart));
+                        }
+                        position += INSTRUCTION_LENGTHS[opcode];
+                }
+            }
+            return complexity;
+        }
+
+        /**
+         * Records the types of the annotations in a RuntimeVisibleAnnotations attribute
+         */
+        private void scanAnnotations(int offset) {
+            int count = readUnsignedShort(offset);
+            offset += 2;
+            for (int i = 0; i < count; i++) {
+                result.getAnnotationIds().add(atom(readUnsignedShort(offset)));
+                offset = skipAnnotationValues(offset + 2);
+            }
+        }
+
+        private int skipAnnotationValues(int offset) {
+            int pairs = readUnsignedShort(offset);
+            offset += 2;
+            for (int i = 0; i < pairs; i++) {
+                offset = skipElementValue(offset + 2);
+            }
+            return offset;
+        }
+
+        private int skipElementValue(int offset) {
+            switch (readByte(offset)) {
+                case 'e':
+                    return offset + 5;
+                case '@':
+                    return skipAnnotationValues(offset + 3);
+                case '[': {
+                    int count = readUnsignedShort(offset + 1);
+                    offset += 3;
+                    for (int i = 0; i < count; i++) {
+                        offset = skipElementValue(offset);
+                    }
+                    return offset;
+                }
+                default:
+                    return offset + 3;
+            }
+        }
+
+        /**
+         * Returns the member ID of a field or method reference constant
+         */
+        private int member(int index, boolean method) {
+            int id = constantIds[index];
+            if (id < 0) {
+                int offset = constantOffsets[index];
+                int owner = classAtom(readUnsignedShort(offset));
+                int nameAndType = constantOffsets[readUnsignedShort(offset + 2)];
+                int name = atom(readUnsignedShort(nameAndType));
+                id = method
+                    ? symbols.internMethod(owner, name, atom(readUnsignedShort(nameAndType + 2)))
+                    : symbols.internField(owner, name);
+                constantIds[index] = id;
+            }
+            return id;
+        }
+
+        /**
+         * Returns the member ID of a type reference to a class constant
+         */
+        private int typeReference(int index) {
+            int id = constantIds[index];
+            if (id < 0) {
+                id = symbols.internType(classAtom(index));
+                constantIds[index] = id;
+            }
+            return id;
+        }
+
+        private int classAtom(int index) {
+            return atom(readUnsignedShort(constantOffsets[index]));
+        }
+
+        /**
+         * Returns the atom ID of a UTF-8 constant
+         */
+        private int atom(int index) {
+            int id = constantIds[index];
+            if (id < 0) {
+                int offset = constantOffsets[index];
+                id = symbols.intern(atoms.get(bytes, offset + 2, readUnsignedShort(offset)));
+                constantIds[index] = id;
+            }
+            return id;
+        }
+
+        private boolean utf8Equals(int index, byte[] expected) {
+            int offset = constantOffsets[index];
+            return readUnsignedShort(offset) == expected.length
+                && Arrays.equals(bytes, offset + 2, offset + 2 + expected.length, expected, 0, expected.length);
+        }
+
+        private int readByte(int offset) {
+            if (offset >= length) {
+                throw new IllegalArgumentException("Truncated class file");
+            }
+            return bytes[offset] & 0xFF;
+        }
+
+        private int readUnsignedShort(int offset) {
+            if (offset + 2 > length) {
+                throw new IllegalArgumentException("Truncated class file");
+            }
+            return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+        }
+
+        private int readInt(int offset) {
+            if (offset + 4 > length) {
+                throw new IllegalArgumentException("Truncated class file");
+            }
+            return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+                | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+        }
+    }
+
+    /**
+     * Per-thread map from the modified UTF-8 bytes of a name to its decoded String, so names that
+     * were decoded once are found again without building a new String. Independent of any symbol
+     * table; cleared when it fills up.
+     */
+    private static class AtomCache {
+        private static final int MAX_ENTRIES = 1 << 15;
+        private static final int MAX_BYTES = 1 << 20;
+
+        // Open addressing over entry numbers plus one, so zero marks a free slot; kept at most half full
+        private int[] slots = new int[2048];
+        private int[] hashes = new int[1024];
+        private String[] strings = new String[1024];
+        private int[] offsets = new int[1024];
+        private byte[] names = new byte[32 * 1024];
+        private char[] chars = new char[256];
+        private int count = 0;
+        private int used = 0;
+
+        AtomCache() {
+            super();
+        }
+
+        String get(byte[] source, int offset, int length) {
+            int hash = length;
+            for (int i = offset; i < offset + length; i++) {
+                hash = 31 * hash + source[i];
+            }
+            int slot = findSlot(hash);
+            for (int entry = slots[slot]; entry != 0; entry = slots[slot]) {
+                int e = entry - 1;
+                int start = offsets[e];
+                if (hashes[e] == hash && offsets[e + 1] - start == length
+                        && Arrays.equals(names, start, start + length, source, offset, offset + length)) {
+                    return strings[e];
+                }
+                slot = (slot + 1) & (slots.length - 1);
+            }
+
+            String string = decode(source, offset, length);
+            if (count + 1 == MAX_ENTRIES || used + length > MAX_BYTES) {
+                clear();
+            } else if (count + 1 == hashes.length) {
+                grow();
+            }
+            if (used + length > names.length) {
+                names = Arrays.copyOf(names, Math.max(used + length, names.length * 2));
+            }
+            System.arraycopy(source, offset, names, used, length);
+            hashes[count] = hash;
+            strings[count] = string;
+            used += length;
+            // The next entry's offset doubles as this entry's end
+            offsets[count + 1] = used;
+            count++;
+            insert(count - 1);
+            return string;
+        }
+
+        private int findSlot(int hash) {
+            return (hash ^ (hash >>> 16)) & (slots.length - 1);
+        }
+
+        private void insert(int entry) {
+            int slot = findSlot(hashes[entry]);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & (slots.length - 1);
+            }
+            slots[slot] = entry + 1;
+        }
+
+        private void grow() {
+            int capacity = hashes.length * 2;
+            hashes = Arrays.copyOf(hashes, capacity);
+            strings = Arrays.copyOf(strings, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            slots = new int[capacity * 2];
+            for (int entry = 0; entry < count; entry++) {
+                insert(entry);
+            }
+        }
+
+        /**
+         * Decodes modified UTF-8 as stored in the constant pool
+         */
+        private String decode(byte[] source, int offset, int length) {
+            if (chars.length < length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+            }
+            int count = 0;
+            int end = offset + length;
+            while (offset < end) {
+                int c = source[offset++] & 0xFF;
+                if (c < 0x80) {
+                    chars[count++] = (char) c;
+                } else if (c < 0xE0) {
+                    chars[count++] = (char) (((c & 0x1F) << 6) | (source[offset++] & 0x3F));
+                } else {
+                    chars[count++] = (char) (((c & 0xF) << 12) | ((source[offset++] & 0x3F) << 6) | (source[offset++] & 0x3F));
+                }
+            }
+            return new String(chars, 0, count);
+        }
+
+        private void clear() {
+            Arrays.fill(slots, 0);
+            Arrays.fill(strings, 0, count, null);
+            count = 0;
+            used = 0;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.jdeps;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded hand-off from a stage producing class files, such as the compiler, to the stages
+ * consuming them. Every stage has its own bounded queue and worker threads, so classes are
+ * analyzed while later ones are still being produced, and a slow stage holds the producer
+ * back instead of letting class files pile up in memory. Workers report the classes and bytes
+ * they consumed and their CPU time to {@link AnalysisMetrics} under the stage name.
+ */
+public class ClassPipeline {
+
+    /** System property for the number of class files each stage may have waiting */
+    public static final String QUEUE_CAPACITY_PROPERTY = "analysis.pipeline.queueCapacity";
+
+    /**
+     * Consumes one class file. Called concurrently when the stage has more than one worker.
+     */
+    public interface Stage {
+        void accept(String entryName, byte[] classBytes) throws Exception;
+    }
+
+    private static final Item END = new Item(null, null);
+
+    private final int queueCapacity;
+    private final List<StageQueue> stages = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile Exception failure;
+
+    public ClassPipeline() {
+        this(Integer.getInteger(QUEUE_CAPACITY_PROPERTY, 256));
+    }
+
+    public ClassPipeline(int queueCapacity) {
+        super();
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Adds a stage that receives every class file put into the pipeline, and starts its workers
+     */
+    public synchronized ClassPipeline addStage(String name, int workerCount, Stage stage) {
+        BlockingQueue<Item> queue = new ArrayBlockingQueue<>(queueCapacity);
+        stages.add(new StageQueue(queue, workerCount));
+        for (int i = 1; i <= workerCount; i++) {
+            Thread worker = new Thread(() -> drain(name, queue, stage), "analysis-pipeline-" + name + "-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        return this;
+    }
+
+    /**
+     * Hands a class file to every stage, waiting while a stage's queue is full
+     *
+     * @throws IOException if a stage has already failed or the caller is interrupted
+     */
+    public void put(String entryName, byte[] classBytes) throws IOException {
+        checkFailure();
+        Item item = new Item(entryName, classBytes);
+        try {
+            for (StageQueue stage : stages) {
+                stage.queue.put(item);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while queueing " + entryName, e);
+        }
+    }
+
+    /**
+     * Signals that no more class files will come and waits for every stage to drain
+     *
+     * @throws IOException if a stage failed
+     */
+    public void finish() throws IOException {
+        try {
+            for (StageQueue stage : stages) {
+                // One end marker per worker; each worker stops at the first one it takes
+                for (int i = 0; i < stage.workerCount; i++) {
+                    stage.queue.put(END);
+                }
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the analysis pipeline", e);
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        Exception stageFailure = failure;
+        if (stageFailure instanceof IOException) {
+            throw (IOException) stageFailure;
+        }
+        if (stageFailure != null) {
+            throw new IOException("Analysis stage failed: " + stageFailure.getMessage(), stageFailure);
+        }
+    }
+
+    private void drain(String name, BlockingQueue<Item> queue, Stage stage) {
+        long startCpuNanos = AnalysisMetrics.currentThreadCpuTime();
+        long startAllocatedBytes = AnalysisMetrics.currentThreadAllocatedBytes();
+        long classes = 0;
+        long bytes = 0;
+        try {
+            Item item;
+            while ((item = queue.take()) != END) {
+                classes++;
+                bytes += item.classBytes.length;
+                // After a failure keep draining so the producer is never blocked on a full queue
+                if (failure == null) {
+                    try {
+                        stage.accept(item.entryName, item.classBytes);
+                    } catch (Exception e) {
+                        synchronized (this) {
+                            if (failure == null) {
+                                failure = e;
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Stage threads end with the job, so their scratch state would not be reused
+            ASMBytecodeAnalyzer.releaseScratch();
+            AnalysisMetrics metrics = AnalysisMetrics.shared();
+            metrics.recordClasses(name, classes);
+            metrics.recordBytes(name, bytes);
+            metrics.recordThreadUsage(name,
+                    startCpuNanos >= 0 ? AnalysisMetrics.currentThreadCpuTime() - startCpuNanos : 0,
+                    startAllocatedBytes >= 0 ? AnalysisMetrics.currentThreadAllocatedBytes() - startAllocatedBytes : 0);
+        }
+    }
+
+    private static class StageQueue {
+        private final BlockingQueue<Item> queue;
+        private final int workerCount;
+
+        StageQueue(BlockingQueue<Item> queue, int workerCount) {
+            super();
+            this.queue = queue;
+            this.workerCount = workerCount;
+        }
+    }
+
+    private static class Item {
+        private final String entryName;
+        private final byte[] classBytes;
+
+        Item(String entryName, byte[] classBytes) {
+            super();
+            this.entryName = entryName;
+            this.classBytes = classBytes;
+        }
+    }
+}
@@ -0,0 +1,545 @@
+package com.example.jdeps;
+
+import java.io.*;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Per-class analysis store keyed by the SHA-256 of the class file bytes.
+ * Each entry holds the classes a class file references and, for top-level classes, its
+ * {@link ASMBytecodeAnalyzer.ClassAnalysisResult}, so re-analyzing a mostly unchanged JAR only
+ * parses the classes whose bytes changed. Entries are kept in a size-bounded LRU map in memory
+ * and, when a directory is given, in one small file each under
+ * {@code <dir>/<first two hex digits>/<digest>}. Files are written by a background thread and
+ * evicted least recently used first once the disk limit is exceeded; their sizes are tracked in
+ * an index built by one directory scan on first use. Both layers hold entries in serialized
+ * form; {@link #get} materializes them into the caller's {@link SymbolTable}, so cached entries
+ * never keep an analysis' symbols alive.
+ */
+public class ClassResultCache {
+
+    /** System property that disables the cache for project analyses when set to false */
+    public static final String ENABLED_PROPERTY = "analysis.classCache.enabled";
+
+    /** System property that makes the shared cache keep entries on disk when set to true */
+    public static final String DISK_ENABLED_PROPERTY = "analysis.classCache.disk.enabled";
+
+    /** System property for the cache directory */
+    public static final String DIRECTORY_PROPERTY = "analysis.classCache.dir";
+
+    /** System property for the maximum size of the in-memory layer, in megabytes */
+    public static final String MAX_MEMORY_MEGABYTES_PROPERTY = "analysis.classCache.maxMemoryMegabytes";
+
+    /** System property for the maximum total size of the entry files, in megabytes */
+    public static final String MAX_DISK_MEGABYTES_PROPERTY = "analysis.classCache.disk.maxMegabytes";
+
+    private static final int FORMAT_VERSION = 1;
+    // Rough per-entry cost of the map node and array header, added to the serialized size
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private static final int FLAG_ABSTRACT = 1;
+    private static final int FLAG_INTERFACE = 2;
+    private static final int FLAG_FINAL = 4;
+
+    // One writer for every cache, so entry files never compete with analysis for more than a core
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "class-cache-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static volatile ClassResultCache shared;
+
+    private final Path directory;
+    private final long maxMemoryBytes;
+    private final long maxDiskBytes;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    // Access-ordered, so iteration starts at the least recently used entry; guarded by itself
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(256, 0.75f, true);
+    private long memoryBytes = 0;
+
+    // Entries waiting for the writer, in put order; guarded by itself
+    private final Map<String, byte[]> pending = new LinkedHashMap<>();
+    private boolean writeScheduled = false;
+
+    // Size of every entry file, least recently used first; null until the directory is scanned
+    private final Object diskLock = new Object();
+    private LinkedHashMap<String, Long> diskEntries;
+    private long diskBytes = 0;
+
+    /**
+     * Creates a cache that keeps entries in memory only
+     */
+    public ClassResultCache() {
+        this(null);
+    }
+
+    /**
+     * Creates a cache that keeps entries in memory and in the directory, with the limits of
+     * {@value #MAX_MEMORY_MEGABYTES_PROPERTY} (default 64) and {@value #MAX_DISK_MEGABYTES_PROPERTY}
+     * (default 512)
+     */
+    public ClassResultCache(Path directory) {
+        this(directory, Long.getLong(MAX_MEMORY_MEGABYTES_PROPERTY, 64L) * 1024 * 1024,
+             Long.getLong(MAX_DISK_MEGABYTES_PROPERTY, 512L) * 1024 * 1024);
+    }
+
+    /**
+     * Creates a cache with the given limits. A null directory keeps entries in memory only.
+     */
+    public ClassResultCache(Path directory, long maxMemoryBytes, long maxDiskBytes) {
+        super();
+        this.directory = directory;
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.maxDiskBytes = maxDiskBytes;
+    }
+
+    /**
+     * Returns true unless the cache was disabled through {@value #ENABLED_PROPERTY}
+     */
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"));
+    }
+
+    /**
+     * Returns the process-wide cache. It is kept in memory only unless {@value #DISK_ENABLED_PROPERTY}
+     * is true, in which case entries are also stored in {@value #DIRECTORY_PROPERTY}
+     * (default analysis-cache/classes).
+     */
+    public static ClassResultCache shared() {
+        ClassResultCache cache = shared;
+        if (cache == null) {
+            synchronized (ClassResultCache.class) {
+                if (shared == null) {
+                    shared = Boolean.getBoolean(DISK_ENABLED_PROPERTY)
+                        ? new ClassResultCache(Paths.get(System.getProperty(DIRECTORY_PROPERTY, "analysis-cache/classes")))
+                        : new ClassResultCache();
+                }
+                cache = shared;
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Cached analysis of one class file. Either part may be absent when the entry was stored
+     * by a pass that did not compute it.
+     */
+    public static class Entry {
+        private final String className;
+        private final Set<String> references;
+        private final ASMBytecodeAnalyzer.ClassAnalysisResult result;
+
+        public Entry(String className, Set<String> references, ASMBytecodeAnalyzer.ClassAnalysisResult result) {
+            super();
+            this.className = className;
+            this.references = references;
+            this.result = result;
+        }
+
+        /** Internal name of the class */
+        public String getClassName() { return className; }
+
+        /** Internal names of every class the class file references, or null if not recorded */
+        public Set<String> getReferences() { return references; }
+
+        /** ASM metrics, or null for nested classes and entries stored without them */
+        public ASMBytecodeAnalyzer.ClassAnalysisResult getResult() { return result; }
+    }
+
+    /**
+     * Returns the hex SHA-256 digest of class file bytes
+     */
+    public static String digest(byte[] classBytes) {
+        return digest(classBytes, classBytes.length);
+    }
+
+    /**
+     * Returns the hex SHA-256 digest of the first {@code length} bytes of a buffer holding a class file
+     */
+    public static String digest(byte[] buffer, int length) {
+        MessageDigest digest = ReportCache.newSha256();
+        digest.update(buffer, 0, length);
+        return ReportCache.toHex(digest.digest());
+    }
+
+    /**
+     * Returns the entry for the digest with its result interned into {@code symbols}, or null if
+     * the class has not been analyzed before. An entry lacking a part the caller needs is still
+     * returned, so its other part can be kept, but counts as a miss.
+     */
+    public Entry get(String digest, SymbolTable symbols, boolean needsReferences, boolean needsResult) {
+        byte[] data;
+        synchronized (memory) {
+            data = memory.get(digest);
+        }
+        if (data == null && directory != null) {
+            data = read(digest);
+            if (data != null) {
+                remember(digest, data);
+            }
+        }
+        Entry entry = null;
+        if (data != null) {
+            try {
+                entry = read(new DataInputStream(new ByteArrayInputStream(data)), symbols);
+            } catch (IOException e) {
+                System.err.println("Ignoring unreadable class cache entry " + digest + ": " + e.getMessage());
+                forget(digest);
+            }
+        }
+        if (entry != null && (!needsReferences || entry.getReferences() != null)
+                && (!needsResult || entry.getResult() != null)) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return entry;
+    }
+
+    /**
+     * Stores an entry in memory and queues it for the disk layer. Disk failures are logged and
+     * otherwise ignored.
+     */
+    public void put(String digest, Entry entry) {
+        byte[] data;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                write(out, entry);
+            }
+            data = bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        remember(digest, data);
+        if (directory == null) {
+            return;
+        }
+        synchronized (pending) {
+            pending.put(digest, data);
+            if (!writeScheduled) {
+                writeScheduled = true;
+                WRITER.execute(this::writePending);
+            }
+        }
+    }
+
+    /**
+     * Waits until every entry put so far has been written to disk
+     */
+    public void flush() throws IOException {
+        try {
+            WRITER.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while flushing the class cache", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Could not flush the class cache", e.getCause());
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the estimated size of the entries held in memory
+     */
+    long getMemoryBytes() {
+        synchronized (memory) {
+            return memoryBytes;
+        }
+    }
+
+    private void remember(String digest, byte[] data) {
+        synchronized (memory) {
+            byte[] previous = memory.put(digest, data);
+            if (previous != null) {
+                memoryBytes -= previous.length + ENTRY_OVERHEAD;
+            }
+            memoryBytes += data.length + ENTRY_OVERHEAD;
+            Iterator<byte[]> eldest = memory.values().iterator();
+            while (memoryBytes > maxMemoryBytes && eldest.hasNext()) {
+                memoryBytes -= eldest.next().length + ENTRY_OVERHEAD;
+                eldest.remove();
+            }
+        }
+    }
+
+    private void forget(String digest) {
+        synchronized (memory) {
+            byte[] previous = memory.remove(digest);
+            if (previous != null) {
+                memoryBytes -= previous.length + ENTRY_OVERHEAD;
+            }
+        }
+    }
+
+    private Path entryFile(String digest) {
+        return directory.resolve(digest.substring(0, 2)).resolve(digest);
+    }
+
+    private byte[] read(String digest) {
+        synchronized (pending) {
+            byte[] data = pending.get(digest);
+            if (data != null) {
+                return data;
+            }
+        }
+        synchronized (diskLock) {
+            // Marks the entry as recently used; the index spares a file lookup for every miss
+            if (diskIndex().get(digest) == null) {
+                return null;
+            }
+        }
+        try {
+            return Files.readAllBytes(entryFile(digest));
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable class cache entry " + digest + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the queued entries until none are left, then evicts the least recently used files
+     * over the disk limit. Runs on the writer thread.
+     */
+    private void writePending() {
+        while (true) {
+            Map<String, byte[]> batch;
+            synchronized (pending) {
+                if (pending.isEmpty()) {
+                    writeScheduled = false;
+                    return;
+                }
+                batch = new LinkedHashMap<>(pending);
+            }
+            for (Map.Entry<String, byte[]> entry : batch.entrySet()) {
+                write(entry.getKey(), entry.getValue());
+            }
+            synchronized (pending) {
+                for (Map.Entry<String, byte[]> entry : batch.entrySet()) {
+                    // Keep entries that were put again while this batch was written
+                    pending.remove(entry.getKey(), entry.getValue());
+                }
+            }
+            evictFiles();
+        }
+    }
+
+    private void write(String digest, byte[] data) {
+        Path file = entryFile(digest);
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), digest, ".tmp");
+            Files.write(temp, data);
+            // Other processes sharing the directory write identical bytes, so the last rename wins harmlessly
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Could not store class cache entry " + digest + ": " + e.getMessage());
+            return;
+        }
+        synchronized (diskLock) {
+            Long previous = diskIndex().put(digest, (long) data.length);
+            diskBytes += data.length - (previous != null ? previous : 0);
+        }
+    }
+
+    private void evictFiles() {
+        List<String> evicted = new ArrayList<>();
+        synchronized (diskLock) {
+            Iterator<Map.Entry<String, Long>> eldest = diskIndex().entrySet().iterator();
+            while (diskBytes > maxDiskBytes && eldest.hasNext()) {
+                Map.Entry<String, Long> entry = eldest.next();
+                diskBytes -= entry.getValue();
+                evicted.add(entry.getKey());
+                eldest.remove();
+            }
+        }
+        for (String digest : evicted) {
+            try {
+                Files.deleteIfExists(entryFile(digest));
+            } catch (IOException e) {
+                System.err.println("Could not evict class cache entry " + digest + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the index of entry files, scanning the directory on first use. The files' modification
+     * times order entries left by earlier runs. Callers hold {@link #diskLock}.
+     */
+    private LinkedHashMap<String, Long> diskIndex() {
+        if (diskEntries != null) {
+            return diskEntries;
+        }
+        diskEntries = new LinkedHashMap<>(1024, 0.75f, true);
+        diskBytes = 0;
+        if (!Files.isDirectory(directory)) {
+            return diskEntries;
+        }
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory, 2)) {
+            files = walk.filter(file -> Files.isRegularFile(file) && !file.getFileName().toString().endsWith(".tmp"))
+                    .collect(Collectors.toList());
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Could not scan class cache " + directory + ": " + e.getMessage());
+            return diskEntries;
+        }
+        Map<Path, Long> lastUsed = new HashMap<>();
+        for (Path file : files) {
+            lastUsed.put(file, file.toFile().lastModified());
+        }
+        files.sort(Comparator.comparing(lastUsed::get));
+        for (Path file : files) {
+            long size = file.toFile().length();
+            diskEntries.put(file.getFileName().toString(), size);
+            diskBytes += size;
+        }
+        return diskEntries;
+    }
+
+    private static void write(DataOutputStream out, Entry entry) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(entry.getClassName());
+
+        Set<String> references = entry.getReferences();
+        out.writeBoolean(references != null);
+        if (references != null) {
+            out.writeInt(references.size());
+            for (String reference : references) {
+                out.writeUTF(reference);
+            }
+        }
+
+        ASMBytecodeAnalyzer.ClassAnalysisResult result = entry.getResult();
+        out.writeBoolean(result != null);
+        if (result != null) {
+            out.writeUTF(result.getClassName());
+            writeNullable(out, result.getSuperClass());
+            out.writeInt((result.isAbstract() ? FLAG_ABSTRACT : 0) | (result.isInterface() ? FLAG_INTERFACE : 0)
+                    | (result.isFinal() ? FLAG_FINAL : 0));
+            out.writeInt(result.getTotalMethods());
+            out.writeInt(result.getTotalFields());
+
+            SymbolTable symbols = result.getSymbolTable();
+            writeAtoms(out, symbols, result.getInterfaceIds());
+            writeAtoms(out, symbols, result.getAnnotationIds());
+            writeMembers(out, symbols, result.getMethodCallIds());
+            writeMembers(out, symbols, result.getFieldAccessIds());
+
+            out.writeInt(result.getMethodComplexity().size());
+            for (Map.Entry<String, Integer> method : result.getMethodComplexity().entrySet()) {
+                out.writeUTF(method.getKey());
+                out.writeInt(method.getValue());
+            }
+        }
+    }
+
+    private static Entry read(DataInputStream in, SymbolTable symbols) throws IOException {
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported format version " + version);
+        }
+        String className = in.readUTF();
+
+        Set<String> references = null;
+        if (in.readBoolean()) {
+            int count = in.readInt();
+            references = new HashSet<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                references.add(in.readUTF());
+            }
+        }
+
+        ASMBytecodeAnalyzer.ClassAnalysisResult result = null;
+        if (in.readBoolean()) {
+            result = new ASMBytecodeAnalyzer.ClassAnalysisResult(symbols);
+            result.setClassName(in.readUTF());
+            result.setSuperClass(readNullable(in));
+            int flags = in.readInt();
+            result.setAbstract((flags & FLAG_ABSTRACT) != 0);
+            result.setInterface((flags & FLAG_INTERFACE) != 0);
+            result.setFinal((flags & FLAG_FINAL) != 0);
+            result.setTotalMethods(in.readInt());
+            result.setTotalFields(in.readInt());
+
+            for (int i = in.readInt(); i > 0; i--) {
+                result.addInterface(in.readUTF());
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                result.addAnnotation(in.readUTF());
+            }
+            readMembers(in, result);
+            readMembers(in, result);
+
+            for (int i = in.readInt(); i > 0; i--) {
+                result.getMethodComplexity().put(in.readUTF(), in.readInt());
+            }
+        }
+        return new Entry(className, references, result);
+    }
+
+    private static void writeAtoms(DataOutputStream out, SymbolTable symbols, IntSet ids) throws IOException {
+        int[] values = ids.toSortedArray();
+        out.writeInt(values.length);
+        for (int id : values) {
+            out.writeUTF(symbols.atom(id));
+        }
+    }
+
+    private static void writeMembers(DataOutputStream out, SymbolTable symbols, IntSet ids) throws IOException {
+        int[] values = ids.toSortedArray();
+        out.writeInt(values.length);
+        for (int id : values) {
+            int kind = symbols.memberKind(id);
+            out.writeByte(kind);
+            out.writeUTF(symbols.atom(symbols.memberOwner(id)));
+            if (kind != SymbolTable.KIND_TYPE) {
+                out.writeUTF(symbols.atom(symbols.memberName(id)));
+            }
+            if (kind == SymbolTable.KIND_METHOD) {
+                out.writeUTF(symbols.atom(symbols.memberDescriptor(id)));
+            }
+        }
+    }
+
+    private static void readMembers(DataInputStream in, ASMBytecodeAnalyzer.ClassAnalysisResult result) throws IOException {
+        for (int i = in.readInt(); i > 0; i--) {
+            int kind = in.readByte();
+            String owner = in.readUTF();
+            if (kind == SymbolTable.KIND_TYPE) {
+                result.addTypeReference(owner);
+            } else if (kind == SymbolTable.KIND_FIELD) {
+                result.addFieldAccess(owner, in.readUTF());
+            } else {
+                result.addMethodCall(owner, in.readUTF(), in.readUTF());
+            }
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
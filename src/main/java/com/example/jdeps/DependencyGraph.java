@@ -0,0 +1,293 @@
+package com.example.jdeps;
+
+import java.util.*;
+
+/**
+ * Compact, immutable dependency graph.
+ * Node names and edge labels (the jdeps module column) are interned into tables, and edges
+ * are stored as CSR (compressed sparse row) int arrays in both directions, so degree
+ * queries are O(1) and neighbor iteration needs no per-edge objects.
+ */
+public class DependencyGraph {
+
+    /** Which jdeps output lines become edges */
+    public enum LineFilter {
+        /** Indented "source -> target module" lines (package or class level) */
+        DEPENDENCIES,
+        /** Unindented "archive -> module" summary lines */
+        SUMMARY,
+        /** Both kinds of line */
+        ALL
+    }
+
+    private final String[] nodeNames;
+    private final Map<String, Integer> nodeIds;
+    private final String[] labels;
+    private final Map<String, Integer> labelIds;
+
+    // Forward CSR: edges of node n are forwardTargets[forwardOffsets[n] .. forwardOffsets[n + 1])
+    private final int[] forwardOffsets;
+    private final int[] forwardTargets;
+    private final int[] forwardLabels;
+
+    // Reverse CSR: incoming edges of node n, as source node IDs
+    private final int[] reverseOffsets;
+    private final int[] reverseSources;
+
+    private DependencyGraph(String[] nodeNames, Map<String, Integer> nodeIds, String[] labels,
+                            Map<String, Integer> labelIds, int[] forwardOffsets, int[] forwardTargets, int[] forwardLabels,
+                            int[] reverseOffsets, int[] reverseSources) {
+        super();
+        this.nodeNames = nodeNames;
+        this.nodeIds = nodeIds;
+        this.labels = labels;
+        this.labelIds = labelIds;
+        this.forwardOffsets = forwardOffsets;
+        this.forwardTargets = forwardTargets;
+        this.forwardLabels = forwardLabels;
+        this.reverseOffsets = reverseOffsets;
+        this.reverseSources = reverseSources;
+    }
+
+    /**
+     * Parses jdeps text output straight into a graph, without intermediate edge objects
+     */
+    public static DependencyGraph fromJDepsOutput(String output, LineFilter filter) {
+        Builder builder = new Builder();
+        int length = output.length();
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = output.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = length;
+            }
+            parseLine(output, lineStart, lineEnd, filter, builder);
+            lineStart = lineEnd + 1;
+        }
+        return builder.build();
+    }
+
+    private static void parseLine(String output, int start, int end, LineFilter filter, Builder builder) {
+        if (start >= end) {
+            return;
+        }
+        boolean indented = Character.isWhitespace(output.charAt(start));
+        if ((indented && filter == LineFilter.SUMMARY) || (!indented && filter == LineFilter.DEPENDENCIES)) {
+            return;
+        }
+
+        int sourceStart = skipWhitespace(output, start, end);
+        int sourceEnd = skipToken(output, sourceStart, end);
+        int arrowStart = skipWhitespace(output, sourceEnd, end);
+        int arrowEnd = skipToken(output, arrowStart, end);
+        if (sourceStart == sourceEnd || arrowEnd - arrowStart != 2 || !output.startsWith("->", arrowStart)) {
+            return;
+        }
+        int lineEnd = end;
+        while (lineEnd > arrowEnd && Character.isWhitespace(output.charAt(lineEnd - 1))) {
+            lineEnd--;
+        }
+        int targetStart = skipWhitespace(output, arrowEnd, lineEnd);
+        // Summary targets can contain spaces ("not found") and carry no label
+        int targetEnd = indented ? skipToken(output, targetStart, lineEnd) : lineEnd;
+        if (targetStart == targetEnd) {
+            return;
+        }
+        int labelStart = skipWhitespace(output, targetEnd, lineEnd);
+        int labelEnd = lineEnd;
+
+        builder.addEdge(output.substring(sourceStart, sourceEnd),
+                        output.substring(targetStart, targetEnd),
+                        output.substring(labelStart, labelEnd));
+    }
+
+    private static int skipWhitespace(String s, int index, int end) {
+        while (index < end && Character.isWhitespace(s.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int skipToken(String s, int index, int end) {
+        while (index < end && !Character.isWhitespace(s.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    public int nodeCount() {
+        return nodeNames.length;
+    }
+
+    public int edgeCount() {
+        return forwardTargets.length;
+    }
+
+    /**
+     * Returns the ID of the named node, or -1 if it is not in the graph
+     */
+    public int nodeId(String name) {
+        Integer id = nodeIds.get(name);
+        return id != null ? id : -1;
+    }
+
+    public String nodeName(int node) {
+        return nodeNames[node];
+    }
+
+    public int outDegree(int node) {
+        return forwardOffsets[node + 1] - forwardOffsets[node];
+    }
+
+    public int inDegree(int node) {
+        return reverseOffsets[node + 1] - reverseOffsets[node];
+    }
+
+    /**
+     * Returns the targets of the node's outgoing edges, in input order
+     */
+    public int[] neighbors(int node) {
+        return Arrays.copyOfRange(forwardTargets, forwardOffsets[node], forwardOffsets[node + 1]);
+    }
+
+    /**
+     * Returns the sources of the node's incoming edges
+     */
+    public int[] reverseNeighbors(int node) {
+        return Arrays.copyOfRange(reverseSources, reverseOffsets[node], reverseOffsets[node + 1]);
+    }
+
+    /** First edge index of the node; edges run up to {@link #edgeEnd(int)} */
+    public int edgeStart(int node) {
+        return forwardOffsets[node];
+    }
+
+    public int edgeEnd(int node) {
+        return forwardOffsets[node + 1];
+    }
+
+    /** Source node of an edge; edges are indexed in source order */
+    public int edgeSource(int edge) {
+        int low = 0;
+        int high = nodeNames.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (forwardOffsets[mid] <= edge) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    public int edgeTarget(int edge) {
+        return forwardTargets[edge];
+    }
+
+    /** ID of the edge label, comparable across edges of this graph */
+    public int edgeLabelId(int edge) {
+        return forwardLabels[edge];
+    }
+
+    public String edgeLabel(int edge) {
+        return labels[forwardLabels[edge]];
+    }
+
+    public int labelCount() {
+        return labels.length;
+    }
+
+    public String label(int labelId) {
+        return labels[labelId];
+    }
+
+    /**
+     * Returns the ID of the given edge label, or -1 if no edge carries it
+     */
+    public int labelId(String label) {
+        Integer id = labelIds.get(label);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Incrementally collects edges and freezes them into an immutable graph
+     */
+    public static class Builder {
+        private final Map<String, Integer> nodeIds = new HashMap<>();
+        private final List<String> nodeNames = new ArrayList<>();
+        private final Map<String, Integer> labelIds = new HashMap<>();
+        private final List<String> labels = new ArrayList<>();
+        private int[] sources = new int[64];
+        private int[] targets = new int[64];
+        private int[] edgeLabels = new int[64];
+        private int edgeCount = 0;
+
+        public Builder() {
+            super();
+        }
+
+        public int addNode(String name) {
+            Integer id = nodeIds.get(name);
+            if (id == null) {
+                id = nodeNames.size();
+                nodeIds.put(name, id);
+                nodeNames.add(name);
+            }
+            return id;
+        }
+
+        public Builder addEdge(String source, String target, String label) {
+            int sourceId = addNode(source);
+            int targetId = addNode(target);
+            Integer labelId = labelIds.get(label);
+            if (labelId == null) {
+                labelId = labels.size();
+                labelIds.put(label, labelId);
+                labels.add(label);
+            }
+
+            if (edgeCount == sources.length) {
+                sources = Arrays.copyOf(sources, edgeCount * 2);
+                targets = Arrays.copyOf(targets, edgeCount * 2);
+                edgeLabels = Arrays.copyOf(edgeLabels, edgeCount * 2);
+            }
+            sources[edgeCount] = sourceId;
+            targets[edgeCount] = targetId;
+            edgeLabels[edgeCount] = labelId;
+            edgeCount++;
+            return this;
+        }
+
+        public DependencyGraph build() {
+            int nodes = nodeNames.size();
+            int[] forwardOffsets = new int[nodes + 1];
+            int[] reverseOffsets = new int[nodes + 1];
+            for (int i = 0; i < edgeCount; i++) {
+                forwardOffsets[sources[i] + 1]++;
+                reverseOffsets[targets[i] + 1]++;
+            }
+            for (int n = 0; n < nodes; n++) {
+                forwardOffsets[n + 1] += forwardOffsets[n];
+                reverseOffsets[n + 1] += reverseOffsets[n];
+            }
+
+            // Counting sort keeps the original edge order within each node
+            int[] forwardTargets = new int[edgeCount];
+            int[] forwardLabels = new int[edgeCount];
+            int[] reverseSources = new int[edgeCount];
+            int[] forwardCursor = Arrays.copyOf(forwardOffsets, nodes);
+            int[] reverseCursor = Arrays.copyOf(reverseOffsets, nodes);
+            for (int i = 0; i < edgeCount; i++) {
+                int forward = forwardCursor[sources[i]]++;
+                forwardTargets[forward] = targets[i];
+                forwardLabels[forward] = edgeLabels[i];
+                reverseSources[reverseCursor[targets[i]]++] = sources[i];
+            }
+
+            return new DependencyGraph(nodeNames.toArray(new String[0]), new HashMap<>(nodeIds),
+                    labels.toArray(new String[0]), new HashMap<>(labelIds), forwardOffsets, forwardTargets, forwardLabels,
+                    reverseOffsets, reverseSources);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.jdeps;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Compiles Java sources inside this JVM through {@link ToolProvider#getSystemJavaCompiler()}.
+ * Sources are handed to javac from memory and a forwarding file manager captures the generated
+ * class files as byte arrays, so no classes directory or JAR has to be written to analyze them.
+ */
+public class InMemoryCompiler {
+
+    /** System property selecting the compiler: "inprocess" (default) or "javac" to fork javac */
+    public static final String COMPILER_PROPERTY = "analysis.compiler";
+
+    public InMemoryCompiler() {
+        super();
+    }
+
+    /**
+     * Returns true if compilation should run in-process; needs a JDK rather than a JRE
+     */
+    public static boolean isEnabled() {
+        return !"javac".equalsIgnoreCase(System.getProperty(COMPILER_PROPERTY, "inprocess"))
+                && ToolProvider.getSystemJavaCompiler() != null;
+    }
+
+    /**
+     * Receives each class file as soon as javac has written it
+     */
+    public interface ClassListener {
+        void classWritten(String entryName, byte[] classBytes) throws IOException;
+    }
+
+    /**
+     * Outcome of one compilation
+     */
+    public static class Result {
+        private final boolean success;
+        private final Map<String, byte[]> classFiles;
+        private final int classCount;
+        private final String diagnostics;
+
+        Result(boolean success, Map<String, byte[]> classFiles, int classCount, String diagnostics) {
+            super();
+            this.success = success;
+            this.classFiles = classFiles;
+            this.classCount = classCount;
+            this.diagnostics = diagnostics;
+        }
+
+        public boolean isSuccess() { return success; }
+
+        /**
+         * Class file bytes keyed by JAR entry name, e.g. {@code com/example/Foo.class}; empty when
+         * a {@link ClassListener} received the classes instead
+         */
+        public Map<String, byte[]> getClassFiles() { return classFiles; }
+
+        /** Number of class files generated */
+        public int getClassCount() { return classCount; }
+
+        /** Compiler messages, one per line */
+        public String getDiagnostics() { return diagnostics; }
+    }
+
+    /**
+     * Compiles the given sources, keyed by their path inside the project, into memory
+     */
+    public static Result compile(Map<String, String> sources, List<String> options) throws IOException {
+        return compile(sources, options, null);
+    }
+
+    /**
+     * Compiles the given sources into memory, handing every class file to the listener as it is
+     * generated so later stages can start before compilation ends. The compiler keeps no bytes
+     * the listener received, so the result only counts them. A listener failure fails the
+     * compilation.
+     */
+    public static Result compile(Map<String, String> sources, List<String> options, ClassListener listener)
+            throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IOException("No system Java compiler available; run on a JDK");
+        }
+
+        List<JavaFileObject> compilationUnits = new ArrayList<>(sources.size());
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            compilationUnits.add(new SourceFile(source.getKey(), source.getValue()));
+        }
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (MemoryFileManager fileManager = new MemoryFileManager(
+                compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8), listener)) {
+            boolean success = compiler.getTask(null, fileManager, diagnostics, options, null, compilationUnits).call();
+
+            StringBuilder messages = new StringBuilder();
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                messages.append(diagnostic.getKind()).append(": ");
+                if (diagnostic.getSource() != null) {
+                    messages.append(diagnostic.getSource().getName()).append(':').append(diagnostic.getLineNumber()).append(": ");
+                }
+                messages.append(diagnostic.getMessage(Locale.ROOT)).append("\n");
+            }
+            Map<String, byte[]> classFiles = listener == null ? fileManager.classFiles : Collections.emptyMap();
+            return new Result(success, classFiles, fileManager.classCount, messages.toString());
+        }
+    }
+
+    /**
+     * Writes class files held in memory to a JAR, for tools such as jdeps that only read files
+     */
+    public static void writeJar(Map<String, byte[]> classFiles, Path jarPath) throws IOException {
+        try (JarOutputStream jar = new JarOutputStream(JsonFiles.newOutputStream(jarPath))) {
+            for (Map.Entry<String, byte[]> classFile : classFiles.entrySet()) {
+                jar.putNextEntry(new JarEntry(classFile.getKey()));
+                jar.write(classFile.getValue());
+                jar.closeEntry();
+            }
+        }
+    }
+
+    private static URI memoryUri(String path) {
+        try {
+            return new URI("mem", null, "/" + path, null);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid source path: " + path, e);
+        }
+    }
+
+    private static class SourceFile extends SimpleJavaFileObject {
+        private final String content;
+
+        SourceFile(String path, String content) {
+            super(memoryUri(path), Kind.SOURCE);
+            this.content = content;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content;
+        }
+    }
+
+    private static class ClassFile extends SimpleJavaFileObject {
+        private final String entryName;
+        private final MemoryFileManager fileManager;
+
+        ClassFile(String entryName, MemoryFileManager fileManager) {
+            super(memoryUri(entryName), Kind.CLASS);
+            this.entryName = entryName;
+            this.fileManager = fileManager;
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return new ByteArrayOutputStream() {
+                @Override
+                public void close() throws IOException {
+                    fileManager.classWritten(entryName, toByteArray());
+                }
+            };
+        }
+    }
+
+    /**
+     * Sends class output to the listener, or keeps it in memory when there is none; everything
+     * else, such as platform class lookup, goes to javac's file manager
+     */
+    private static class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+        private final Map<String, byte[]> classFiles = new TreeMap<>();
+        private final ClassListener listener;
+        private int classCount;
+
+        MemoryFileManager(StandardJavaFileManager fileManager, ClassListener listener) {
+            super(fileManager);
+            this.listener = listener;
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                                                   FileObject sibling) throws IOException {
+            if (kind == JavaFileObject.Kind.CLASS) {
+                return new ClassFile(className.replace('.', '/') + ".class", this);
+            }
+            return super.getJavaFileForOutput(location, className, kind, sibling);
+        }
+
+        void classWritten(String entryName, byte[] classBytes) throws IOException {
+            classCount++;
+            if (listener != null) {
+                listener.classWritten(entryName, classBytes);
+            } else {
+                classFiles.put(entryName, classBytes);
+            }
+        }
+    }
+}
@@ -1,13 +1,14 @@
 package com.example.jdeps;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * JDeps Analyzer that runs JDeps analysis and generates JSON report data
@@ -34,26 +35,49 @@ public class JDepsAnalyzer {
         Files.createDirectories(outputPath);
         
         // Run various JDeps analyses
-        Map<String, Object> report = new HashMap<>();
-        report.put("metadata", generateMetadata(jarPath));
-        report.put("basicAnalysis", runBasicAnalysis(jarPath));
-        report.put("verboseAnalysis", runVerboseAnalysis(jarPath));
-        report.put("summaryAnalysis", runSummaryAnalysis(jarPath));
-        report.put("moduleAnalysis", runModuleAnalysis(jarPath));
-        report.put("dependencyStats", generateDependencyStats(jarPath));
+        Map<String, String> metadata = generateMetadata(jarPath);
+        DependencyGraph basicAnalysis = runBasicAnalysis(jarPath);
+        DependencyGraph verboseAnalysis = runVerboseAnalysis(jarPath);
+        DependencyGraph summaryAnalysis = runSummaryAnalysis(jarPath);
         
-        // Write JSON report
-        String jsonReport = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report);
-        Files.write(outputPath.resolve("jdeps-report.json"), jsonReport.getBytes());
+        // Stream the JSON report straight from the graphs
+        try (JsonGenerator json = JsonFiles.newGenerator(objectMapper.getFactory(), outputPath.resolve("jdeps-report.json"))) {
+            writeReport(json, metadata, basicAnalysis, verboseAnalysis, summaryAnalysis);
+        }
         
         // Generate HTML report
-        generateHtmlReport(report, outputPath);
+        generateHtmlReport(metadata, basicAnalysis, verboseAnalysis, summaryAnalysis, outputPath);
         
         System.out.println("Report generated in: " + outputPath.toAbsolutePath());
     }
     
-    private Map<String, Object> generateMetadata(String jarPath) {
-        Map<String, Object> metadata = new HashMap<>();
+    private void writeReport(JsonGenerator json, Map<String, String> metadata, DependencyGraph basicAnalysis,
+                             DependencyGraph verboseAnalysis, DependencyGraph summaryAnalysis) throws IOException {
+        json.writeStartObject();
+        
+        json.writeObjectFieldStart("metadata");
+        for (Map.Entry<String, String> entry : metadata.entrySet()) {
+            json.writeStringField(entry.getKey(), entry.getValue());
+        }
+        json.writeEndObject();
+        
+        json.writeFieldName("basicAnalysis");
+        writeEdgeList(json, basicAnalysis);
+        json.writeFieldName("verboseAnalysis");
+        writeEdgeList(json, verboseAnalysis);
+        json.writeFieldName("summaryAnalysis");
+        writeEdgeList(json, summaryAnalysis);
+        // Module analysis is the same jdeps -s view, so it reuses the summary result
+        json.writeFieldName("moduleAnalysis");
+        writeEdgeList(json, summaryAnalysis);
+        json.writeFieldName("dependencyStats");
+        writeDependencyStats(json, basicAnalysis);
+        
+        json.writeEndObject();
+    }
+    
+    private Map<String, String> generateMetadata(String jarPath) {
+        Map<String, String> metadata = new LinkedHashMap<>();
         metadata.put("jarPath", jarPath);
         metadata.put("analysisDate", new Date().toString());
         metadata.put("jdepsVersion", getJDepsVersion());
@@ -61,67 +85,52 @@ public class JDepsAnalyzer {
         return metadata;
     }
     
-    private List<Map<String, String>> runBasicAnalysis(String jarPath) {
+    private DependencyGraph runBasicAnalysis(String jarPath) {
         return parseJDepsOutput(runJDepsCommand(jarPath));
     }
     
-    private List<Map<String, String>> runVerboseAnalysis(String jarPath) {
+    private DependencyGraph runVerboseAnalysis(String jarPath) {
         return parseJDepsOutput(runJDepsCommand(jarPath, "-verbose:class"));
     }
     
-    private List<Map<String, String>> runSummaryAnalysis(String jarPath) {
-        return parseJDepsOutput(runJDepsCommand(jarPath, "-s"));
-    }
-    
-    private List<Map<String, String>> runModuleAnalysis(String jarPath) {
+    private DependencyGraph runSummaryAnalysis(String jarPath) {
         return parseJDepsOutput(runJDepsCommand(jarPath, "-s"));
     }
     
-    private Map<String, Object> generateDependencyStats(String jarPath) {
-        List<Map<String, String>> dependencies = runBasicAnalysis(jarPath);
-        Map<String, Object> stats = new HashMap<>();
-        
-        Set<String> uniqueTargets = new HashSet<>();
-        Set<String> uniquePackages = new HashSet<>();
-        
-        for (Map<String, String> dep : dependencies) {
-            String target = dep.get("target");
-            String targetPackage = dep.get("targetPackage");
-            
-            if (target != null) uniqueTargets.add(target);
-            if (targetPackage != null) uniquePackages.add(targetPackage);
+    private void writeDependencyStats(JsonGenerator json, DependencyGraph dependencies) throws IOException {
+        int uniqueTargets = 0;
+        for (int node = 0; node < dependencies.nodeCount(); node++) {
+            if (dependencies.inDegree(node) > 0) {
+                uniqueTargets++;
+            }
         }
         
-        stats.put("totalDependencies", dependencies.size());
-        stats.put("uniqueTargets", uniqueTargets.size());
-        stats.put("uniquePackages", uniquePackages.size());
-        stats.put("targetModules", new ArrayList<>(uniqueTargets));
-        stats.put("targetPackages", new ArrayList<>(uniquePackages));
-        
-        return stats;
+        json.writeStartObject();
+        json.writeNumberField("totalDependencies", dependencies.edgeCount());
+        json.writeNumberField("uniqueTargets", uniqueTargets);
+        json.writeNumberField("uniquePackages", dependencies.labelCount());
+        json.writeArrayFieldStart("targetModules");
+        for (int node = 0; node < dependencies.nodeCount(); node++) {
+            if (dependencies.inDegree(node) > 0) {
+                json.writeString(dependencies.nodeName(node));
+            }
+        }
+        json.writeEndArray();
+        json.writeArrayFieldStart("targetPackages");
+        for (int label = 0; label < dependencies.labelCount(); label++) {
+            json.writeString(dependencies.label(label));
+        }
+        json.writeEndArray();
+        json.writeEndObject();
     }
     
     private String runJDepsCommand(String jarPath, String... options) {
         try {
-            List<String> command = new ArrayList<>();
-            command.add("jdeps");
-            command.addAll(Arrays.asList(options));
-            command.add(jarPath);
-            
-            ProcessBuilder pb = new ProcessBuilder(command);
-            pb.directory(new File(projectPath));
-            Process process = pb.start();
-            
-            StringBuilder output = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
-                }
-            }
+            List<String> args = new ArrayList<>(Arrays.asList(options));
+            // Relative JAR paths are resolved against the project directory
+            args.add(Paths.get(projectPath).resolve(jarPath).toString());
             
-            process.waitFor();
-            return output.toString();
+            return JDepsRunner.execute(args).getOutput();
             
         } catch (Exception e) {
             System.err.println("Error running JDeps command: " + e.getMessage());
@@ -129,48 +138,50 @@ public class JDepsAnalyzer {
         }
     }
     
-    private List<Map<String, String>> parseJDepsOutput(String output) {
-        List<Map<String, String>> dependencies = new ArrayList<>();
-        String[] lines = output.split("\n");
-        
-        Pattern depPattern = Pattern.compile("\\s*([^\\s]+)\\s*->\\s*([^\\s]+)\\s*([^\\s]*)");
-        
-        for (String line : lines) {
-            if (line.trim().isEmpty() || line.contains("->")) {
-                Matcher matcher = depPattern.matcher(line);
-                if (matcher.find()) {
-                    Map<String, String> dependency = new HashMap<>();
-                    dependency.put("source", matcher.group(1));
-                    dependency.put("target", matcher.group(2));
-                    if (matcher.groupCount() > 2 && matcher.group(3) != null) {
-                        dependency.put("targetPackage", matcher.group(3));
-                    }
-                    dependencies.add(dependency);
-                }
+    private DependencyGraph parseJDepsOutput(String output) {
+        return DependencyGraph.fromJDepsOutput(output, DependencyGraph.LineFilter.ALL);
+    }
+    
+    /**
+     * Writes a graph as the array of source/target/targetPackage records used by the JSON report
+     */
+    private void writeEdgeList(JsonGenerator json, DependencyGraph graph) throws IOException {
+        json.writeStartArray();
+        for (int source = 0; source < graph.nodeCount(); source++) {
+            for (int edge = graph.edgeStart(source); edge < graph.edgeEnd(source); edge++) {
+                json.writeStartObject();
+                json.writeStringField("source", graph.nodeName(source));
+                json.writeStringField("target", graph.nodeName(graph.edgeTarget(edge)));
+                json.writeStringField("targetPackage", graph.edgeLabel(edge));
+                json.writeEndObject();
             }
         }
-        
-        return dependencies;
+        json.writeEndArray();
     }
     
     private String getJDepsVersion() {
         try {
-            ProcessBuilder pb = new ProcessBuilder("jdeps", "-version");
-            Process process = pb.start();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                return reader.readLine();
-            }
+            return JDepsRunner.run("-version").trim();
         } catch (Exception e) {
             return "Unknown";
         }
     }
     
-    private void generateHtmlReport(Map<String, Object> report, Path outputPath) throws IOException {
+    private void generateHtmlReport(Map<String, String> metadata, DependencyGraph basicAnalysis,
+                                    DependencyGraph verboseAnalysis, DependencyGraph summaryAnalysis,
+                                    Path outputPath) throws IOException {
         String htmlTemplate = generateHtmlTemplate();
-        String htmlContent = htmlTemplate.replace("{{REPORT_DATA}}", 
-            objectMapper.writeValueAsString(report));
+        int placeholder = htmlTemplate.indexOf("{{REPORT_DATA}}");
         
-        Files.write(outputPath.resolve("jdeps-report.html"), htmlContent.getBytes());
+        // The report data is streamed into the page between the two template halves
+        try (OutputStream out = JsonFiles.newOutputStream(outputPath.resolve("jdeps-report.html"))) {
+            out.write(htmlTemplate.substring(0, placeholder).getBytes(StandardCharsets.UTF_8));
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+                json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                writeReport(json, metadata, basicAnalysis, verboseAnalysis, summaryAnalysis);
+            }
+            out.write(htmlTemplate.substring(placeholder + "{{REPORT_DATA}}".length()).getBytes(StandardCharsets.UTF_8));
+        }
     }
     
     private String generateHtmlTemplate() {
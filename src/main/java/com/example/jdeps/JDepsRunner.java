@@ -0,0 +1,109 @@
+package com.example.jdeps;
+
+import java.io.*;
+import java.util.*;
+import java.util.spi.ToolProvider;
+
+/**
+ * Shared jdeps runner. Runs jdeps in-process through {@link ToolProvider} and captures its
+ * output in memory, falling back to a forked jdeps process only when the tool is not
+ * available in the running JDK.
+ */
+public class JDepsRunner {
+
+    private static final Optional<ToolProvider> JDEPS_TOOL = ToolProvider.findFirst("jdeps");
+
+    public JDepsRunner() {
+        super();
+    }
+
+    /**
+     * Result of a single jdeps invocation
+     */
+    public static class Result {
+        private final int exitCode;
+        private final String output;
+        private final String errorOutput;
+
+        public Result(int exitCode, String output, String errorOutput) {
+            super();
+            this.exitCode = exitCode;
+            this.output = output;
+            this.errorOutput = errorOutput;
+        }
+
+        public int getExitCode() { return exitCode; }
+        public String getOutput() { return output; }
+        public String getErrorOutput() { return errorOutput; }
+        public boolean isSuccess() { return exitCode == 0; }
+    }
+
+    /**
+     * Returns true if jdeps runs inside this JVM rather than in a forked process
+     */
+    public static boolean isInProcess() {
+        return JDEPS_TOOL.isPresent();
+    }
+
+    /**
+     * Runs jdeps with the given arguments and returns its standard output,
+     * failing if jdeps exits with a non-zero code
+     */
+    public static String run(String... args) throws IOException {
+        Result result = execute(Arrays.asList(args));
+        if (!result.isSuccess()) {
+            throw new IOException("JDeps command failed with exit code: " + result.getExitCode()
+                    + (result.getErrorOutput().isEmpty() ? "" : " - " + result.getErrorOutput().trim()));
+        }
+        return result.getOutput();
+    }
+
+    /**
+     * Runs jdeps with the given arguments and returns the exit code and captured output
+     */
+    public static Result execute(String... args) throws IOException {
+        return execute(Arrays.asList(args));
+    }
+
+    public static Result execute(List<String> args) throws IOException {
+        if (JDEPS_TOOL.isPresent()) {
+            StringWriter out = new StringWriter();
+            StringWriter err = new StringWriter();
+            int exitCode;
+            try (PrintWriter outWriter = new PrintWriter(out);
+                 PrintWriter errWriter = new PrintWriter(err)) {
+                exitCode = JDEPS_TOOL.get().run(outWriter, errWriter, args.toArray(new String[0]));
+            } catch (RuntimeException e) {
+                // jdeps can throw instead of returning an exit code, e.g. on unresolvable module JARs
+                return new Result(1, out.toString(), err.toString() + e);
+            }
+            return new Result(exitCode, out.toString(), err.toString());
+        }
+        return executeProcess(args);
+    }
+
+    private static Result executeProcess(List<String> args) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add("jdeps");
+        command.addAll(args);
+
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+        Process process = pb.start();
+
+        StringBuilder output = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                output.append(line).append("\n");
+            }
+        }
+
+        try {
+            return new Result(process.waitFor(), output.toString(), "");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for jdeps", e);
+        }
+    }
+}
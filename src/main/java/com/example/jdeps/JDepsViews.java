@@ -0,0 +1,160 @@
+package com.example.jdeps;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Basic, verbose and summary jdeps views derived from a single class-level jdeps run.
+ * jdeps is run once with {@code -verbose:class}; the package-level and module-summary
+ * views are aggregated from that output in Java instead of re-running jdeps.
+ */
+public class JDepsViews {
+
+    /** System property that switches back to one jdeps run per view when set to false */
+    public static final String SINGLE_PASS_PROPERTY = "jdeps.singlePass";
+
+    private static final String DEPENDENCY_FORMAT = "   %-50s -> %-50s %s";
+
+    private final String basicAnalysis;
+    private final String verboseAnalysis;
+    private final String summaryAnalysis;
+    private final List<Archive> archives;
+
+    private JDepsViews(String basicAnalysis, String verboseAnalysis, String summaryAnalysis, List<Archive> archives) {
+        super();
+        this.basicAnalysis = basicAnalysis;
+        this.verboseAnalysis = verboseAnalysis;
+        this.summaryAnalysis = summaryAnalysis;
+        this.archives = archives;
+    }
+
+    /** Package-level view, equivalent to plain {@code jdeps} output */
+    public String getBasicAnalysis() { return basicAnalysis; }
+
+    /** Class-level view, the {@code jdeps -verbose:class} output */
+    public String getVerboseAnalysis() { return verboseAnalysis; }
+
+    /** Archive-to-module summary, equivalent to {@code jdeps -s} output */
+    public String getSummaryAnalysis() { return summaryAnalysis; }
+
+    /**
+     * Returns true unless single-pass analysis was disabled through {@value #SINGLE_PASS_PROPERTY}
+     */
+    public static boolean isSinglePassEnabled() {
+        return Boolean.parseBoolean(System.getProperty(SINGLE_PASS_PROPERTY, "true"));
+    }
+
+    /**
+     * Runs jdeps once at class level on the given JAR and derives all views from it
+     */
+    public static JDepsViews analyze(String jarPath) throws IOException {
+        return fromClassLevelOutput(JDepsRunner.run("-verbose:class", jarPath));
+    }
+
+    /**
+     * Derives the package and summary views from {@code jdeps -verbose:class} output
+     */
+    public static JDepsViews fromClassLevelOutput(String verboseOutput) {
+        List<Archive> archives = new ArrayList<>();
+        Archive current = null;
+
+        for (String line : verboseOutput.split("\n")) {
+            if (line.trim().isEmpty() || !line.contains("->")) {
+                continue;
+            }
+            if (!Character.isWhitespace(line.charAt(0))) {
+                // "archive -> module" header line
+                int arrow = line.indexOf("->");
+                String archiveName = line.substring(0, arrow).trim();
+                if (current == null || !current.name.equals(archiveName)) {
+                    current = new Archive(archiveName);
+                    archives.add(current);
+                }
+                current.summaryLines.add(line.trim());
+                continue;
+            }
+            if (current == null) {
+                continue;
+            }
+
+            String[] tokens = line.trim().split("\\s+", 4);
+            if (tokens.length < 4 || !"->".equals(tokens[1])) {
+                continue;
+            }
+            String sourcePackage = packageOf(tokens[0]);
+            String targetPackage = packageOf(tokens[2]);
+            // Class-level output already excludes same-package edges, as package-level output does
+            current.packageEdges.putIfAbsent(sourcePackage + "\u0000" + targetPackage,
+                    new String[] { sourcePackage, targetPackage, tokens[3] });
+        }
+
+        StringBuilder basic = new StringBuilder();
+        StringBuilder summary = new StringBuilder();
+        for (Archive archive : archives) {
+            for (String summaryLine : archive.summaryLines) {
+                basic.append(summaryLine).append("\n");
+                summary.append(summaryLine).append("\n");
+            }
+            for (String[] edge : archive.packageEdges.values()) {
+                basic.append(String.format(DEPENDENCY_FORMAT, edge[0], edge[1], edge[2])).append("\n");
+            }
+        }
+
+        return new JDepsViews(basic.toString(), verboseOutput, summary.toString(), archives);
+    }
+
+    /**
+     * Writes {@code summary.dot} and one package-level {@code <archive>.dot} file per archive,
+     * in the layout produced by {@code jdeps -dotoutput}
+     */
+    public void writeDotFiles(Path outputDir) throws IOException {
+        Files.createDirectories(outputDir);
+
+        StringBuilder summary = new StringBuilder("digraph \"summary\" {\n");
+        for (Archive archive : archives) {
+            for (String summaryLine : archive.summaryLines) {
+                String target = summaryLine.substring(summaryLine.indexOf("->") + 2).trim();
+                summary.append(String.format("  %-50s -> %s;", quote(archive.name), quote(moduleLabel(target, target))))
+                       .append("\n");
+            }
+
+            StringBuilder graph = new StringBuilder("digraph ").append(quote(archive.name)).append(" {\n");
+            graph.append("    // Path: ").append(archive.name).append("\n");
+            for (String[] edge : archive.packageEdges.values()) {
+                graph.append(String.format("   %-50s -> %s;", quote(edge[0]), quote(moduleLabel(edge[1], edge[2]))))
+                     .append("\n");
+            }
+            graph.append("}\n");
+            Files.write(outputDir.resolve(archive.name + ".dot"), graph.toString().getBytes());
+        }
+        summary.append("}\n");
+        Files.write(outputDir.resolve("summary.dot"), summary.toString().getBytes());
+    }
+
+    private static String moduleLabel(String name, String module) {
+        return "not found".equals(name) ? name : name + " (" + module + ")";
+    }
+
+    private static String quote(String value) {
+        return "\"" + value + "\"";
+    }
+
+    private static String packageOf(String className) {
+        int lastDot = className.lastIndexOf('.');
+        return lastDot > 0 ? className.substring(0, lastDot) : "<unnamed>";
+    }
+
+    private static class Archive {
+        private final String name;
+        private final List<String> summaryLines = new ArrayList<>();
+        // Sorted by source then target package, matching jdeps' own ordering
+        private final Map<String, String[]> packageEdges = new TreeMap<>();
+
+        Archive(String name) {
+            super();
+            this.name = name;
+        }
+    }
+}
@@ -1,16 +1,13 @@
 package com.example.jdeps;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Web Report Generator for JDeps Analysis
@@ -73,122 +70,72 @@ public class JDepsWebReportGenerator {
     /**
      * Runs various JDeps commands and collects results
      */
-    private Map<String, Object> runJDepsAnalysis() throws IOException, InterruptedException {
+    private Map<String, Object> runJDepsAnalysis() throws IOException {
         Map<String, Object> results = new HashMap<>();
         
+        // Relative JAR paths are resolved against the project directory
+        String resolvedJarPath = Paths.get(projectPath).resolve(jarPath).toString();
+        
+        if (JDepsViews.isSinglePassEnabled()) {
+            // One class-level run feeds every view, the internal API check and the DOT graphs
+            JDepsViews views = JDepsViews.fromClassLevelOutput(runJDeps("-verbose:class", resolvedJarPath));
+            results.put("basic", parseBasicOutput(views.getBasicAnalysis()));
+            results.put("verbose", parseVerboseOutput(views.getVerboseAnalysis()));
+            results.put("summary", parseSummaryOutput(views.getSummaryAnalysis()));
+            // Class-level output marks JDK internal targets as "JDK internal API (<module>)"
+            results.put("internal", parseInternalOutput(views.getVerboseAnalysis()));
+            views.writeDotFiles(Paths.get(projectPath, "web-report"));
+            return results;
+        }
+        
         // Basic analysis
-        String basicOutput = runCommand("jdeps " + jarPath);
+        String basicOutput = runJDeps(resolvedJarPath);
         results.put("basic", parseBasicOutput(basicOutput));
         
         // Verbose analysis
-        String verboseOutput = runCommand("jdeps -verbose:class " + jarPath);
+        String verboseOutput = runJDeps("-verbose:class", resolvedJarPath);
         results.put("verbose", parseVerboseOutput(verboseOutput));
         
         // Summary analysis
-        String summaryOutput = runCommand("jdeps -s " + jarPath);
+        String summaryOutput = runJDeps("-s", resolvedJarPath);
         results.put("summary", parseSummaryOutput(summaryOutput));
         
         // Internal API check
-        String internalOutput = runCommand("jdeps -jdkinternals " + jarPath);
+        String internalOutput = runJDeps("-jdkinternals", resolvedJarPath);
         results.put("internal", parseInternalOutput(internalOutput));
         
         // Generate dependency graph
-        runCommand("jdeps -dotoutput " + projectPath + "/web-report " + jarPath);
+        runJDeps("-dotoutput", Paths.get(projectPath, "web-report").toString(), resolvedJarPath);
         
         return results;
     }
 
     /**
-     * Runs a shell command and returns output
+     * Runs jdeps in-process and returns its output
      */
-    private String runCommand(String command) throws IOException, InterruptedException {
-        ProcessBuilder pb = new ProcessBuilder();
-        pb.command("sh", "-c", command);
-        pb.directory(new File(projectPath));
-        
-        Process process = pb.start();
-        
-        StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-            }
-        }
-        
-        process.waitFor();
-        return output.toString();
+    private String runJDeps(String... args) throws IOException {
+        return JDepsRunner.execute(args).getOutput();
     }
 
     /**
-     * Parses basic JDeps output
+     * Parses basic JDeps output into a package-level graph
      */
-    private List<Map<String, Object>> parseBasicOutput(String output) {
-        List<Map<String, Object>> dependencies = new ArrayList<>();
-        
-        Pattern pattern = Pattern.compile("^\\s+([^\\s]+)\\s+->\\s+([^\\s]+)\\s+(.*)$");
-        String[] lines = output.split("\n");
-        
-        for (String line : lines) {
-            Matcher matcher = pattern.matcher(line);
-            if (matcher.find()) {
-                Map<String, Object> dep = new HashMap<>();
-                dep.put("source", matcher.group(1));
-                dep.put("target", matcher.group(2));
-                dep.put("module", matcher.group(3));
-                dep.put("type", determineType(matcher.group(2)));
-                dependencies.add(dep);
-            }
-        }
-        
-        return dependencies;
+    private DependencyGraph parseBasicOutput(String output) {
+        return DependencyGraph.fromJDepsOutput(output, DependencyGraph.LineFilter.DEPENDENCIES);
     }
 
     /**
-     * Parses verbose JDeps output
+     * Parses verbose JDeps output into a class-level graph
      */
-    private List<Map<String, Object>> parseVerboseOutput(String output) {
-        List<Map<String, Object>> verboseDeps = new ArrayList<>();
-        
-        Pattern pattern = Pattern.compile("^\\s+([^\\s]+)\\s+->\\s+([^\\s]+)\\s+(.*)$");
-        String[] lines = output.split("\n");
-        
-        for (String line : lines) {
-            Matcher matcher = pattern.matcher(line);
-            if (matcher.find()) {
-                Map<String, Object> dep = new HashMap<>();
-                dep.put("sourceClass", matcher.group(1));
-                dep.put("targetClass", matcher.group(2));
-                dep.put("module", matcher.group(3));
-                dep.put("type", determineType(matcher.group(2)));
-                verboseDeps.add(dep);
-            }
-        }
-        
-        return verboseDeps;
+    private DependencyGraph parseVerboseOutput(String output) {
+        return DependencyGraph.fromJDepsOutput(output, DependencyGraph.LineFilter.DEPENDENCIES);
     }
 
     /**
-     * Parses summary JDeps output
+     * Parses summary JDeps output into an archive-to-module graph
      */
-    private List<Map<String, Object>> parseSummaryOutput(String output) {
-        List<Map<String, Object>> summary = new ArrayList<>();
-        
-        Pattern pattern = Pattern.compile("^([^\\s]+)\\s+->\\s+([^\\s]+)$");
-        String[] lines = output.split("\n");
-        
-        for (String line : lines) {
-            Matcher matcher = pattern.matcher(line);
-            if (matcher.find()) {
-                Map<String, Object> sum = new HashMap<>();
-                sum.put("source", matcher.group(1));
-                sum.put("target", matcher.group(2));
-                sum.put("type", determineType(matcher.group(2)));
-                summary.add(sum);
-            }
-        }
-        
-        return summary;
+    private DependencyGraph parseSummaryOutput(String output) {
+        return DependencyGraph.fromJDepsOutput(output, DependencyGraph.LineFilter.SUMMARY);
     }
 
     /**
@@ -229,139 +176,124 @@ public class JDepsWebReportGenerator {
     }
 
     /**
-     * Generates JSON data file for the web interface
+     * Streams the JSON data file for the web interface, writing each section as it is produced
      */
     private void generateJsonData(Map<String, Object> analysisResults) throws IOException {
         Path webReportDir = Paths.get(projectPath, "web-report");
         Files.createDirectories(webReportDir);
         
-        ObjectNode jsonData = objectMapper.createObjectNode();
-        
-        // Add metadata
-        jsonData.put("timestamp", System.currentTimeMillis());
-        jsonData.put("project", "jdeps-test-maven");
-        jsonData.put("jarPath", jarPath);
-        
         // Process analysis results
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> basicDeps = (List<Map<String, Object>>) analysisResults.get("basic");
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> verboseDeps = (List<Map<String, Object>>) analysisResults.get("verbose");
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> summaryDeps = (List<Map<String, Object>>) analysisResults.get("summary");
+        DependencyGraph basicDeps = (DependencyGraph) analysisResults.get("basic");
+        DependencyGraph verboseDeps = (DependencyGraph) analysisResults.get("verbose");
         @SuppressWarnings("unchecked")
         List<Map<String, Object>> internalDeps = (List<Map<String, Object>>) analysisResults.get("internal");
         
-        // Create modules array
-        ArrayNode modulesArray = objectMapper.createArrayNode();
-        Set<String> moduleNames = new HashSet<>();
+        // One sweep over the class-level edges gives distinct class counts per module;
+        // dependency counts and per-class out-degrees come straight from the CSR offsets
+        int[] classesPerModule = countClassesPerModule(verboseDeps);
         
-        for (Map<String, Object> dep : basicDeps) {
-            String target = (String) dep.get("target");
-            if (moduleNames.add(target)) {
-                ObjectNode module = objectMapper.createObjectNode();
-                module.put("name", target);
-                module.put("type", (String) dep.get("type"));
-                module.put("dependencies", countDependenciesForModule(target, basicDeps));
-                module.put("classes", countClassesForModule(target, verboseDeps));
-                modulesArray.add(module);
+        Path jsonFile = webReportDir.resolve("analysis-data.json");
+        try (JsonGenerator json = JsonFiles.newGenerator(objectMapper.getFactory(), jsonFile)) {
+            json.writeStartObject();
+            
+            // Add metadata
+            json.writeNumberField("timestamp", System.currentTimeMillis());
+            json.writeStringField("project", "jdeps-test-maven");
+            json.writeStringField("jarPath", jarPath);
+            
+            // Modules array
+            json.writeArrayFieldStart("modules");
+            boolean[] seenModules = new boolean[basicDeps.nodeCount()];
+            for (int edge = 0; edge < basicDeps.edgeCount(); edge++) {
+                int target = basicDeps.edgeTarget(edge);
+                if (!seenModules[target]) {
+                    seenModules[target] = true;
+                    String targetName = basicDeps.nodeName(target);
+                    int moduleLabel = verboseDeps.labelId(targetName);
+                    json.writeStartObject();
+                    json.writeStringField("name", targetName);
+                    json.writeStringField("type", determineType(targetName));
+                    json.writeNumberField("dependencies", basicDeps.inDegree(target));
+                    json.writeNumberField("classes", moduleLabel >= 0 ? classesPerModule[moduleLabel] : 0);
+                    json.writeEndObject();
+                }
             }
-        }
-        
-        jsonData.set("modules", modulesArray);
-        
-        // Create dependencies array
-        ArrayNode dependenciesArray = objectMapper.createArrayNode();
-        for (Map<String, Object> dep : basicDeps) {
-            ObjectNode dependency = objectMapper.createObjectNode();
-            dependency.put("source", (String) dep.get("source"));
-            dependency.put("target", (String) dep.get("target"));
-            dependency.put("type", (String) dep.get("type"));
-            dependency.put("details", "Module dependency");
-            dependenciesArray.add(dependency);
-        }
-        
-        jsonData.set("dependencies", dependenciesArray);
-        
-        // Create classes array
-        ArrayNode classesArray = objectMapper.createArrayNode();
-        Set<String> classNames = new HashSet<>();
-        
-        for (Map<String, Object> dep : verboseDeps) {
-            String sourceClass = (String) dep.get("sourceClass");
-            if (classNames.add(sourceClass)) {
-                ObjectNode cls = objectMapper.createObjectNode();
-                cls.put("name", sourceClass);
-                cls.put("module", "jdeps-test");
-                cls.put("dependencies", countDependenciesForClass(sourceClass, verboseDeps));
-                cls.put("issues", 0);
-                classesArray.add(cls);
+            json.writeEndArray();
+            
+            // Dependencies array
+            json.writeArrayFieldStart("dependencies");
+            for (int source = 0; source < basicDeps.nodeCount(); source++) {
+                for (int edge = basicDeps.edgeStart(source); edge < basicDeps.edgeEnd(source); edge++) {
+                    String targetName = basicDeps.nodeName(basicDeps.edgeTarget(edge));
+                    json.writeStartObject();
+                    json.writeStringField("source", basicDeps.nodeName(source));
+                    json.writeStringField("target", targetName);
+                    json.writeStringField("type", determineType(targetName));
+                    json.writeStringField("details", "Module dependency");
+                    json.writeEndObject();
+                }
             }
+            json.writeEndArray();
+            
+            // Classes array
+            json.writeArrayFieldStart("classes");
+            for (int node = 0; node < verboseDeps.nodeCount(); node++) {
+                if (verboseDeps.outDegree(node) > 0) {
+                    json.writeStartObject();
+                    json.writeStringField("name", verboseDeps.nodeName(node));
+                    json.writeStringField("module", "jdeps-test");
+                    json.writeNumberField("dependencies", verboseDeps.outDegree(node));
+                    json.writeNumberField("issues", 0);
+                    json.writeEndObject();
+                }
+            }
+            json.writeEndArray();
+            
+            // Issues array
+            json.writeArrayFieldStart("issues");
+            for (Map<String, Object> internal : internalDeps) {
+                writeMessage(json, "internal-api", "JDK Internal API Usage", (String) internal.get("usage"));
+            }
+            if (internalDeps.isEmpty()) {
+                writeMessage(json, "info", "No JDK internal API usage detected", "All dependencies use public APIs");
+            }
+            json.writeEndArray();
+            
+            // Recommendations array
+            json.writeArrayFieldStart("recommendations");
+            writeMessage(json, "optimization", "Consider using java.util.stream for more operations",
+                    "Stream API can simplify collection processing code");
+            writeMessage(json, "modularity", "Good modular design detected",
+                    "Dependencies are well-organized and follow good practices");
+            json.writeEndArray();
+            
+            json.writeEndObject();
         }
         
-        jsonData.set("classes", classesArray);
-        
-        // Create issues array
-        ArrayNode issuesArray = objectMapper.createArrayNode();
-        for (Map<String, Object> internal : internalDeps) {
-            ObjectNode issue = objectMapper.createObjectNode();
-            issue.put("type", "internal-api");
-            issue.put("message", "JDK Internal API Usage");
-            issue.put("details", (String) internal.get("usage"));
-            issuesArray.add(issue);
-        }
-        
-        if (issuesArray.isEmpty()) {
-            ObjectNode noIssue = objectMapper.createObjectNode();
-            noIssue.put("type", "info");
-            noIssue.put("message", "No JDK internal API usage detected");
-            noIssue.put("details", "All dependencies use public APIs");
-            issuesArray.add(noIssue);
-        }
-        
-        jsonData.set("issues", issuesArray);
-        
-        // Create recommendations array
-        ArrayNode recommendationsArray = objectMapper.createArrayNode();
-        ObjectNode rec1 = objectMapper.createObjectNode();
-        rec1.put("type", "optimization");
-        rec1.put("message", "Consider using java.util.stream for more operations");
-        rec1.put("details", "Stream API can simplify collection processing code");
-        recommendationsArray.add(rec1);
-        
-        ObjectNode rec2 = objectMapper.createObjectNode();
-        rec2.put("type", "modularity");
-        rec2.put("message", "Good modular design detected");
-        rec2.put("details", "Dependencies are well-organized and follow good practices");
-        recommendationsArray.add(rec2);
-        
-        jsonData.set("recommendations", recommendationsArray);
-        
-        // Write JSON file
-        Path jsonFile = webReportDir.resolve("analysis-data.json");
-        objectMapper.writerWithDefaultPrettyPrinter().writeValue(jsonFile.toFile(), jsonData);
-        
         System.out.println("Analysis data written to: " + jsonFile);
     }
 
-    private int countDependenciesForModule(String moduleName, List<Map<String, Object>> dependencies) {
-        return (int) dependencies.stream()
-                .filter(dep -> moduleName.equals(dep.get("target")))
-                .count();
-    }
-
-    private int countClassesForModule(String moduleName, List<Map<String, Object>> verboseDeps) {
-        return (int) verboseDeps.stream()
-                .filter(dep -> moduleName.equals(dep.get("module")))
-                .map(dep -> dep.get("targetClass"))
-                .distinct()
-                .count();
+    private void writeMessage(JsonGenerator json, String type, String message, String details) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("type", type);
+        json.writeStringField("message", message);
+        json.writeStringField("details", details);
+        json.writeEndObject();
     }
 
-    private int countDependenciesForClass(String className, List<Map<String, Object>> verboseDeps) {
-        return (int) verboseDeps.stream()
-                .filter(dep -> className.equals(dep.get("sourceClass")))
-                .count();
+    /**
+     * Counts distinct target classes per module label in a single pass over the edges
+     */
+    private int[] countClassesPerModule(DependencyGraph verboseDeps) {
+        int[] counts = new int[verboseDeps.labelCount()];
+        Set<Long> seen = new HashSet<>();
+        for (int edge = 0; edge < verboseDeps.edgeCount(); edge++) {
+            int label = verboseDeps.edgeLabelId(edge);
+            if (seen.add(((long) label << 32) | verboseDeps.edgeTarget(edge))) {
+                counts[label]++;
+            }
+        }
+        return counts;
     }
 
     /**
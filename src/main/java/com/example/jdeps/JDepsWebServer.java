@@ -1,16 +1,24 @@
 package com.example.jdeps;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sun.net.httpserver.HttpServer;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpExchange;
 
 import java.io.*;
+import java.lang.reflect.Method;
 import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Simple HTTP server for handling file uploads and serving the web UI
@@ -22,9 +30,20 @@ public class JDepsWebServer {
         super();
     }
     
+    /** System property selecting the request executor: "fixed" (default) or "virtual" */
+    public static final String EXECUTOR_PROPERTY = "server.executor";
+    
+    /** System property for the number of request threads in fixed mode */
+    public static final String THREADS_PROPERTY = "server.threads";
+    
     private static final int PORT = 8080;
     private static final String UPLOAD_DIR = "uploads";
     private static final String WEB_DIR = "web-ui";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    // Concurrent uploads within the same millisecond must not share a file
+    private static final AtomicLong UPLOAD_SEQUENCE = new AtomicLong();
+    
+    private final AnalysisJobQueue jobQueue = new AnalysisJobQueue();
     
     public static void main(String[] args) throws IOException {
         JDepsWebServer server = new JDepsWebServer();
@@ -41,17 +60,50 @@ public class JDepsWebServer {
         // Add CORS headers to all responses
         server.createContext("/", new CorsWrapper(new StaticFileHandler()));
         server.createContext("/upload", new CorsWrapper(new FileUploadHandler()));
-        server.createContext("/analyze", new CorsWrapper(new AnalysisHandler()));
+        server.createContext("/analyze", new CorsWrapper(new AnalysisHandler(jobQueue)));
+        server.createContext("/jobs", new CorsWrapper(new JobStatusHandler(jobQueue)));
+        server.createContext("/metrics", new MetricsHandler(jobQueue, AnalysisMetrics.shared()));
         server.createContext("/reports", new CorsWrapper(new ReportHandler()));
         server.createContext("/reports", new ReportHandler());
         
-        server.setExecutor(Executors.newFixedThreadPool(10));
+        // Handlers only do blocking I/O; CPU-heavy analysis stays bounded by the job queue's workers
+        server.setExecutor(createRequestExecutor(System.getProperty(EXECUTOR_PROPERTY, "fixed"),
+                Integer.getInteger(THREADS_PROPERTY, 10)));
         server.start();
         
         System.out.println("JDeps Web Server started on http://localhost:" + PORT);
         System.out.println("Open your browser and navigate to the URL above");
     }
     
+    /**
+     * Creates the executor that runs HTTP handlers. Virtual threads are looked up reflectively,
+     * since they need Java 21 while the server still builds for Java 11.
+     */
+    static ExecutorService createRequestExecutor(String mode, int threads) {
+        if ("virtual".equalsIgnoreCase(mode)) {
+            ExecutorService virtualThreads = newVirtualThreadExecutor();
+            if (virtualThreads != null) {
+                System.out.println("Handling requests on virtual threads");
+                return virtualThreads;
+            }
+            System.err.println("Virtual threads are not available on Java " + System.getProperty("java.version")
+                    + ", using " + threads + " platform threads");
+        } else if (!"fixed".equalsIgnoreCase(mode)) {
+            throw new IllegalArgumentException("Unknown " + EXECUTOR_PROPERTY + " mode: " + mode);
+        }
+        return Executors.newFixedThreadPool(threads);
+    }
+    
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            // Missing before Java 19, and a disabled preview API on Java 19 and 20
+            return null;
+        }
+    }
+    
     // Handler for static files (HTML, CSS, JS)
     static class StaticFileHandler implements HttpHandler {
         public StaticFileHandler() {
@@ -120,6 +172,9 @@ public class JDepsWebServer {
                         part = part.trim();
                         if (part.startsWith("boundary=")) {
                             boundary = part.substring(9);
+                            if (boundary.length() > 1 && boundary.startsWith("\"") && boundary.endsWith("\"")) {
+                                boundary = boundary.substring(1, boundary.length() - 1);
+                            }
                             break;
                         }
                     }
@@ -129,7 +184,7 @@ public class JDepsWebServer {
                     }
                     
                     // Generate unique filename
-                    String fileName = "upload-" + System.currentTimeMillis() + ".zip";
+                    String fileName = "upload-" + System.currentTimeMillis() + "-" + UPLOAD_SEQUENCE.incrementAndGet() + ".zip";
                     Path uploadPath = Paths.get(UPLOAD_DIR, fileName);
                     
                     // Parse multipart and extract file
@@ -162,97 +217,23 @@ public class JDepsWebServer {
         }
         
         private void parseMultipartAndSaveFile(InputStream inputStream, String boundary, Path outputPath) throws IOException {
-            byte[] boundaryBytes = ("--" + boundary).getBytes();
-            byte[] headerEndMarker = "\r\n\r\n".getBytes();
-            
-            // Read all data into memory (for files up to 100MB this should be fine)
-            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-            byte[] chunk = new byte[8192];
-            int bytesRead;
-            
-            while ((bytesRead = inputStream.read(chunk)) != -1) {
-                buffer.write(chunk, 0, bytesRead);
-            }
-            
-            byte[] allData = buffer.toByteArray();
-            
-            // Find the file part boundary
-            int partStart = findBytes(allData, boundaryBytes, 0);
-            if (partStart == -1) {
-                throw new IOException("No boundary found in multipart data");
-            }
-            
-            // Move past the boundary and CRLF
-            partStart += boundaryBytes.length + 2; // +2 for CRLF after boundary
-            
-            // Find the end of headers (double CRLF)
-            int headerEnd = findBytes(allData, headerEndMarker, partStart);
-            if (headerEnd == -1) {
-                // Try with just \n\n for compatibility
-                byte[] altHeaderEnd = "\n\n".getBytes();
-                headerEnd = findBytes(allData, altHeaderEnd, partStart);
-                if (headerEnd != -1) {
-                    headerEnd += altHeaderEnd.length;
-                } else {
-                    throw new IOException("Could not find end of headers in multipart data");
-                }
-            } else {
-                headerEnd += headerEndMarker.length;
-            }
-            
-            // Check if this part contains a filename
-            String headers = new String(allData, partStart, headerEnd - partStart);
-            if (!headers.contains("filename=")) {
-                throw new IOException("No filename found in multipart headers");
+            // Stream the file part straight to disk through a fixed-size buffer
+            try (AnalysisMetrics.Timer timer = AnalysisMetrics.shared().time("upload")) {
+                MultipartStreamParser parser = new MultipartStreamParser(inputStream, boundary);
+                long fileLength = parser.saveFirstFile(outputPath);
+                timer.addBytes(fileLength);
+                System.out.println("Successfully extracted " + fileLength + " bytes to " + outputPath);
             }
-            
-            // Find the next boundary (end of file data)
-            int fileDataEnd = findBytes(allData, boundaryBytes, headerEnd);
-            if (fileDataEnd == -1) {
-                fileDataEnd = allData.length;
-            }
-            
-            // Remove trailing CRLF before boundary
-            while (fileDataEnd > headerEnd && 
-                   (allData[fileDataEnd - 1] == '\r' || allData[fileDataEnd - 1] == '\n')) {
-                fileDataEnd--;
-            }
-            
-            // Extract file data
-            int fileLength = fileDataEnd - headerEnd;
-            if (fileLength <= 0) {
-                throw new IOException("No file data found");
-            }
-            
-            byte[] fileData = new byte[fileLength];
-            System.arraycopy(allData, headerEnd, fileData, 0, fileLength);
-            
-            // Write to file
-            Files.write(outputPath, fileData);
-            System.out.println("Successfully extracted " + fileData.length + " bytes to " + outputPath);
-        }
-        
-        private int findBytes(byte[] data, byte[] pattern, int startIndex) {
-            if (pattern.length == 0 || startIndex >= data.length) return -1;
-            
-            for (int i = startIndex; i <= data.length - pattern.length; i++) {
-                boolean found = true;
-                for (int j = 0; j < pattern.length; j++) {
-                    if (data[i + j] != pattern[j]) {
-                        found = false;
-                        break;
-                    }
-                }
-                if (found) return i;
-            }
-            return -1;
         }
     }
     
-    // Handler for analysis requests
+    // Handler for analysis requests: queues a job and returns its ID without waiting
     static class AnalysisHandler implements HttpHandler {
-        public AnalysisHandler() {
+        private final AnalysisJobQueue jobQueue;
+        
+        public AnalysisHandler(AnalysisJobQueue jobQueue) {
             super();
+            this.jobQueue = jobQueue;
         }
 
         @Override
@@ -268,51 +249,133 @@ public class JDepsWebServer {
                 String requestBody = new String(exchange.getRequestBody().readAllBytes());
                 System.out.println("Analysis request: " + requestBody);
                 
-                String filePath = extractFilePathFromJson(requestBody);
+                String filePath = OBJECT_MAPPER.readTree(requestBody).path("filePath").asText(null);
                 
                 if (filePath == null) {
                     throw new IllegalArgumentException("Invalid request: missing filePath");
                 }
                 
-                System.out.println("Analyzing file: " + filePath);
+                AnalysisJobQueue.Job job = jobQueue.submit(filePath);
+                System.out.println("Queued " + job.getId() + " for: " + filePath);
                 
-                // Analyze the project
-                ZipProjectAnalyzer analyzer = new ZipProjectAnalyzer();
-                String reportPath = analyzer.analyzeZipProject(filePath);
-                
-                // Extract report ID from path - reportPath is the directory path
-                Path reportPathObj = Paths.get(reportPath);
-                String reportId = reportPathObj.getFileName().toString();
-                
-                // Return the report info
-                String response = "{\"status\":\"success\",\"reportPath\":\"" + reportPath + "\",\"reportId\":\"" + reportId + "\"}";
-                
-                exchange.getResponseHeaders().set("Content-Type", "application/json");
-                exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
-                exchange.sendResponseHeaders(200, response.length());
-                exchange.getResponseBody().write(response.getBytes());
-                exchange.getResponseBody().close();
+                sendJson(exchange, 202, jobStatus(job));
                 
+            } catch (RejectedExecutionException e) {
+                sendError(exchange, 503, "Analysis queue is full, try again later");
             } catch (Exception e) {
                 System.err.println("Analysis error: " + e.getMessage());
-                e.printStackTrace();
-                String response = "{\"status\":\"error\",\"message\":\"" + e.getMessage() + "\"}";
-                exchange.getResponseHeaders().set("Content-Type", "application/json");
-                exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
-                exchange.sendResponseHeaders(500, response.length());
-                exchange.getResponseBody().write(response.getBytes());
+                sendError(exchange, 400, e.getMessage());
+            }
+        }
+    }
+    
+    // Handler for job status polling: GET /jobs/<jobId>
+    static class JobStatusHandler implements HttpHandler {
+        private final AnalysisJobQueue jobQueue;
+        
+        public JobStatusHandler(AnalysisJobQueue jobQueue) {
+            super();
+            this.jobQueue = jobQueue;
+        }
+        
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, 0);
                 exchange.getResponseBody().close();
+                return;
+            }
+            
+            String jobId = exchange.getRequestURI().getPath().substring("/jobs".length());
+            if (jobId.startsWith("/")) {
+                jobId = jobId.substring(1);
+            }
+            
+            if (jobId.isEmpty()) {
+                Map<String, Object> queue = new LinkedHashMap<>();
+                queue.put("running", jobQueue.getRunningCount());
+                queue.put("queued", jobQueue.getQueuedCount());
+                sendJson(exchange, 200, queue);
+                return;
+            }
+            
+            AnalysisJobQueue.Job job = jobQueue.getJob(jobId);
+            if (job == null) {
+                sendError(exchange, 404, "Unknown job: " + jobId);
+            } else {
+                sendJson(exchange, 200, jobStatus(job));
             }
         }
+    }
+    
+    // Handler for Prometheus scrapes: analysis stage metrics plus the job queue's current load
+    static class MetricsHandler implements HttpHandler {
+        private final AnalysisJobQueue jobQueue;
+        private final AnalysisMetrics metrics;
         
-        private String extractFilePathFromJson(String json) {
-            // Simple JSON parsing for filePath
-            int start = json.indexOf("\"filePath\":\"") + 12;
-            if (start < 12) return null;
-            int end = json.indexOf("\"", start);
-            if (end < 0) return null;
-            return json.substring(start, end);
+        public MetricsHandler(AnalysisJobQueue jobQueue, AnalysisMetrics metrics) {
+            super();
+            this.jobQueue = jobQueue;
+            this.metrics = metrics;
         }
+        
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                exchange.close();
+                return;
+            }
+            
+            StringBuilder text = new StringBuilder(metrics.toPrometheusText());
+            text.append("# HELP analysis_jobs_running Analysis jobs currently running\n")
+                .append("# TYPE analysis_jobs_running gauge\n")
+                .append("analysis_jobs_running ").append(jobQueue.getRunningCount()).append('\n')
+                .append("# HELP analysis_jobs_queued Analysis jobs waiting for a worker\n")
+                .append("# TYPE analysis_jobs_queued gauge\n")
+                .append("analysis_jobs_queued ").append(jobQueue.getQueuedCount()).append('\n');
+            
+            byte[] response = text.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(response);
+            }
+        }
+    }
+    
+    static Map<String, Object> jobStatus(AnalysisJobQueue.Job job) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("status", job.getState() == AnalysisJobQueue.State.FAILED ? "error" : "success");
+        status.put("jobId", job.getId());
+        status.put("state", job.getState().name().toLowerCase());
+        status.put("progress", job.getProgress());
+        status.put("stage", job.getStage());
+        status.put("statusUrl", "/jobs/" + job.getId());
+        if (job.getReportPath() != null) {
+            status.put("reportPath", job.getReportPath());
+            status.put("reportId", job.getReportId());
+        }
+        if (job.getMessage() != null) {
+            status.put("message", job.getMessage());
+        }
+        return status;
+    }
+    
+    static void sendJson(HttpExchange exchange, int statusCode, Object body) throws IOException {
+        byte[] response = OBJECT_MAPPER.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(statusCode, response.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(response);
+        }
+    }
+    
+    static void sendError(HttpExchange exchange, int statusCode, String message) throws IOException {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("status", "error");
+        error.put("message", message);
+        sendJson(exchange, statusCode, error);
     }
     
     // Handler for serving generated reports
@@ -0,0 +1,44 @@
+package com.example.jdeps;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Opens streaming JSON generators over buffered file channels, so reports are written
+ * as they are produced instead of being built as a tree or string first
+ */
+public class JsonFiles {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public JsonFiles() {
+        super();
+    }
+
+    /**
+     * Opens a buffered output stream over a truncated file channel
+     */
+    public static OutputStream newOutputStream(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        return new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+    }
+
+    /**
+     * Opens a pretty-printing UTF-8 generator that closes the file when the generator is closed
+     */
+    public static JsonGenerator newGenerator(JsonFactory factory, Path file) throws IOException {
+        JsonGenerator generator = factory.createGenerator(newOutputStream(file), JsonEncoding.UTF8);
+        generator.useDefaultPrettyPrinter();
+        return generator;
+    }
+}
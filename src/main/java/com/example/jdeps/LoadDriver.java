@@ -0,0 +1,293 @@
+package com.example.jdeps;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load driver for a running {@link JDepsWebServer}. It generates synthetic projects with
+ * {@link SyntheticProjectGenerator}, then has several clients upload them to {@code /upload},
+ * submit them to {@code /analyze} and poll {@code /jobs} until each report is ready. At the end
+ * it prints p50/p99 latency of every step and the analysis throughput.
+ *
+ * <pre>
+ * java -cp target/classes:... com.example.jdeps.LoadDriver [key=value...]
+ * </pre>
+ * with driver keys {@code url}, {@code concurrency}, {@code requests}, {@code kind}
+ * ({@code jar-zip} or {@code sources}), {@code variants}, {@code pollMillis} and
+ * {@code timeoutSeconds}; any other key configures the generator. Each variant uses a different
+ * seed, so repeated uploads of one variant show the effect of the report cache.
+ */
+public class LoadDriver {
+
+    private static final String BOUNDARY = "----JDepsLoadDriverBoundary";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private String baseUrl = "http://localhost:8080";
+    private int concurrency = 4;
+    private int requests = 20;
+    private String kind = "jar-zip";
+    private int variants = 4;
+    private long pollMillis = 100;
+    private long timeoutSeconds = 600;
+    private final SyntheticProjectGenerator generator = new SyntheticProjectGenerator();
+
+    private final HttpClient client = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+
+    public LoadDriver() {
+        super();
+    }
+
+    public static void main(String[] args) {
+        try {
+            LoadDriver driver = new LoadDriver().configure(args);
+            Map<String, Latencies> latencies = driver.run();
+            System.out.println(driver.formatReport(latencies));
+        } catch (Exception e) {
+            System.err.println("Load test failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Applies {@code key=value} settings; keys the driver does not know go to the generator
+     */
+    public LoadDriver configure(String... settings) {
+        List<String> generatorSettings = new ArrayList<>();
+        for (String setting : settings) {
+            int equals = setting.indexOf('=');
+            String key = equals < 0 ? setting : setting.substring(0, equals);
+            String value = equals < 0 ? "" : setting.substring(equals + 1);
+            switch (key) {
+                case "url": baseUrl = value.endsWith("/") ? value.substring(0, value.length() - 1) : value; break;
+                case "concurrency": concurrency = Math.max(1, Integer.parseInt(value)); break;
+                case "requests": requests = Math.max(1, Integer.parseInt(value)); break;
+                case "kind": kind = value; break;
+                case "variants": variants = Math.max(1, Integer.parseInt(value)); break;
+                case "pollMillis": pollMillis = Math.max(1, Long.parseLong(value)); break;
+                case "timeoutSeconds": timeoutSeconds = Long.parseLong(value); break;
+                default: generatorSettings.add(setting);
+            }
+        }
+        if (!"jar-zip".equals(kind) && !"sources".equals(kind)) {
+            throw new IllegalArgumentException("Unknown kind: " + kind + " (expected jar-zip or sources)");
+        }
+        generator.configure(generatorSettings.toArray(new String[0]));
+        return this;
+    }
+
+    /**
+     * Generates the projects, runs the load and returns the latencies recorded per step
+     */
+    public Map<String, Latencies> run() throws IOException, InterruptedException {
+        List<byte[]> bodies = generateUploadBodies();
+
+        Map<String, Latencies> latencies = new LinkedHashMap<>();
+        for (String step : Arrays.asList("upload", "analyze", "job", "total")) {
+            latencies.put(step, new Latencies());
+        }
+        AtomicInteger nextRequest = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+
+        System.out.println("Running " + requests + " analyses with " + concurrency + " clients against " + baseUrl);
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (int c = 0; c < concurrency; c++) {
+                running.add(clients.submit(() -> {
+                    int request;
+                    while ((request = nextRequest.getAndIncrement()) < requests) {
+                        try {
+                            runOnce(bodies.get(request % bodies.size()), latencies);
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                            System.err.println("Request " + request + " failed: " + e.getMessage());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> client : running) {
+                client.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IOException("Load client failed", e.getCause());
+        } finally {
+            clients.shutdownNow();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        Latencies total = latencies.get("total");
+        total.setElapsedNanos(elapsedNanos);
+        total.setFailures(failures.get());
+        return latencies;
+    }
+
+    private List<byte[]> generateUploadBodies() throws IOException {
+        List<byte[]> bodies = new ArrayList<>();
+        Path zipFile = Files.createTempFile("load-driver-", ".zip");
+        long baseSeed = generator.getSeed();
+        try {
+            for (int v = 0; v < variants; v++) {
+                generator.seed(baseSeed + v);
+                if ("sources".equals(kind)) {
+                    generator.writeSourceZip(zipFile);
+                } else {
+                    generator.writeJarZip(zipFile);
+                }
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                writeMultipartBody(body, BOUNDARY, "synthetic-" + v + ".zip", Files.readAllBytes(zipFile));
+                bodies.add(body.toByteArray());
+            }
+        } finally {
+            Files.deleteIfExists(zipFile);
+        }
+        System.out.println("Generated " + variants + " " + kind + " projects of " + generator.getClassCount()
+            + " classes, " + bodies.get(0).length / 1024 + " KB each");
+        return bodies;
+    }
+
+    private void runOnce(byte[] uploadBody, Map<String, Latencies> latencies) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        JsonNode upload = send(HttpRequest.newBuilder(URI.create(baseUrl + "/upload"))
+            .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+            .POST(HttpRequest.BodyPublishers.ofByteArray(uploadBody)));
+        long uploaded = System.nanoTime();
+        latencies.get("upload").record(uploaded - start);
+
+        String request = OBJECT_MAPPER.createObjectNode().put("filePath", upload.path("filePath").asText()).toString();
+        JsonNode job = send(HttpRequest.newBuilder(URI.create(baseUrl + "/analyze"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(request)));
+        long submitted = System.nanoTime();
+        latencies.get("analyze").record(submitted - uploaded);
+
+        long deadline = submitted + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        URI statusUri = URI.create(baseUrl + job.path("statusUrl").asText("/jobs/" + job.path("jobId").asText()));
+        String state = job.path("state").asText();
+        while (!"completed".equals(state)) {
+            if ("failed".equals(state)) {
+                throw new IOException("Analysis failed: " + job.path("message").asText());
+            }
+            if (System.nanoTime() > deadline) {
+                throw new IOException("Analysis did not finish within " + timeoutSeconds + "s");
+            }
+            Thread.sleep(pollMillis);
+            job = send(HttpRequest.newBuilder(statusUri).GET());
+            state = job.path("state").asText();
+        }
+        long finished = System.nanoTime();
+        latencies.get("job").record(finished - submitted);
+        latencies.get("total").record(finished - start);
+    }
+
+    private JsonNode send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request.timeout(Duration.ofSeconds(timeoutSeconds)).build(),
+            HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() >= 300) {
+            throw new IOException("HTTP " + response.statusCode() + " from " + response.uri().getPath() + ": "
+                + new String(response.body(), StandardCharsets.UTF_8));
+        }
+        return OBJECT_MAPPER.readTree(response.body());
+    }
+
+    /**
+     * Formats the latency percentiles of every step and the overall throughput
+     */
+    public String formatReport(Map<String, Latencies> latencies) {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-10s %8s %10s %10s %10s%n", "step", "count", "p50 ms", "p99 ms", "max ms"));
+        for (Map.Entry<String, Latencies> step : latencies.entrySet()) {
+            Latencies values = step.getValue();
+            report.append(String.format("%-10s %8d %10.1f %10.1f %10.1f%n", step.getKey(), values.count(),
+                values.percentile(50) / 1e6, values.percentile(99) / 1e6, values.percentile(100) / 1e6));
+        }
+        Latencies total = latencies.get("total");
+        double seconds = total.getElapsedNanos() / 1e9;
+        report.append(String.format("%d analyses in %.1f s: %.2f analyses/s, %d failed",
+            total.count(), seconds, seconds > 0 ? total.count() / seconds : 0.0, total.getFailures()));
+        return report.toString();
+    }
+
+    /**
+     * Writes a multipart/form-data body carrying the file as its only part
+     */
+    static void writeMultipartBody(OutputStream out, String boundary, String fileName, byte[] content)
+            throws IOException {
+        String header = "--" + boundary + "\r\n"
+            + "Content-Disposition: form-data; name=\"file\"; filename=\"" + fileName + "\"\r\n"
+            + "Content-Type: application/octet-stream\r\n\r\n";
+        out.write(header.getBytes(StandardCharsets.US_ASCII));
+        out.write(content);
+        out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Latency samples of one step, kept in full so percentiles are exact
+     */
+    public static class Latencies {
+        private long[] samples = new long[64];
+        private int count;
+        private long elapsedNanos;
+        private int failures;
+
+        public Latencies() {
+            super();
+        }
+
+        public synchronized void record(long nanos) {
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, count * 2);
+            }
+            samples[count++] = nanos;
+        }
+
+        public synchronized int count() {
+            return count;
+        }
+
+        /**
+         * Returns the nearest-rank percentile in nanoseconds, or 0 without samples
+         */
+        public synchronized long percentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100.0 * count);
+            return sorted[Math.min(count, Math.max(1, rank)) - 1];
+        }
+
+        public long getElapsedNanos() { return elapsedNanos; }
+        public void setElapsedNanos(long elapsedNanos) { this.elapsedNanos = elapsedNanos; }
+
+        public int getFailures() { return failures; }
+        public void setFailures(int failures) { this.failures = failures; }
+    }
+}
@@ -0,0 +1,370 @@
+package com.example.jdeps;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Reads JAR entries from a memory-mapped archive. The central directory is parsed straight from
+ * the mapping, including ZIP64 archives with more than 65535 entries, so listing a JAR costs no
+ * reads beyond the pages touched. Entry contents go into a per-thread scratch buffer: stored
+ * entries with one bulk copy out of the mapping and deflated entries through a per-thread
+ * {@link Inflater} reading the mapping directly, so analyzing a class allocates no buffers
+ * and makes no system calls.
+ */
+public class MappedJarReader implements Closeable {
+
+    /** System property that makes JAR analysis read through {@link java.util.jar.JarFile} when set to false */
+    public static final String ENABLED_PROPERTY = "analysis.mappedJars.enabled";
+
+    private static final int END_HEADER_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_END_HEADER_SIGNATURE = 0x06064b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int END_HEADER_SIZE = 22;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    private static final ThreadLocal<Scratch> SCRATCH = new ThreadLocal<>();
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer mapping;
+    private final List<Entry> entries;
+
+    private MappedJarReader(Path path, FileChannel channel, MappedByteBuffer mapping) throws IOException {
+        super();
+        this.path = path;
+        this.channel = channel;
+        this.mapping = mapping;
+        this.entries = Collections.unmodifiableList(readCentralDirectory());
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"));
+    }
+
+    /**
+     * Returns whether the JAR can be read through a mapping: reading is enabled and the file
+     * fits in a single mapped buffer
+     */
+    public static boolean canMap(Path jarPath) throws IOException {
+        return isEnabled() && Files.size(jarPath) <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Maps the JAR and reads its central directory
+     *
+     * @throws ZipException if the file is not a ZIP archive or its central directory is malformed;
+     *         encrypted or unsupported entries are still listed and only fail when read
+     */
+    public static MappedJarReader open(Path jarPath) throws IOException {
+        FileChannel channel = FileChannel.open(jarPath, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new ZipException("Too large to map: " + jarPath);
+            }
+            MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapping.order(ByteOrder.LITTLE_ENDIAN);
+            return new MappedJarReader(jarPath, channel, mapping);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the entries in central directory order
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns the entry's content in a new array
+     */
+    public byte[] readAllBytes(Entry entry) throws IOException {
+        byte[] content = new byte[entry.size];
+        read(entry, content);
+        return content;
+    }
+
+    /**
+     * Returns the calling thread's scratch buffer holding the entry's content in its first
+     * {@link Entry#getSize()} bytes. The buffer is overwritten by the thread's next read from
+     * any reader, so callers must not keep it.
+     */
+    public byte[] readShared(Entry entry) throws IOException {
+        Scratch scratch = scratch();
+        if (scratch.buffer.length < entry.size) {
+            scratch.buffer = new byte[Math.max(entry.size, scratch.buffer.length * 2)];
+        }
+        read(entry, scratch.buffer);
+        return scratch.buffer;
+    }
+
+    private void read(Entry entry, byte[] target) throws IOException {
+        if (entry.unreadable != null) {
+            throw new ZipException(entry.unreadable);
+        }
+        ByteBuffer data = mapping.duplicate();
+        int dataOffset = dataOffset(entry);
+        data.position(dataOffset).limit(dataOffset + entry.compressedSize);
+
+        if (entry.method == STORED) {
+            data.get(target, 0, entry.size);
+            return;
+        }
+
+        Inflater inflater = scratch().inflater;
+        inflater.reset();
+        inflater.setInput(data);
+        try {
+            int inflated = 0;
+            while (inflated < entry.size) {
+                int count = inflater.inflate(target, inflated, entry.size - inflated);
+                if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += count;
+            }
+            if (inflated != entry.size) {
+                throw new ZipException("Truncated entry " + entry.name + " in " + path);
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("Invalid deflated data in " + entry.name + ": " + e.getMessage());
+        }
+    }
+
+    private int dataOffset(Entry entry) throws ZipException {
+        int header = entry.localHeaderOffset;
+        if (header + 30 > mapping.limit() || mapping.getInt(header) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("Invalid local header for " + entry.name + " in " + path);
+        }
+        // The local extra field may differ from the central one, so its length is read here
+        int offset = header + 30 + unsignedShort(header + 26) + unsignedShort(header + 28);
+        if ((long) offset + entry.compressedSize > mapping.limit()) {
+            throw new ZipException("Entry " + entry.name + " extends past the end of " + path);
+        }
+        return offset;
+    }
+
+    private List<Entry> readCentralDirectory() throws ZipException {
+        int end = findEndHeader();
+        long entryCount = unsignedShort(end + 10);
+        long directorySize = unsignedInt(end + 12);
+        long directoryOffset = unsignedInt(end + 16);
+
+        // An archive of exactly 65535 entries may have no ZIP64 records at all
+        int locator = end - 20;
+        boolean zip64 = locator >= 0 && mapping.getInt(locator) == ZIP64_LOCATOR_SIGNATURE;
+        if (!zip64 && (directorySize == 0xFFFFFFFFL || directoryOffset == 0xFFFFFFFFL)) {
+            throw new ZipException("Missing ZIP64 end locator in " + path);
+        }
+        if (zip64 && (entryCount == 0xFFFF || directorySize == 0xFFFFFFFFL || directoryOffset == 0xFFFFFFFFL)) {
+            int zip64End = checkedOffset(mapping.getLong(locator + 8), 56);
+            if (mapping.getInt(zip64End) != ZIP64_END_HEADER_SIGNATURE) {
+                throw new ZipException("Invalid ZIP64 end header in " + path);
+            }
+            entryCount = mapping.getLong(zip64End + 32);
+            directorySize = mapping.getLong(zip64End + 40);
+            directoryOffset = mapping.getLong(zip64End + 48);
+        }
+
+        int position = checkedOffset(directoryOffset, 0);
+        int directoryEnd = checkedOffset(directoryOffset + directorySize, 0);
+        List<Entry> directory = new ArrayList<>((int) Math.min(entryCount, directorySize / 46));
+        for (long index = 0; index < entryCount; index++) {
+            if (position + 46 > directoryEnd || mapping.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+                throw new ZipException("Central directory of " + path + " ends after " + index
+                        + " of " + entryCount + " entries");
+            }
+            int flags = unsignedShort(position + 8);
+            int method = unsignedShort(position + 10);
+            long compressedSize = unsignedInt(position + 20);
+            long size = unsignedInt(position + 24);
+            int nameLength = unsignedShort(position + 28);
+            int extraLength = unsignedShort(position + 30);
+            int commentLength = unsignedShort(position + 32);
+            long localHeaderOffset = unsignedInt(position + 42);
+            int extra = position + 46 + nameLength;
+            int extraEnd = extra + extraLength;
+            if (extraEnd + commentLength > directoryEnd) {
+                throw new ZipException("Central header at " + position + " extends past the directory in " + path);
+            }
+            String name = decodeName(position + 46, nameLength);
+
+            // ZIP64 values follow in this order, present only for the fields that overflowed
+            while (extra + 4 <= extraEnd) {
+                int id = unsignedShort(extra);
+                int length = unsignedShort(extra + 2);
+                if (extra + 4 + length > extraEnd) {
+                    throw new ZipException("Extra field of " + name + " extends past its header in " + path);
+                }
+                if (id == ZIP64_EXTRA_ID) {
+                    int needed = (size == 0xFFFFFFFFL ? 8 : 0) + (compressedSize == 0xFFFFFFFFL ? 8 : 0)
+                            + (localHeaderOffset == 0xFFFFFFFFL ? 8 : 0);
+                    if (length < needed) {
+                        throw new ZipException("ZIP64 extra field of " + name + " is too short in " + path);
+                    }
+                    int value = extra + 4;
+                    if (size == 0xFFFFFFFFL) {
+                        size = mapping.getLong(value);
+                        value += 8;
+                    }
+                    if (compressedSize == 0xFFFFFFFFL) {
+                        compressedSize = mapping.getLong(value);
+                        value += 8;
+                    }
+                    if (localHeaderOffset == 0xFFFFFFFFL) {
+                        localHeaderOffset = mapping.getLong(value);
+                    }
+                    break;
+                }
+                extra += 4 + length;
+            }
+
+            // Entries this reader cannot extract are still listed; reading one throws instead
+            String unreadable = null;
+            if ((flags & 1) != 0) {
+                unreadable = "Encrypted entry " + name + " in " + path;
+            } else if (method != STORED && method != DEFLATED) {
+                unreadable = "Unsupported compression method " + method + " for " + name + " in " + path;
+            } else if (size < 0 || size > Integer.MAX_VALUE - 8 || compressedSize < 0
+                    || compressedSize > Integer.MAX_VALUE) {
+                unreadable = "Entry " + name + " is too large in " + path;
+            } else if (method == STORED && size != compressedSize) {
+                unreadable = "Stored entry " + name + " has inconsistent sizes in " + path;
+            }
+            if (unreadable != null) {
+                directory.add(new Entry(name, method, 0, 0, 0, unreadable));
+            } else {
+                directory.add(new Entry(name, method, (int) compressedSize, (int) size,
+                        checkedOffset(localHeaderOffset, 30), null));
+            }
+            position = extraEnd + commentLength;
+        }
+        return directory;
+    }
+
+    private int findEndHeader() throws ZipException {
+        int limit = mapping.limit();
+        int lowest = Math.max(0, limit - END_HEADER_SIZE - MAX_COMMENT_SIZE);
+        for (int position = limit - END_HEADER_SIZE; position >= lowest; position--) {
+            if (mapping.getInt(position) == END_HEADER_SIGNATURE
+                    && position + END_HEADER_SIZE + unsignedShort(position + 20) == limit) {
+                return position;
+            }
+        }
+        throw new ZipException("No central directory found in " + path);
+    }
+
+    private int checkedOffset(long offset, int length) throws ZipException {
+        if (offset < 0 || offset + length > mapping.limit()) {
+            throw new ZipException("Offset " + offset + " is outside " + path);
+        }
+        return (int) offset;
+    }
+
+    private String decodeName(int offset, int length) {
+        byte[] name = new byte[length];
+        ByteBuffer source = mapping.duplicate();
+        source.position(offset);
+        source.get(name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    private int unsignedShort(int offset) {
+        return mapping.getShort(offset) & 0xFFFF;
+    }
+
+    private long unsignedInt(int offset) {
+        return mapping.getInt(offset) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Closes the file; the mapping itself is released once it is garbage collected
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * One entry of the central directory
+     */
+    public static class Entry {
+        private final String name;
+        private final int method;
+        private final int compressedSize;
+        private final int size;
+        private final int localHeaderOffset;
+        private final String unreadable;
+
+        Entry(String name, int method, int compressedSize, int size, int localHeaderOffset, String unreadable) {
+            super();
+            this.name = name;
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+            this.unreadable = unreadable;
+        }
+
+        public String getName() { return name; }
+        /** Uncompressed size; 0 for an entry that cannot be read */
+        public int getSize() { return size; }
+        public int getCompressedSize() { return compressedSize; }
+        public boolean isStored() { return method == STORED; }
+    }
+
+    private static Scratch scratch() {
+        Scratch scratch = SCRATCH.get();
+        if (scratch == null) {
+            scratch = new Scratch();
+            SCRATCH.set(scratch);
+        }
+        return scratch;
+    }
+
+    /**
+     * Frees the calling thread's scratch buffer and the native memory of its inflater. Called by
+     * analysis threads before they exit; a later read on the thread creates new scratch state.
+     */
+    public static void releaseScratch() {
+        Scratch scratch = SCRATCH.get();
+        if (scratch != null) {
+            SCRATCH.remove();
+            scratch.inflater.end();
+        }
+    }
+
+    /**
+     * Per-thread content buffer and inflater
+     */
+    private static class Scratch {
+        private byte[] buffer = new byte[64 * 1024];
+        private final Inflater inflater = new Inflater(true);
+
+        Scratch() {
+            super();
+        }
+    }
+}
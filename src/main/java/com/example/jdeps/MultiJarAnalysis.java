@@ -0,0 +1,296 @@
+package com.example.jdeps;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Combined analysis of every JAR in an upload. JARs are analyzed concurrently on the shared
+ * analysis pool and merged in upload order. JARs are identified by their path inside the upload,
+ * so JARs with the same file name in different directories stay apart. Each edge keeps the JAR
+ * it came from, references jdeps reports as "not found" are resolved to the uploaded JAR that
+ * defines the target, and classes defined by more than one JAR are reported as duplicates.
+ */
+public class MultiJarAnalysis {
+
+    private static final String NOT_FOUND = "not found";
+
+    /**
+     * Analysis of one JAR in the upload
+     */
+    public static class JarResult {
+        private final String path;
+        private final ZipProjectAnalyzer.JDepsResults views;
+        private final Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> classResults;
+
+        public JarResult(String path, ZipProjectAnalyzer.JDepsResults views,
+                         Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> classResults) {
+            super();
+            this.path = path;
+            this.views = views;
+            this.classResults = classResults;
+        }
+
+        /** Path of the JAR inside the upload */
+        public String getPath() { return path; }
+
+        /** JAR file name, as jdeps names the archive */
+        public String getName() { return Paths.get(path).getFileName().toString(); }
+
+        public ZipProjectAnalyzer.JDepsResults getViews() { return views; }
+
+        public Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> getClassResults() { return classResults; }
+    }
+
+    /**
+     * Analyzes one JAR. The pool is the one running the task and may be used for nested work.
+     */
+    public interface JarAnalyzer<T> {
+        JarResult analyze(T jar, ForkJoinPool pool) throws Exception;
+    }
+
+    /**
+     * Receives one dependency edge together with the JAR it came from
+     */
+    public interface EdgeVisitor {
+        void visit(String jar, String source, String target, String module) throws IOException;
+    }
+
+    private final List<JarResult> jars;
+    private final Map<String, String> classOwners = new HashMap<>();
+    private final Map<String, String> packageOwners = new HashMap<>();
+    private final Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> classResults = new HashMap<>();
+    private final Map<String, List<String>> duplicateClasses = new TreeMap<>();
+
+    private MultiJarAnalysis(List<JarResult> jars) {
+        super();
+        this.jars = jars;
+        Map<String, String> resultOwners = new HashMap<>();
+        for (JarResult jar : jars) {
+            recordOwners(jar.getViews().verboseAnalysis, jar.getPath(), classOwners);
+            recordOwners(jar.getViews().basicAnalysis, jar.getPath(), packageOwners);
+            if (jar.getClassResults() == null) {
+                continue;
+            }
+            for (Map.Entry<String, ASMBytecodeAnalyzer.ClassAnalysisResult> result : jar.getClassResults().entrySet()) {
+                String owner = resultOwners.putIfAbsent(result.getKey(), jar.getPath());
+                if (owner == null) {
+                    classResults.put(result.getKey(), result.getValue());
+                } else {
+                    duplicateClasses.computeIfAbsent(result.getKey(), name -> new ArrayList<>(List.of(owner)))
+                            .add(jar.getPath());
+                }
+            }
+        }
+    }
+
+    /**
+     * Analyzes the JARs on the process-wide analysis pool, which the classes of each JAR are
+     * analyzed on as well
+     */
+    public static <T> MultiJarAnalysis analyze(List<T> jars, JarAnalyzer<T> analyzer) throws IOException {
+        return analyze(jars, ASMBytecodeAnalyzer.sharedPool(), analyzer);
+    }
+
+    /**
+     * Analyzes the JARs on the given pool, which stays open. A JAR whose analysis fails is
+     * logged and left out.
+     */
+    public static <T> MultiJarAnalysis analyze(List<T> jars, ForkJoinPool pool, JarAnalyzer<T> analyzer) throws IOException {
+        List<Future<JarResult>> futures = new ArrayList<>(jars.size());
+        try {
+            for (T jar : jars) {
+                futures.add(pool.submit(() -> analyzer.analyze(jar, pool)));
+            }
+
+            List<JarResult> results = new ArrayList<>(jars.size());
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    JarResult result = futures.get(i).get();
+                    if (result != null) {
+                        results.add(result);
+                    }
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    // The pool wraps checked exceptions thrown by a Callable
+                    if (cause instanceof RuntimeException && cause.getCause() != null) {
+                        cause = cause.getCause();
+                    }
+                    System.err.println("Error analyzing " + jars.get(i) + ": " + cause.getMessage());
+                }
+            }
+            return new MultiJarAnalysis(results);
+        } catch (InterruptedException e) {
+            // The pool outlives this call, so stop the JARs that have not been analyzed yet
+            for (Future<JarResult> future : futures) {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while analyzing JAR files", e);
+        }
+    }
+
+    public List<JarResult> getJarResults() {
+        return jars;
+    }
+
+    /**
+     * Returns the path of the uploaded JAR that defines the class, or null if none does
+     */
+    public String getOwner(String className) {
+        return classOwners.get(className);
+    }
+
+    /**
+     * Returns the jdeps views of all JARs, one "=== path ===" section per JAR
+     */
+    public ZipProjectAnalyzer.JDepsResults getCombinedResults() {
+        List<String> basic = new ArrayList<>();
+        List<String> verbose = new ArrayList<>();
+        List<String> summary = new ArrayList<>();
+        for (JarResult jar : jars) {
+            String header = "=== " + jar.getPath() + " ===\n";
+            if (jar.getViews().basicAnalysis != null) {
+                basic.add(header + jar.getViews().basicAnalysis);
+            }
+            if (jar.getViews().verboseAnalysis != null) {
+                verbose.add(header + jar.getViews().verboseAnalysis);
+            }
+            if (jar.getViews().summaryAnalysis != null) {
+                summary.add(header + jar.getViews().summaryAnalysis);
+            }
+        }
+
+        ZipProjectAnalyzer.JDepsResults combined = new ZipProjectAnalyzer.JDepsResults();
+        combined.basicAnalysis = String.join("\n\n", basic);
+        combined.verboseAnalysis = String.join("\n\n", verbose);
+        combined.summaryAnalysis = String.join("\n\n", summary);
+        return combined;
+    }
+
+    /**
+     * Returns the ASM results of every class in every JAR. A class defined by several JARs is
+     * taken from the first in upload order, as the class loader would; the others stay in their
+     * {@link JarResult} and are listed by {@link #getDuplicateClasses()}.
+     */
+    public Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> getClassResults() {
+        return Collections.unmodifiableMap(classResults);
+    }
+
+    /**
+     * Returns the classes defined by more than one JAR, each with the paths of those JARs in
+     * upload order
+     */
+    public Map<String, List<String>> getDuplicateClasses() {
+        return Collections.unmodifiableMap(duplicateClasses);
+    }
+
+    /**
+     * Visits the class-level edges of all JARs
+     */
+    public void visitClassEdges(EdgeVisitor visitor) throws IOException {
+        for (JarResult jar : jars) {
+            visitEdges(jar, jar.getViews().verboseAnalysis, classOwners, visitor);
+        }
+    }
+
+    /**
+     * Visits the package-level edges of all JARs
+     */
+    public void visitPackageEdges(EdgeVisitor visitor) throws IOException {
+        for (JarResult jar : jars) {
+            visitEdges(jar, jar.getViews().basicAnalysis, packageOwners, visitor);
+        }
+    }
+
+    /**
+     * Visits the archive-level edges of all JARs. A "not found" edge is replaced by edges to the
+     * uploaded JARs that define the missing classes, and kept only for classes no JAR defines.
+     */
+    public void visitSummaryEdges(EdgeVisitor visitor) throws IOException {
+        for (JarResult jar : jars) {
+            if (jar.getViews().summaryAnalysis == null) {
+                continue;
+            }
+            DependencyGraph summary = DependencyGraph.fromJDepsOutput(jar.getViews().summaryAnalysis,
+                    DependencyGraph.LineFilter.SUMMARY);
+            for (int source = 0; source < summary.nodeCount(); source++) {
+                for (int edge = summary.edgeStart(source); edge < summary.edgeEnd(source); edge++) {
+                    String target = summary.nodeName(summary.edgeTarget(edge));
+                    if (!NOT_FOUND.equals(target)) {
+                        visitor.visit(jar.getPath(), summary.nodeName(source), target, null);
+                        continue;
+                    }
+                    Set<String> targets = resolveMissing(jar);
+                    for (String resolved : targets) {
+                        visitor.visit(jar.getPath(), summary.nodeName(source), resolved, null);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the JARs providing the classes this JAR references but does not contain, plus
+     * "not found" if some of them are in no uploaded JAR
+     */
+    private Set<String> resolveMissing(JarResult jar) {
+        Set<String> targets = new TreeSet<>();
+        if (jar.getViews().verboseAnalysis == null) {
+            targets.add(NOT_FOUND);
+            return targets;
+        }
+        DependencyGraph classes = DependencyGraph.fromJDepsOutput(jar.getViews().verboseAnalysis,
+                DependencyGraph.LineFilter.DEPENDENCIES);
+        for (int edge = 0; edge < classes.edgeCount(); edge++) {
+            if (NOT_FOUND.equals(classes.edgeLabel(edge))) {
+                String owner = classOwners.get(classes.nodeName(classes.edgeTarget(edge)));
+                targets.add(owner != null && !owner.equals(jar.getPath()) ? owner : NOT_FOUND);
+            }
+        }
+        if (targets.isEmpty()) {
+            targets.add(NOT_FOUND);
+        }
+        return targets;
+    }
+
+    private static void visitEdges(JarResult jar, String output, Map<String, String> owners, EdgeVisitor visitor)
+            throws IOException {
+        if (output == null) {
+            return;
+        }
+        DependencyGraph graph = DependencyGraph.fromJDepsOutput(output, DependencyGraph.LineFilter.DEPENDENCIES);
+        for (int source = 0; source < graph.nodeCount(); source++) {
+            for (int edge = graph.edgeStart(source); edge < graph.edgeEnd(source); edge++) {
+                String target = graph.nodeName(graph.edgeTarget(edge));
+                String module = graph.edgeLabel(edge);
+                if (NOT_FOUND.equals(module)) {
+                    String owner = owners.get(target);
+                    if (owner != null && !owner.equals(jar.getPath())) {
+                        module = owner;
+                    }
+                }
+                visitor.visit(jar.getPath(), graph.nodeName(source), target, module);
+            }
+        }
+    }
+
+    /**
+     * Records the JAR each source node (class or package) of a jdeps view belongs to; the
+     * first JAR wins for split packages and duplicate classes
+     */
+    private static void recordOwners(String output, String jarPath, Map<String, String> owners) {
+        if (output == null) {
+            return;
+        }
+        DependencyGraph graph = DependencyGraph.fromJDepsOutput(output, DependencyGraph.LineFilter.DEPENDENCIES);
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            if (graph.outDegree(node) > 0) {
+                owners.putIfAbsent(graph.nodeName(node), jarPath);
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.jdeps;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streaming multipart/form-data parser.
+ * The body is read through one fixed-size buffer; file bytes are written to a channel as soon
+ * as they are known not to be part of a boundary, so memory use does not grow with upload size.
+ */
+public class MultipartStreamParser {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final BoundaryMatcher HEADER_END =
+        new BoundaryMatcher("\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+
+    private final InputStream in;
+    private final byte[] buffer;
+    private final ByteBuffer bufferView;
+    // "--boundary" opens the first part, "\r\n--boundary" ends every part
+    private final BoundaryMatcher dashBoundary;
+    private final BoundaryMatcher delimiter;
+    private int start = 0;
+    private int end = 0;
+
+    public MultipartStreamParser(InputStream in, String boundary) {
+        this(in, boundary, DEFAULT_BUFFER_SIZE);
+    }
+
+    public MultipartStreamParser(InputStream in, String boundary, int bufferSize) {
+        super();
+        this.in = in;
+        this.dashBoundary = new BoundaryMatcher(("--" + boundary).getBytes(StandardCharsets.US_ASCII));
+        this.delimiter = new BoundaryMatcher(("\r\n--" + boundary).getBytes(StandardCharsets.US_ASCII));
+        if (bufferSize < delimiter.length() * 2) {
+            throw new IllegalArgumentException("Buffer size " + bufferSize + " is too small for boundary " + boundary);
+        }
+        this.buffer = new byte[bufferSize];
+        this.bufferView = ByteBuffer.wrap(buffer);
+    }
+
+    /**
+     * Writes the content of the first part that carries a filename to the given file,
+     * skipping any plain form fields before it, and returns the number of bytes written
+     */
+    public long saveFirstFile(Path outputPath) throws IOException {
+        try (FileChannel channel = FileChannel.open(outputPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long written = transferFirstFile(channel);
+            if (written <= 0) {
+                throw new IOException("No file data found");
+            }
+            return written;
+        }
+    }
+
+    /**
+     * Streams the content of the first file part to the channel and returns its length
+     */
+    public long transferFirstFile(WritableByteChannel out) throws IOException {
+        // Skip the preamble up to the opening boundary
+        transferUntil(dashBoundary, null, "No boundary found in multipart data");
+
+        while (true) {
+            require(2, "Multipart body ended after a boundary");
+            if (buffer[start] == '-' && buffer[start + 1] == '-') {
+                throw new IOException("No filename found in multipart headers");
+            }
+
+            // The boundary line's CRLF and the part headers end with an empty line
+            int headerEnd = findInBuffer(HEADER_END, "Could not find end of headers in multipart data");
+            String headers = new String(buffer, start, headerEnd - start, StandardCharsets.UTF_8);
+            start = headerEnd + HEADER_END.length();
+
+            if (headers.contains("filename=")) {
+                return transferUntil(delimiter, out, "Multipart body ended before the closing boundary");
+            }
+            transferUntil(delimiter, null, "Multipart body ended before the closing boundary");
+        }
+    }
+
+    /**
+     * Copies bytes up to the next occurrence of the pattern to the channel (or discards them when
+     * the channel is null) and consumes the pattern. Only the last pattern.length - 1 bytes are
+     * ever held back, since they may be the start of a match split across reads.
+     */
+    private long transferUntil(BoundaryMatcher pattern, WritableByteChannel out, String eofMessage) throws IOException {
+        long transferred = 0;
+        while (true) {
+            int match = pattern.indexOf(buffer, start, end);
+            if (match >= 0) {
+                transferred += write(out, start, match);
+                start = match + pattern.length();
+                return transferred;
+            }
+            int safeEnd = pattern.resumeIndex(start, end);
+            transferred += write(out, start, safeEnd);
+            start = safeEnd;
+            if (!fill()) {
+                throw new IOException(eofMessage);
+            }
+        }
+    }
+
+    /**
+     * Returns the buffer index of the pattern, reading more input until it is found.
+     * The pattern must occur within one buffer's worth of bytes.
+     */
+    private int findInBuffer(BoundaryMatcher pattern, String eofMessage) throws IOException {
+        int from = start;
+        while (true) {
+            int match = pattern.indexOf(buffer, from, end);
+            if (match >= 0) {
+                return match;
+            }
+            if (start == 0 && end == buffer.length) {
+                throw new IOException("Multipart part headers exceed " + buffer.length + " bytes");
+            }
+            // Resume just before the old end, in case the pattern straddles the read
+            int scanned = pattern.resumeIndex(from, end) - start;
+            if (!fill()) {
+                throw new IOException(eofMessage);
+            }
+            from = start + scanned;
+        }
+    }
+
+    private void require(int count, String eofMessage) throws IOException {
+        while (end - start < count) {
+            if (!fill()) {
+                throw new IOException(eofMessage);
+            }
+        }
+    }
+
+    /**
+     * Moves unread bytes to the front of the buffer and reads more input after them
+     */
+    private boolean fill() throws IOException {
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            end -= start;
+            start = 0;
+        }
+        if (end == buffer.length) {
+            return false;
+        }
+        int read = in.read(buffer, end, buffer.length - end);
+        if (read < 0) {
+            return false;
+        }
+        end += read;
+        return true;
+    }
+
+    private int write(WritableByteChannel out, int from, int to) throws IOException {
+        if (out == null || from >= to) {
+            return Math.max(0, to - from);
+        }
+        bufferView.limit(to).position(from);
+        while (bufferView.hasRemaining()) {
+            out.write(bufferView);
+        }
+        return to - from;
+    }
+}
@@ -0,0 +1,315 @@
+package com.example.jdeps;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed cache of generated reports, keyed by the SHA-256 of the uploaded ZIP
+ * combined with the analyzer's report format version and the settings that shape a report.
+ * Each entry is a small file under {@code <reportsDir>/.report-cache} naming its report
+ * directory and recording the report's size when it was stored; the entry's modification time
+ * is its last use, so the cache survives restarts and evicts least recently used reports once
+ * the entry or size limit is exceeded without walking the cached reports.
+ */
+public class ReportCache {
+
+    /** System property that disables the cache when set to false */
+    public static final String ENABLED_PROPERTY = "report.cache.enabled";
+
+    /** System property for the maximum number of cached reports */
+    public static final String MAX_ENTRIES_PROPERTY = "report.cache.maxEntries";
+
+    /** System property for the maximum total size of cached reports, in megabytes */
+    public static final String MAX_MEGABYTES_PROPERTY = "report.cache.maxMegabytes";
+
+    /** Version of the analysis and report output; bump it when either changes so older reports are not reused */
+    static final int FORMAT_VERSION = 1;
+
+    private static final String CACHE_DIR = ".report-cache";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    // Entries are shared by every analyzer writing to the same reports directory
+    private static final Object LOCK = new Object();
+
+    private final Path reportsDir;
+    private final Path entriesDir;
+    private final int maxEntries;
+    private final long maxBytes;
+
+    public ReportCache(Path reportsDir) {
+        this(reportsDir, Integer.getInteger(MAX_ENTRIES_PROPERTY, 100),
+             Long.getLong(MAX_MEGABYTES_PROPERTY, 1024L) * 1024 * 1024);
+    }
+
+    public ReportCache(Path reportsDir, int maxEntries, long maxBytes) {
+        super();
+        this.reportsDir = reportsDir;
+        this.entriesDir = reportsDir.resolve(CACHE_DIR);
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns true unless the cache was disabled through {@value #ENABLED_PROPERTY}
+     */
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"));
+    }
+
+    /**
+     * Returns the hex SHA-256 digest of a file's contents
+     */
+    public static String sha256(Path file) throws IOException {
+        MessageDigest digest = newSha256();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Returns the cache key of an upload: the SHA-256 of the ZIP's contents combined with
+     * {@link #configuration()}, so a report is only reused under the settings that produced it
+     */
+    public static String key(Path zipFile) throws IOException {
+        MessageDigest digest = newSha256();
+        digest.update(sha256(zipFile).getBytes(StandardCharsets.UTF_8));
+        digest.update(configuration().getBytes(StandardCharsets.UTF_8));
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Returns the report format version and the effective dependency engine, class analysis
+     * mode and compiler
+     */
+    static String configuration() {
+        return "format=" + FORMAT_VERSION
+            + ";engine=" + (BytecodeDependencyExtractor.isEnabled() ? "asm" : "jdeps")
+            + ";allocationLight=" + ASMBytecodeAnalyzer.isAllocationLight()
+            + ";compiler=" + (InMemoryCompiler.isEnabled() ? "inprocess" : "javac");
+    }
+
+    static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Returns the absolute path of the cached report for the digest, or null on a miss.
+     * A hit marks the entry as most recently used.
+     */
+    public String lookup(String digest) throws IOException {
+        synchronized (LOCK) {
+            Path reportDir = liveReport(entriesDir.resolve(digest));
+            if (reportDir == null) {
+                return null;
+            }
+            Files.setLastModifiedTime(entriesDir.resolve(digest), FileTime.fromMillis(System.currentTimeMillis()));
+            return reportDir.toAbsolutePath().toString();
+        }
+    }
+
+    /**
+     * Records the report generated for the digest, then evicts old reports over the limits, and
+     * returns the path to serve. When a concurrent analysis of the same upload stored its report
+     * first, the given report is deleted as a duplicate and the cached one is returned instead.
+     */
+    public String store(String digest, String reportPath) throws IOException {
+        synchronized (LOCK) {
+            Path entry = entriesDir.resolve(digest);
+            Path reportDir = Paths.get(reportPath).toAbsolutePath().normalize();
+            Path cached = liveReport(entry);
+            if (cached != null && !cached.toAbsolutePath().normalize().equals(reportDir)) {
+                System.out.println("Discarding duplicate report " + reportDir + " for cached " + cached);
+                deleteDirectory(reportDir);
+                Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+                return cached.toAbsolutePath().toString();
+            }
+            Files.createDirectories(entriesDir);
+            // The report is complete when stored, so its size is measured once here
+            writeEntry(entry, reportsDir.toAbsolutePath().normalize().relativize(reportDir).toString(),
+                    directorySize(reportDir));
+            evict();
+            return reportPath;
+        }
+    }
+
+    /**
+     * Returns the report directory of an entry, or null if the entry does not exist, is corrupt
+     * or its report is gone. Corrupt and stale entries are deleted; their directories never are.
+     */
+    private Path liveReport(Path entry) throws IOException {
+        if (!Files.exists(entry)) {
+            return null;
+        }
+        Path reportDir = reportDir(readEntry(entry));
+        if (reportDir == null) {
+            System.err.println("Deleting corrupt report cache entry: " + entry);
+            Files.deleteIfExists(entry);
+            return null;
+        }
+        if (!Files.isDirectory(reportDir)) {
+            // The report was removed behind the cache's back
+            Files.deleteIfExists(entry);
+            return null;
+        }
+        return reportDir;
+    }
+
+    /**
+     * Resolves the report directory named by an entry, or returns null unless it is a strict
+     * child of the reports directory outside the cache's own directory
+     */
+    private Path reportDir(List<String> lines) {
+        String name = lines.get(0);
+        if (name.isEmpty()) {
+            return null;
+        }
+        Path root = reportsDir.toAbsolutePath().normalize();
+        Path reportDir;
+        try {
+            reportDir = root.resolve(name).normalize();
+        } catch (InvalidPathException e) {
+            return null;
+        }
+        if (!reportDir.startsWith(root) || reportDir.equals(root)
+                || reportDir.startsWith(entriesDir.toAbsolutePath().normalize())) {
+            return null;
+        }
+        return reportDir;
+    }
+
+    private void evict() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(entriesDir)) {
+            for (Path entry : stream) {
+                if (entry.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                    continue;
+                }
+                if (reportDir(readEntry(entry)) == null) {
+                    System.err.println("Deleting corrupt report cache entry: " + entry);
+                    Files.deleteIfExists(entry);
+                    continue;
+                }
+                entries.add(entry);
+            }
+        }
+        Map<Path, FileTime> lastUsed = new HashMap<>();
+        for (Path entry : entries) {
+            lastUsed.put(entry, Files.getLastModifiedTime(entry));
+        }
+        entries.sort(Comparator.comparing(lastUsed::get));
+
+        Map<Path, Long> sizes = new HashMap<>();
+        long totalBytes = 0;
+        for (Path entry : entries) {
+            long size = recordedSize(entry, lastUsed.get(entry));
+            sizes.put(entry, size);
+            totalBytes += size;
+        }
+
+        // Oldest first; the entry just stored is the newest and is always kept
+        int remaining = entries.size();
+        for (Path entry : entries) {
+            if (remaining <= 1 || (remaining <= maxEntries && totalBytes <= maxBytes)) {
+                break;
+            }
+            Path reportDir = reportDir(readEntry(entry));
+            System.out.println("Evicting cached report: " + reportDir);
+            deleteDirectory(reportDir);
+            Files.deleteIfExists(entry);
+            totalBytes -= sizes.get(entry);
+            remaining--;
+        }
+    }
+
+    /**
+     * Returns the report size recorded in the entry. Entries written before sizes were recorded
+     * are measured once and rewritten, keeping their last use.
+     */
+    private long recordedSize(Path entry, FileTime lastUsed) throws IOException {
+        List<String> lines = readEntry(entry);
+        if (lines.size() > 1) {
+            try {
+                return Long.parseLong(lines.get(1));
+            } catch (NumberFormatException e) {
+                System.err.println("Remeasuring cached report with invalid size: " + entry);
+            }
+        }
+        long size = directorySize(reportDir(lines));
+        writeEntry(entry, lines.get(0), size);
+        Files.setLastModifiedTime(entry, lastUsed);
+        return size;
+    }
+
+    private static List<String> readEntry(Path entry) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(entry, StandardCharsets.UTF_8)) {
+            lines.add(line.trim());
+        }
+        if (lines.isEmpty()) {
+            lines.add("");
+        }
+        return lines;
+    }
+
+    /**
+     * Writes an entry to a temporary file and moves it into place, so a reader never sees a
+     * partly written entry
+     */
+    private static void writeEntry(Path entry, String reportDir, long size) throws IOException {
+        Path temp = Files.createTempFile(entry.getParent(), entry.getFileName().toString(), TEMP_SUFFIX);
+        try {
+            Files.write(temp, (reportDir + "\n" + size + "\n").getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static long directorySize(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    private static void deleteDirectory(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    System.err.println("Failed to delete: " + path);
+                }
+            });
+        }
+    }
+}
@@ -57,24 +57,10 @@ public class SimpleJDepsReportGenerator {
     
     private static String runJDepsCommand(String jarPath, String... options) {
         try {
-            List<String> command = new ArrayList<>();
-            command.add("jdeps");
-            command.addAll(Arrays.asList(options));
-            command.add(jarPath);
+            List<String> args = new ArrayList<>(Arrays.asList(options));
+            args.add(jarPath);
             
-            ProcessBuilder pb = new ProcessBuilder(command);
-            Process process = pb.start();
-            
-            StringBuilder output = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
-                }
-            }
-            
-            process.waitFor();
-            return output.toString();
+            return JDepsRunner.execute(args).getOutput();
             
         } catch (Exception e) {
             System.err.println("Error running JDeps command: " + e.getMessage());
@@ -0,0 +1,249 @@
+package com.example.jdeps;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe table that interns bytecode symbols to compact int IDs.
+ * Owners, names and descriptors are interned once as atoms; method, field and type
+ * references are interned as members made of atom IDs, so no concatenated strings
+ * are created while classes are analyzed. Each analysis uses its own table, shared by the
+ * results of all its classes, so the symbols are released together with the results.
+ */
+public class SymbolTable {
+
+    public static final int KIND_METHOD = 0;
+    public static final int KIND_FIELD = 1;
+    public static final int KIND_TYPE = 2;
+
+    // Lookup key reused by each thread, so a member that is already interned allocates nothing
+    private static final ThreadLocal<MemberKey> PROBE = ThreadLocal.withInitial(() -> new MemberKey(0, 0, 0, 0));
+
+    private final ConcurrentHashMap<String, Integer> atomIds = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<MemberKey, Integer> memberIds = new ConcurrentHashMap<>();
+    private final Object atomLock = new Object();
+    private final Object memberLock = new Object();
+    private volatile String[] atoms = new String[64];
+    private volatile int[] members = new int[64 * 4];
+    private int atomCount = 0;
+    private int memberCount = 0;
+
+    public SymbolTable() {
+        super();
+    }
+
+    /**
+     * Returns the ID of the given string, assigning a new one if it has not been seen before
+     */
+    public int intern(String symbol) {
+        Integer id = atomIds.get(symbol);
+        if (id != null) {
+            return id;
+        }
+        synchronized (atomLock) {
+            id = atomIds.get(symbol);
+            if (id != null) {
+                return id;
+            }
+            String[] current = atoms;
+            if (atomCount == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[atomCount] = symbol;
+            // Publish the array before the ID so readers that see the ID also see the entry
+            atoms = current;
+            atomIds.put(symbol, atomCount);
+            return atomCount++;
+        }
+    }
+
+    /**
+     * Returns the ID of the given string, or -1 if it has never been interned
+     */
+    public int find(String symbol) {
+        Integer id = atomIds.get(symbol);
+        return id != null ? id : -1;
+    }
+
+    public String atom(int id) {
+        return atoms[id];
+    }
+
+    /**
+     * Interns a method reference (owner.name + descriptor)
+     */
+    public int internMethod(String owner, String name, String descriptor) {
+        return internMember(KIND_METHOD, intern(owner), intern(name), intern(descriptor));
+    }
+
+    /**
+     * Interns a field reference (owner.name)
+     */
+    public int internField(String owner, String name) {
+        return internMember(KIND_FIELD, intern(owner), intern(name), -1);
+    }
+
+    /**
+     * Interns a type reference from a type instruction
+     */
+    public int internType(String type) {
+        return internMember(KIND_TYPE, intern(type), -1, -1);
+    }
+
+    /**
+     * Interns a method reference from the atom IDs of its owner, name and descriptor
+     */
+    public int internMethod(int owner, int name, int descriptor) {
+        return internMember(KIND_METHOD, owner, name, descriptor);
+    }
+
+    /**
+     * Interns a field reference from the atom IDs of its owner and name
+     */
+    public int internField(int owner, int name) {
+        return internMember(KIND_FIELD, owner, name, -1);
+    }
+
+    /**
+     * Interns a type reference from the atom ID of the type
+     */
+    public int internType(int type) {
+        return internMember(KIND_TYPE, type, -1, -1);
+    }
+
+    private int internMember(int kind, int owner, int name, int descriptor) {
+        Integer id = memberIds.get(PROBE.get().set(kind, owner, name, descriptor));
+        if (id != null) {
+            return id;
+        }
+        MemberKey key = new MemberKey(kind, owner, name, descriptor);
+        synchronized (memberLock) {
+            id = memberIds.get(key);
+            if (id != null) {
+                return id;
+            }
+            int[] current = members;
+            int offset = memberCount * 4;
+            if (offset == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[offset] = kind;
+            current[offset + 1] = owner;
+            current[offset + 2] = name;
+            current[offset + 3] = descriptor;
+            members = current;
+            memberIds.put(key, memberCount);
+            return memberCount++;
+        }
+    }
+
+    /**
+     * Returns the ID of the member matching the given string form, or -1 if it has never been interned
+     */
+    public int findMember(String member) {
+        if (member.startsWith("TYPE:")) {
+            return findMember(KIND_TYPE, find(member.substring(5)), -1, -1);
+        }
+        int dot = member.lastIndexOf('.', member.indexOf('(') >= 0 ? member.indexOf('(') : member.length());
+        if (dot < 0) {
+            return -1;
+        }
+        int owner = find(member.substring(0, dot));
+        int paren = member.indexOf('(', dot);
+        if (paren < 0) {
+            return findMember(KIND_FIELD, owner, find(member.substring(dot + 1)), -1);
+        }
+        return findMember(KIND_METHOD, owner, find(member.substring(dot + 1, paren)), find(member.substring(paren)));
+    }
+
+    private int findMember(int kind, int owner, int name, int descriptor) {
+        if (owner < 0 || (kind != KIND_TYPE && name < 0) || (kind == KIND_METHOD && descriptor < 0)) {
+            return -1;
+        }
+        Integer id = memberIds.get(PROBE.get().set(kind, owner, name, descriptor));
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Rebuilds the string form of a member, matching the format used by the tree-based analyzer
+     */
+    public String member(int id) {
+        int[] current = members;
+        int offset = id * 4;
+        switch (current[offset]) {
+            case KIND_METHOD:
+                return atom(current[offset + 1]) + "." + atom(current[offset + 2]) + atom(current[offset + 3]);
+            case KIND_FIELD:
+                return atom(current[offset + 1]) + "." + atom(current[offset + 2]);
+            default:
+                return "TYPE:" + atom(current[offset + 1]);
+        }
+    }
+
+    /** Kind of an interned member: {@link #KIND_METHOD}, {@link #KIND_FIELD} or {@link #KIND_TYPE} */
+    public int memberKind(int id) {
+        return members[id * 4];
+    }
+
+    /** Atom ID of the member's owner, or of the type for a type reference */
+    public int memberOwner(int id) {
+        return members[id * 4 + 1];
+    }
+
+    /** Atom ID of the member's name, or -1 for a type reference */
+    public int memberName(int id) {
+        return members[id * 4 + 2];
+    }
+
+    /** Atom ID of a method's descriptor, or -1 for fields and type references */
+    public int memberDescriptor(int id) {
+        return members[id * 4 + 3];
+    }
+
+    public int getAtomCount() {
+        return atomIds.size();
+    }
+
+    public int getMemberCount() {
+        return memberIds.size();
+    }
+
+    /**
+     * Member identity. Keys stored in the map are never changed; only the per-thread probe is reset.
+     */
+    private static final class MemberKey {
+        private int kind;
+        private int owner;
+        private int name;
+        private int descriptor;
+
+        MemberKey(int kind, int owner, int name, int descriptor) {
+            super();
+            set(kind, owner, name, descriptor);
+        }
+
+        MemberKey set(int kind, int owner, int name, int descriptor) {
+            this.kind = kind;
+            this.owner = owner;
+            this.name = name;
+            this.descriptor = descriptor;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MemberKey)) return false;
+            MemberKey other = (MemberKey) o;
+            return kind == other.kind && owner == other.owner && name == other.name && descriptor == other.descriptor;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = kind;
+            h = 31 * h + owner;
+            h = 31 * h + name;
+            return 31 * h + descriptor;
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package com.example.jdeps;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Generates large synthetic projects for benchmarks and load tests, either as a JAR of class
+ * files written with ASM or as a ZIP of Java sources that compiles to the same dependency
+ * structure. Classes are spread over a package tree, each depends on a configurable number of
+ * other classes through fields and static calls, and a configurable fraction of classes also
+ * depends on a later class, which closes a dependency cycle. The same seed always produces the
+ * same project.
+ *
+ * <pre>
+ * java -cp target/classes:... com.example.jdeps.SyntheticProjectGenerator jar|sources|jar-zip output [key=value...]
+ * </pre>
+ * with keys {@code classes}, {@code classesPerPackage}, {@code packageFanOut}, {@code dependencies},
+ * {@code cycles}, {@code methods}, {@code complexity} and {@code seed}.
+ */
+public class SyntheticProjectGenerator {
+
+    private static final String ROOT_PACKAGE = "synthetic";
+    private static final int MAX_CYCLE_LENGTH = 8;
+
+    private int classCount = 1000;
+    private int classesPerPackage = 20;
+    private int packageFanOut = 4;
+    private int dependenciesPerClass = 3;
+    private double cycleRatio = 0.0;
+    private int methodsPerClass = 2;
+    private int methodComplexity = 5;
+    private long seed = 42;
+
+    public SyntheticProjectGenerator() {
+        super();
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: SyntheticProjectGenerator jar|sources|jar-zip <output> [key=value...]");
+            System.exit(1);
+        }
+
+        try {
+            SyntheticProjectGenerator generator = new SyntheticProjectGenerator()
+                .configure(Arrays.copyOfRange(args, 2, args.length));
+            Path output = Paths.get(args[1]);
+            if ("jar".equals(args[0])) {
+                generator.writeJar(output);
+            } else if ("sources".equals(args[0])) {
+                generator.writeSourceZip(output);
+            } else if ("jar-zip".equals(args[0])) {
+                generator.writeJarZip(output);
+            } else {
+                throw new IllegalArgumentException("Unknown output kind: " + args[0]);
+            }
+            System.out.println("Generated " + generator.getClassCount() + " classes in " + output.toAbsolutePath());
+        } catch (Exception e) {
+            System.err.println("Error generating project: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Applies {@code key=value} settings as accepted by {@link #main(String[])}
+     */
+    public SyntheticProjectGenerator configure(String... settings) {
+        for (String setting : settings) {
+            int equals = setting.indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("Expected key=value: " + setting);
+            }
+            String key = setting.substring(0, equals);
+            String value = setting.substring(equals + 1);
+            switch (key) {
+                case "classes": classCount(Integer.parseInt(value)); break;
+                case "classesPerPackage": classesPerPackage(Integer.parseInt(value)); break;
+                case "packageFanOut": packageFanOut(Integer.parseInt(value)); break;
+                case "dependencies": dependenciesPerClass(Integer.parseInt(value)); break;
+                case "cycles": cycleRatio(Double.parseDouble(value)); break;
+                case "methods": methodsPerClass(Integer.parseInt(value)); break;
+                case "complexity": methodComplexity(Integer.parseInt(value)); break;
+                case "seed": seed(Long.parseLong(value)); break;
+                default: throw new IllegalArgumentException("Unknown setting: " + key);
+            }
+        }
+        return this;
+    }
+
+    public SyntheticProjectGenerator classCount(int classCount) {
+        this.classCount = Math.max(1, classCount);
+        return this;
+    }
+
+    public SyntheticProjectGenerator classesPerPackage(int classesPerPackage) {
+        this.classesPerPackage = Math.max(1, classesPerPackage);
+        return this;
+    }
+
+    /**
+     * Sets the number of subpackages below each package of the package tree
+     */
+    public SyntheticProjectGenerator packageFanOut(int packageFanOut) {
+        this.packageFanOut = Math.max(1, packageFanOut);
+        return this;
+    }
+
+    public SyntheticProjectGenerator dependenciesPerClass(int dependenciesPerClass) {
+        this.dependenciesPerClass = Math.max(0, dependenciesPerClass);
+        return this;
+    }
+
+    /**
+     * Sets the fraction of classes, between 0 and 1, that also depend on a later class and so
+     * close a cycle; with 0 the class dependency graph is acyclic
+     */
+    public SyntheticProjectGenerator cycleRatio(double cycleRatio) {
+        this.cycleRatio = Math.min(1.0, Math.max(0.0, cycleRatio));
+        return this;
+    }
+
+    public SyntheticProjectGenerator methodsPerClass(int methodsPerClass) {
+        this.methodsPerClass = Math.max(1, methodsPerClass);
+        return this;
+    }
+
+    /**
+     * Sets the number of conditional branches in each generated method, before its switch
+     */
+    public SyntheticProjectGenerator methodComplexity(int methodComplexity) {
+        this.methodComplexity = Math.max(0, methodComplexity);
+        return this;
+    }
+
+    public SyntheticProjectGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the internal name of the class with the given index
+     */
+    public String className(int index) {
+        return packageName(index / classesPerPackage).replace('.', '/') + "/C" + index;
+    }
+
+    /**
+     * Returns the dotted name of a package; package 0 is the root and the children of package
+     * {@code k} are {@code k * fanOut + 1} to {@code k * fanOut + fanOut}
+     */
+    String packageName(int packageIndex) {
+        if (packageIndex == 0) {
+            return ROOT_PACKAGE;
+        }
+        int parent = (packageIndex - 1) / packageFanOut;
+        return packageName(parent) + ".p" + ((packageIndex - 1) % packageFanOut);
+    }
+
+    /**
+     * Returns the indexes of the classes the given class depends on. The first dependency is
+     * always the previous class and the others are random earlier classes, which keeps the
+     * graph acyclic; the optional extra dependency on one of the next few classes then closes a
+     * cycle back through that chain.
+     */
+    public int[] dependencies(int index) {
+        Random random = new Random(seed * 31 + index);
+        int count = Math.min(dependenciesPerClass, index);
+        boolean cycle = dependenciesPerClass > 0 && index < classCount - 1 && random.nextDouble() < cycleRatio;
+        int[] targets = new int[count + (cycle ? 1 : 0)];
+        for (int k = 0; k < count; k++) {
+            targets[k] = k == 0 ? index - 1 : random.nextInt(index);
+        }
+        if (cycle) {
+            targets[count] = index + 1 + random.nextInt(Math.min(MAX_CYCLE_LENGTH, classCount - index - 1));
+        }
+        return targets;
+    }
+
+    /**
+     * Writes every class to a JAR
+     */
+    public void writeJar(Path jarPath) throws IOException {
+        try (OutputStream out = JsonFiles.newOutputStream(jarPath)) {
+            writeJar(out);
+        }
+    }
+
+    public void writeJar(OutputStream out) throws IOException {
+        JarOutputStream jar = new JarOutputStream(out);
+        for (int i = 0; i < classCount; i++) {
+            jar.putNextEntry(new JarEntry(className(i) + ".class"));
+            jar.write(generateClass(i));
+            jar.closeEntry();
+        }
+        jar.finish();
+    }
+
+    /**
+     * Writes a ZIP holding the JAR under {@code lib/}, the layout of an uploaded deployed application
+     */
+    public void writeJarZip(Path zipPath) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(JsonFiles.newOutputStream(zipPath))) {
+            zip.putNextEntry(new ZipEntry("lib/" + ROOT_PACKAGE + "-" + classCount + ".jar"));
+            writeJar(zip);
+            zip.closeEntry();
+        }
+    }
+
+    /**
+     * Writes a ZIP of Java sources under {@code src/main/java/}, the layout of an uploaded source project
+     */
+    public void writeSourceZip(Path zipPath) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(JsonFiles.newOutputStream(zipPath))) {
+            for (int i = 0; i < classCount; i++) {
+                zip.putNextEntry(new ZipEntry("src/main/java/" + className(i) + ".java"));
+                zip.write(generateSource(i).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Generates the class file of one class
+     */
+    public byte[] generateClass(int index) {
+        String name = className(index);
+        int[] dependencies = dependencies(index);
+
+        // Only ints and "this" are live at branch targets, so frames never need a common superclass
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+        writer.visit(Opcodes.V11, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, "java/lang/Object",
+                new String[] {"java/io/Serializable"});
+        for (int k = 0; k < dependencies.length; k++) {
+            writer.visitField(Opcodes.ACC_PRIVATE, "ref" + k, "L" + className(dependencies[k]) + ";", null, null)
+                .visitEnd();
+        }
+
+        MethodVisitor init = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        init.visitCode();
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        init.visitInsn(Opcodes.RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        MethodVisitor dep = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "dep", "(I)I", null, null);
+        dep.visitCode();
+        dep.visitVarInsn(Opcodes.ILOAD, 0);
+        dep.visitInsn(Opcodes.ICONST_1);
+        dep.visitInsn(Opcodes.IADD);
+        dep.visitInsn(Opcodes.IRETURN);
+        dep.visitMaxs(0, 0);
+        dep.visitEnd();
+
+        for (int m = 0; m < methodsPerClass; m++) {
+            generateRunMethod(writer, m, dependencies);
+        }
+
+        MethodVisitor collect = writer.visitMethod(Opcodes.ACC_PUBLIC, "collect", "()I", null, null);
+        collect.visitCode();
+        collect.visitTypeInsn(Opcodes.NEW, "java/util/ArrayList");
+        collect.visitInsn(Opcodes.DUP);
+        collect.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/util/ArrayList", "<init>", "()V", false);
+        collect.visitVarInsn(Opcodes.ASTORE, 1);
+        for (int k = 0; k < dependencies.length; k++) {
+            collect.visitVarInsn(Opcodes.ALOAD, 1);
+            collect.visitVarInsn(Opcodes.ALOAD, 0);
+            collect.visitFieldInsn(Opcodes.GETFIELD, name, "ref" + k, "L" + className(dependencies[k]) + ";");
+            collect.visitMethodInsn(Opcodes.INVOKEINTERFACE, "java/util/List", "add", "(Ljava/lang/Object;)Z", true);
+            collect.visitInsn(Opcodes.POP);
+        }
+        collect.visitVarInsn(Opcodes.ALOAD, 1);
+        collect.visitMethodInsn(Opcodes.INVOKEINTERFACE, "java/util/List", "size", "()I", true);
+        collect.visitInsn(Opcodes.IRETURN);
+        collect.visitMaxs(0, 0);
+        collect.visitEnd();
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private void generateRunMethod(ClassWriter writer, int method, int[] dependencies) {
+        MethodVisitor run = writer.visitMethod(Opcodes.ACC_PUBLIC, "run" + method, "(I)I", null, null);
+        run.visitCode();
+        for (int b = 0; b < methodComplexity; b++) {
+            Label skip = new Label();
+            run.visitVarInsn(Opcodes.ILOAD, 1);
+            run.visitIntInsn(Opcodes.SIPUSH, b);
+            run.visitJumpInsn(Opcodes.IF_ICMPLE, skip);
+            run.visitIincInsn(1, b + 1);
+            run.visitLabel(skip);
+        }
+        for (int target : dependencies) {
+            run.visitVarInsn(Opcodes.ILOAD, 1);
+            run.visitMethodInsn(Opcodes.INVOKESTATIC, className(target), "dep", "(I)I", false);
+            run.visitVarInsn(Opcodes.ISTORE, 1);
+        }
+        Label[] cases = {new Label(), new Label(), new Label()};
+        Label defaultCase = new Label();
+        Label end = new Label();
+        run.visitVarInsn(Opcodes.ILOAD, 1);
+        run.visitTableSwitchInsn(0, cases.length - 1, defaultCase, cases);
+        for (int c = 0; c < cases.length; c++) {
+            run.visitLabel(cases[c]);
+            run.visitIincInsn(1, c + 2);
+            run.visitJumpInsn(Opcodes.GOTO, end);
+        }
+        run.visitLabel(defaultCase);
+        run.visitIincInsn(1, -1);
+        run.visitLabel(end);
+        run.visitVarInsn(Opcodes.ILOAD, 1);
+        run.visitInsn(Opcodes.IRETURN);
+        run.visitMaxs(0, 0);
+        run.visitEnd();
+    }
+
+    /**
+     * Generates the Java source of one class, with the same members and dependencies as
+     * {@link #generateClass(int)}
+     */
+    public String generateSource(int index) {
+        String name = className(index);
+        int slash = name.lastIndexOf('/');
+        int[] dependencies = dependencies(index);
+
+        StringBuilder source = new StringBuilder(1024);
+        source.append("package ").append(name.substring(0, slash).replace('/', '.')).append(";\n\n")
+              .append("public class ").append(name.substring(slash + 1)).append(" implements java.io.Serializable {\n");
+        for (int k = 0; k < dependencies.length; k++) {
+            source.append("    private ").append(className(dependencies[k]).replace('/', '.'))
+                  .append(" ref").append(k).append(";\n");
+        }
+        source.append("\n    public static int dep(int x) {\n        return x + 1;\n    }\n");
+
+        for (int m = 0; m < methodsPerClass; m++) {
+            source.append("\n    public int run").append(m).append("(int x) {\n");
+            for (int b = 0; b < methodComplexity; b++) {
+                source.append("        if (x > ").append(b).append(") {\n            x += ").append(b + 1)
+                      .append(";\n        }\n");
+            }
+            for (int target : dependencies) {
+                source.append("        x = ").append(className(target).replace('/', '.')).append(".dep(x);\n");
+            }
+            source.append("        switch (x) {\n")
+                  .append("            case 0: x += 2; break;\n")
+                  .append("            case 1: x += 3; break;\n")
+                  .append("            case 2: x += 4; break;\n")
+                  .append("            default: x -= 1;\n")
+                  .append("        }\n")
+                  .append("        return x;\n    }\n");
+        }
+
+        source.append("\n    public int collect() {\n")
+              .append("        java.util.List<Object> values = new java.util.ArrayList<>();\n");
+        for (int k = 0; k < dependencies.length; k++) {
+            source.append("        values.add(ref").append(k).append(");\n");
+        }
+        source.append("        return values.size();\n    }\n}\n");
+        return source.toString();
+    }
+}
@@ -1,21 +1,56 @@
 package com.example.jdeps;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
-import java.util.regex.Pattern;
+import java.util.zip.ZipFile;
 
 /**
  * Backend service for processing uploaded ZIP files and generating JDeps reports
  */
 public class ZipProjectAnalyzer {
 
+    /** System property for the number of threads running analysis stages side by side */
+    public static final String STAGE_THREADS_PROPERTY = "analysis.stageThreads";
+
+    /**
+     * Receives coarse progress updates while a project is analyzed
+     */
+    public interface ProgressListener {
+        void onProgress(int percent, String stage);
+    }
+
+    private ProgressListener progressListener = (percent, stage) -> { };
+    private final AnalysisMetrics metrics = AnalysisMetrics.shared();
+
     public ZipProjectAnalyzer() {
         super();
     }
+
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+    
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
     
+    // Runs independent stages of an analysis side by side, such as jdeps next to the ASM pass.
+    // Stages never wait on each other, so a fixed pool only queues them and cannot deadlock.
+    private static final AtomicInteger STAGE_THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService STAGE_EXECUTOR = Executors.newFixedThreadPool(
+        Math.max(1, Integer.getInteger(STAGE_THREADS_PROPERTY, ASMBytecodeAnalyzer.getAnalysisParallelism())), task -> {
+            Thread thread = new Thread(task, "analysis-stage-" + STAGE_THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     private static final String UPLOAD_DIR = "uploads";
     private static final String REPORTS_DIR = "web-reports";
     private static final long MAX_FILE_SIZE = 100 * 1024 * 1024; // 100MB
@@ -49,23 +84,57 @@ public class ZipProjectAnalyzer {
             throw new IOException("File size exceeds limit of " + (MAX_FILE_SIZE / 1024 / 1024) + "MB");
         }
         
+        try (AnalysisMetrics.Timer timer = metrics.time("total")) {
+            timer.addBytes(Files.size(zipPath));
+            return analyzeValidatedZip(zipPath);
+        }
+    }
+    
+    private String analyzeValidatedZip(Path zipPath) throws IOException {
         // Create working directories
         Path uploadDir = createWorkingDirectory(UPLOAD_DIR);
         Path reportsDir = createWorkingDirectory(REPORTS_DIR);
         
-        // Extract ZIP file
+        // Identical uploads reuse the report generated for the same ZIP contents and settings
+        ReportCache reportCache = ReportCache.isEnabled() ? new ReportCache(reportsDir) : null;
+        String reportKey = null;
+        if (reportCache != null) {
+            reportKey = ReportCache.key(zipPath);
+            String cachedReport = reportCache.lookup(reportKey);
+            metrics.recordCacheLookup("report", cachedReport != null);
+            if (cachedReport != null) {
+                System.out.println("Reusing cached report for " + reportKey + ": " + cachedReport);
+                progressListener.onProgress(100, "Reusing cached report");
+                return cachedReport;
+            }
+        }
+        
+        // Analyze the project straight from the archive; only files a tool needs on disk are extracted
         String projectName = extractProjectName(zipPath);
-        Path extractedDir = uploadDir.resolve(projectName);
-        extractZipFile(zipPath, extractedDir);
+        Path workDir = uploadDir.resolve(projectName);
+        if (Files.exists(workDir)) {
+            cleanupDirectory(workDir);
+        }
         
-        // Analyze the project
-        ProjectAnalysis analysis = analyzeExtractedProject(extractedDir);
+        ProjectAnalysis analysis;
+        try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
+            analysis = analyzeArchive(zipFile, workDir, projectName);
+        }
         
         // Generate report
-        String reportPath = generateWebReport(analysis, reportsDir, projectName);
+        progressListener.onProgress(90, "Generating report");
+        String reportPath;
+        try (AnalysisMetrics.Timer timer = metrics.time("report")) {
+            reportPath = generateWebReport(analysis, reportsDir, projectName);
+            timer.addClasses(analysis.asmResults != null ? analysis.asmResults.size() : 0);
+        }
         
         // Cleanup extracted files
-        cleanupDirectory(extractedDir);
+        cleanupDirectory(workDir);
+        
+        if (reportCache != null && reportPath != null) {
+            reportPath = reportCache.store(reportKey, reportPath);
+        }
         
         return reportPath;
     }
@@ -84,17 +153,15 @@ public class ZipProjectAnalyzer {
         return lastDot > 0 ? fileName.substring(0, lastDot) : fileName;
     }
     
-    private void extractZipFile(Path zipPath, Path extractDir) throws IOException {
-        System.out.println("Extracting ZIP file to: " + extractDir);
-        
-        if (Files.exists(extractDir)) {
-            cleanupDirectory(extractDir);
-        }
+    /**
+     * Extracts the given entries below the target directory and returns their absolute paths
+     */
+    private List<String> extractEntries(ZipFile zipFile, List<ZipEntry> entries, Path extractDir) throws IOException {
         Files.createDirectories(extractDir);
+        List<String> extracted = new ArrayList<>(entries.size());
         
-        try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(zipPath))) {
-            ZipEntry entry;
-            while ((entry = zis.getNextEntry()) != null) {
+        try (AnalysisMetrics.Timer timer = metrics.time("extract")) {
+            for (ZipEntry entry : entries) {
                 Path targetPath = extractDir.resolve(entry.getName());
                 
                 // Security check: prevent path traversal
@@ -102,135 +169,296 @@ public class ZipProjectAnalyzer {
                     throw new IOException("Invalid ZIP entry: " + entry.getName());
                 }
                 
-                if (entry.isDirectory()) {
-                    Files.createDirectories(targetPath);
-                } else {
-                    Files.createDirectories(targetPath.getParent());
-                    Files.copy(zis, targetPath, StandardCopyOption.REPLACE_EXISTING);
+                Files.createDirectories(targetPath.getParent());
+                try (InputStream in = zipFile.getInputStream(entry)) {
+                    timer.addBytes(Files.copy(in, targetPath, StandardCopyOption.REPLACE_EXISTING));
                 }
-                zis.closeEntry();
+                extracted.add(targetPath.toAbsolutePath().toString());
             }
         }
+        return extracted;
     }
     
-    private ProjectAnalysis analyzeExtractedProject(Path projectDir) throws IOException {
-        System.out.println("Analyzing extracted project: " + projectDir);
+    private ProjectAnalysis analyzeArchive(ZipFile zipFile, Path workDir, String projectName) throws IOException {
+        System.out.println("Analyzing archive: " + zipFile.getName());
         
         ProjectAnalysis analysis = new ProjectAnalysis();
-        analysis.projectPath = projectDir.toString();
-        analysis.projectName = projectDir.getFileName().toString();
+        analysis.projectPath = workDir.toString();
+        analysis.projectName = projectName;
         
-        // Find Java source files
-        analysis.javaFiles = findJavaFiles(projectDir);
-        System.out.println("Found " + analysis.javaFiles.size() + " Java files");
-        
-        // Find JAR files if no Java source files found
-        if (analysis.javaFiles.isEmpty()) {
-            analysis.jarFiles = findJarFiles(projectDir);
-            System.out.println("Found " + analysis.jarFiles.size() + " JAR files");
+        // One pass over the central directory finds sources, JARs and build files
+        List<ZipEntry> javaEntries = new ArrayList<>();
+        List<ZipEntry> jarEntries = new ArrayList<>();
+        Set<String> entryNames = new HashSet<>();
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (entry.isDirectory()) {
+                continue;
+            }
+            entryNames.add(entry.getName());
+            if (entry.getName().endsWith(".java")) {
+                javaEntries.add(entry);
+            } else if (entry.getName().endsWith(".jar")) {
+                jarEntries.add(entry);
+            }
         }
+        System.out.println("Found " + javaEntries.size() + " Java files");
         
         // Detect project structure
-        analysis.projectType = detectProjectType(projectDir);
+        analysis.projectType = detectProjectType(entryNames);
         System.out.println("Detected project type: " + analysis.projectType);
         
         // Compile the project if we have Java files
-        if (!analysis.javaFiles.isEmpty()) {
-            Path compiledDir = compileProject(projectDir, analysis);
+        if (!javaEntries.isEmpty() && InMemoryCompiler.isEnabled()) {
+            progressListener.onProgress(30, "Compiling Java sources");
+            compileAndAnalyze(zipFile, javaEntries, workDir, analysis);
+        } else if (!javaEntries.isEmpty()) {
+            // Sources are the only entries javac needs on disk
+            progressListener.onProgress(10, "Extracting Java sources");
+            analysis.javaFiles = extractEntries(zipFile, javaEntries, workDir);
+            
+            progressListener.onProgress(30, "Compiling Java sources");
+            Path compiledDir = compileProject(workDir, analysis);
             if (compiledDir != null) {
                 analysis.compiledClassesDir = compiledDir.toString();
                 
                 // Create JAR file
-                Path jarFile = createJarFile(compiledDir, projectDir.resolve(analysis.projectName + ".jar"));
+                Path jarFile = createJarFile(compiledDir, workDir.resolve(analysis.projectName + ".jar"));
                 if (jarFile != null) {
                     analysis.jarFile = jarFile.toString();
+                    progressListener.onProgress(60, "Analyzing dependencies");
                     
-                    // Run JDeps analysis
-                    analysis.jdepsResults = runJDepsAnalysis(jarFile);
-                    
-                    // Run ASM bytecode analysis for enhanced metrics
-                    analysis.asmResults = runASMAnalysis(jarFile);
-                }
-            }
-        } else if (analysis.jarFiles != null && !analysis.jarFiles.isEmpty()) {
-            // Analyze existing JAR files
-            System.out.println("Analyzing existing JAR files...");
-            
-            // For multiple JARs, we'll analyze the first few and create a combined result
-            int maxJarsToAnalyze = Math.min(5, analysis.jarFiles.size()); // Limit to first 5 JARs
-            JDepsResults combinedResults = new JDepsResults();
-            List<String> basicResults = new ArrayList<>();
-            List<String> verboseResults = new ArrayList<>();
-            List<String> summaryResults = new ArrayList<>();
-            
-            for (int i = 0; i < maxJarsToAnalyze; i++) {
-                String jarPath = analysis.jarFiles.get(i);
-                Path jarFile = Paths.get(jarPath);
-                if (Files.exists(jarFile)) {
-                    System.out.println("Running JDeps on: " + jarFile.getFileName());
-                    JDepsResults result = runJDepsAnalysis(jarFile);
-                    if (result != null) {
-                        if (result.basicAnalysis != null) {
-                            basicResults.add("=== " + jarFile.getFileName() + " ===\n" + result.basicAnalysis);
-                        }
-                        if (result.verboseAnalysis != null) {
-                            verboseResults.add("=== " + jarFile.getFileName() + " ===\n" + result.verboseAnalysis);
-                        }
-                        if (result.summaryAnalysis != null) {
-                            summaryResults.add("=== " + jarFile.getFileName() + " ===\n" + result.summaryAnalysis);
-                        }
+                    if (BytecodeDependencyExtractor.isEnabled()) {
+                        // Read each class once for both dependencies and metrics, without jdeps
+                        runBytecodeAnalysis(jarFile, analysis);
+                    } else {
+                        // jdeps and the ASM pass for enhanced metrics read the JAR independently
+                        Future<Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult>> asmResults =
+                            STAGE_EXECUTOR.submit(() -> runASMAnalysis(jarFile));
+                        analysis.jdepsResults = runJDepsAnalysis(jarFile);
+                        
+                        progressListener.onProgress(80, "Running bytecode analysis");
+                        analysis.asmResults = await(asmResults);
                     }
                 }
             }
+        } else if (!jarEntries.isEmpty()) {
+            System.out.println("Found " + jarEntries.size() + " JAR files");
+            for (ZipEntry jarEntry : jarEntries) {
+                analysis.jarFiles.add(jarEntry.getName());
+            }
             
-            combinedResults.basicAnalysis = String.join("\n\n", basicResults);
-            combinedResults.verboseAnalysis = String.join("\n\n", verboseResults);
-            combinedResults.summaryAnalysis = String.join("\n\n", summaryResults);
+            // Analyze every JAR concurrently; ASM runs over all of them for the metrics
+            System.out.println("Analyzing existing JAR files...");
+            progressListener.onProgress(60, "Analyzing JAR files");
+            
+            AtomicInteger analyzed = new AtomicInteger();
+            MultiJarAnalysis jars = MultiJarAnalysis.analyze(jarEntries, (jarEntry, pool) -> {
+                MultiJarAnalysis.JarResult result = analyzeArchivedJar(zipFile, jarEntry, workDir, pool);
+                int done = analyzed.incrementAndGet();
+                progressListener.onProgress(60 + 20 * done / jarEntries.size(),
+                    "Analyzed " + done + " of " + jarEntries.size() + " JAR files");
+                return result;
+            });
             
-            analysis.jdepsResults = combinedResults;
+            analysis.multiJarAnalysis = jars;
+            analysis.jdepsResults = jars.getCombinedResults();
+            Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> asmResults = jars.getClassResults();
+            if (!asmResults.isEmpty()) {
+                analysis.asmResults = asmResults;
+            }
+            if (!jars.getDuplicateClasses().isEmpty()) {
+                System.out.println("Found " + jars.getDuplicateClasses().size() + " classes defined by more than one JAR");
+            }
+            System.out.println("Analyzed " + jars.getJarResults().size() + " of " + jarEntries.size() + " JAR files");
         }
         
         return analysis;
     }
     
-    private List<String> findJavaFiles(Path projectDir) throws IOException {
-        List<String> javaFiles = new ArrayList<>();
-        Pattern javaPattern = Pattern.compile(".*\\.java$");
-        
-        Files.walk(projectDir)
-            .filter(Files::isRegularFile)
-            .filter(path -> javaPattern.matcher(path.toString()).matches())
-            .forEach(path -> javaFiles.add(path.toAbsolutePath().toString()));
-        
-        return javaFiles;
-    }
-    
-    private List<String> findJarFiles(Path projectDir) throws IOException {
-        List<String> jarFiles = new ArrayList<>();
-        Pattern jarPattern = Pattern.compile(".*\\.jar$");
-        
-        Files.walk(projectDir)
-            .filter(Files::isRegularFile)
-            .filter(path -> jarPattern.matcher(path.toString()).matches())
-            .forEach(path -> jarFiles.add(path.toAbsolutePath().toString()));
+    /**
+     * Analyzes one JAR nested in the upload. The ASM engine reads it straight from the archive;
+     * jdeps needs a real file, so only then is the JAR extracted, and ASM metrics are collected
+     * from the extracted file on the shared pool.
+     */
+    private MultiJarAnalysis.JarResult analyzeArchivedJar(ZipFile zipFile, ZipEntry jarEntry, Path workDir,
+                                                          ForkJoinPool pool) throws IOException {
+        String jarName = Paths.get(jarEntry.getName()).getFileName().toString();
+        if (BytecodeDependencyExtractor.isEnabled()) {
+            System.out.println("Running bytecode dependency analysis on: " + jarEntry.getName());
+            try (AnalysisMetrics.Timer timer = metrics.time("dependencies");
+                 InputStream in = zipFile.getInputStream(jarEntry)) {
+                BytecodeDependencyExtractor.ExtractionResult extraction =
+                    BytecodeDependencyExtractor.analyzeJarStream(jarName, in, classCache());
+                timer.addBytes(Math.max(0, jarEntry.getSize()));
+                timer.addClasses(extraction.getClassEdges().size());
+                JDepsResults results = new JDepsResults();
+                results.basicAnalysis = extraction.getViews().getBasicAnalysis();
+                results.verboseAnalysis = extraction.getViews().getVerboseAnalysis();
+                results.summaryAnalysis = extraction.getViews().getSummaryAnalysis();
+                return new MultiJarAnalysis.JarResult(jarEntry.getName(), results, extraction.getClassResults());
+            }
+        }
         
-        return jarFiles;
+        Path jarFile = Paths.get(extractEntries(zipFile, Collections.singletonList(jarEntry), workDir).get(0));
+        ForkJoinTask<Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult>> asmResults = ForkJoinTask.adapt(() -> {
+            try (AnalysisMetrics.Timer timer = metrics.time("asm")) {
+                Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> results =
+                    ASMBytecodeAnalyzer.analyzeJarFile(jarFile.toString(), pool, classCache());
+                timer.addBytes(Files.size(jarFile));
+                timer.addClasses(results.size());
+                return results;
+            }
+        }).fork();
+        System.out.println("Running JDeps on: " + jarFile.getFileName());
+        JDepsResults results = runJDepsAnalysis(jarFile);
+        return new MultiJarAnalysis.JarResult(jarEntry.getName(), results, asmResults.join());
     }
     
-    private String detectProjectType(Path projectDir) throws IOException {
-        if (Files.exists(projectDir.resolve("pom.xml"))) {
+    private String detectProjectType(Set<String> entryNames) {
+        if (entryNames.contains("pom.xml")) {
             return "Maven";
-        } else if (Files.exists(projectDir.resolve("build.gradle")) || Files.exists(projectDir.resolve("build.gradle.kts"))) {
+        } else if (entryNames.contains("build.gradle") || entryNames.contains("build.gradle.kts")) {
             return "Gradle";
-        } else if (Files.exists(projectDir.resolve("src"))) {
+        } else if (entryNames.stream().anyMatch(name -> name.startsWith("src/"))) {
             return "Standard Java";
         } else {
             return "Unknown";
         }
     }
     
-    private Path compileProject(Path projectDir, ProjectAnalysis analysis) {
+    /**
+     * Compiles the sources straight from the archive with the in-process compiler, handing each
+     * class file to the pipeline as javac writes it. Returns false if compilation failed.
+     */
+    private boolean compileInMemory(ZipFile zipFile, List<ZipEntry> javaEntries, ProjectAnalysis analysis,
+                                    ClassPipeline pipeline) {
+        try (AnalysisMetrics.Timer timer = metrics.time("compile")) {
+            System.out.println("Compiling project in-process...");
+            
+            Map<String, String> sources = new LinkedHashMap<>();
+            for (ZipEntry entry : javaEntries) {
+                try (InputStream in = zipFile.getInputStream(entry)) {
+                    byte[] source = in.readAllBytes();
+                    timer.addBytes(source.length);
+                    sources.put(entry.getName(), new String(source, StandardCharsets.UTF_8));
+                }
+                analysis.javaFiles.add(entry.getName());
+            }
+            
+            // Same class path a forked javac sees when started in the working directory
+            InMemoryCompiler.Result result = InMemoryCompiler.compile(sources,
+                Arrays.asList("-proc:none", "-classpath", System.getProperty("user.dir")), pipeline::put);
+            for (String line : result.getDiagnostics().split("\n")) {
+                if (!line.isEmpty()) {
+                    System.out.println("Compilation output: " + line);
+                }
+            }
+            
+            if (!result.isSuccess()) {
+                System.err.println("Compilation failed");
+                return false;
+            }
+            System.out.println("Compilation successful: " + result.getClassCount() + " classes");
+            timer.addClasses(result.getClassCount());
+            return true;
+            
+        } catch (Exception e) {
+            System.err.println("Compilation error: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Compiles the sources in memory and analyzes each class while javac is still generating the
+     * rest. With the ASM engine, classes flow straight into the dependency extractor. With jdeps,
+     * a JAR writer and the ASM analyzer consume them side by side, and jdeps runs on the JAR once
+     * compilation ends.
+     */
+    private void compileAndAnalyze(ZipFile zipFile, List<ZipEntry> javaEntries, Path workDir, ProjectAnalysis analysis) {
+        String jarName = analysis.projectName + ".jar";
+        Path jarFile = workDir.resolve(jarName);
+        int workers = ASMBytecodeAnalyzer.getAnalysisParallelism();
+        ClassResultCache cache = classCache();
+        
+        ClassPipeline pipeline = new ClassPipeline();
+        BytecodeDependencyExtractor.ClassCollector collector = null;
+        Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> asmResults = new ConcurrentHashMap<>();
+        JarOutputStream jar = null;
         try {
+            if (BytecodeDependencyExtractor.isEnabled()) {
+                collector = new BytecodeDependencyExtractor.ClassCollector(cache);
+                pipeline.addStage("dependencies", workers, collector::add);
+            } else {
+                Files.createDirectories(workDir);
+                JarOutputStream jarOut = new JarOutputStream(JsonFiles.newOutputStream(jarFile));
+                jar = jarOut;
+                pipeline.addStage("jar", 1, (entryName, classBytes) -> {
+                    jarOut.putNextEntry(new JarEntry(entryName));
+                    jarOut.write(classBytes);
+                    jarOut.closeEntry();
+                });
+                SymbolTable symbols = new SymbolTable();
+                pipeline.addStage("asm", workers, (entryName, classBytes) -> {
+                    if (entryName.contains("$")) {
+                        return;
+                    }
+                    try {
+                        ASMBytecodeAnalyzer.ClassAnalysisResult result = ASMBytecodeAnalyzer.analyzeClass(classBytes, cache, symbols);
+                        asmResults.put(result.getClassName(), result);
+                    } catch (RuntimeException e) {
+                        System.err.println("Error analyzing class " + entryName + ": " + e.getMessage());
+                    }
+                });
+            }
+            
+            boolean compiled;
+            try {
+                compiled = compileInMemory(zipFile, javaEntries, analysis, pipeline);
+            } finally {
+                pipeline.finish();
+            }
+            if (!compiled) {
+                return;
+            }
+            progressListener.onProgress(60, "Analyzing dependencies");
+            
+            if (collector != null) {
+                BytecodeDependencyExtractor.ExtractionResult extraction = collector.toResult(jarName);
+                JDepsResults results = new JDepsResults();
+                results.basicAnalysis = extraction.getViews().getBasicAnalysis();
+                results.verboseAnalysis = extraction.getViews().getVerboseAnalysis();
+                results.summaryAnalysis = extraction.getViews().getSummaryAnalysis();
+                analysis.jdepsResults = results;
+                analysis.asmResults = extraction.getClassResults();
+                analysis.jarFile = jarName;
+                System.out.println("Bytecode analysis completed. Analyzed " + analysis.asmResults.size() + " classes");
+                return;
+            }
+            
+            jar.close();
+            jar = null;
+            analysis.jarFile = jarFile.toString();
+            analysis.jdepsResults = runJDepsAnalysis(jarFile);
+            analysis.asmResults = asmResults;
+            System.out.println("ASM analysis completed. Analyzed " + asmResults.size() + " classes");
+            
+        } catch (IOException e) {
+            System.err.println("Class analysis error: " + e.getMessage());
+        } finally {
+            if (jar != null) {
+                try {
+                    jar.close();
+                } catch (IOException e) {
+                    System.err.println("Failed to close " + jarFile + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+    
+    private Path compileProject(Path projectDir, ProjectAnalysis analysis) {
+        try (AnalysisMetrics.Timer timer = metrics.time("compile")) {
             System.out.println("Compiling project...");
             
             Path classesDir = projectDir.resolve("compiled-classes");
@@ -249,8 +477,9 @@ public class ZipProjectAnalyzer {
             
             // Add all Java files with absolute paths
             for (String javaFile : analysis.javaFiles) {
-                // Files are already absolute paths from findJavaFiles
+                // Files are already absolute paths from extractEntries
                 command.add(javaFile);
+                timer.addBytes(new File(javaFile).length());
             }
             
             System.out.println("Compilation command: " + String.join(" ", command));
@@ -292,7 +521,7 @@ public class ZipProjectAnalyzer {
     }
     
     private Path createJarFile(Path classesDir, Path jarPath) {
-        try {
+        try (AnalysisMetrics.Timer timer = metrics.time("jar")) {
             System.out.println("Creating JAR file: " + jarPath);
             
             List<String> command = Arrays.asList(
@@ -305,6 +534,7 @@ public class ZipProjectAnalyzer {
             int exitCode = process.waitFor();
             if (exitCode == 0) {
                 System.out.println("JAR creation successful");
+                timer.addBytes(Files.size(jarPath));
                 return jarPath;
             } else {
                 System.err.println("JAR creation failed with exit code: " + exitCode);
@@ -322,15 +552,26 @@ public class ZipProjectAnalyzer {
         
         JDepsResults results = new JDepsResults();
         
-        try {
-            // Basic analysis
-            results.basicAnalysis = runJDepsCommand(jarFile.toString());
-            
-            // Verbose analysis
-            results.verboseAnalysis = runJDepsCommand(jarFile.toString(), "-verbose:class");
+        try (AnalysisMetrics.Timer timer = metrics.time("jdeps")) {
+            timer.addBytes(Files.size(jarFile));
+            if (JDepsViews.isSinglePassEnabled()) {
+                // One class-level run; package and summary views are aggregated from it
+                JDepsViews views = JDepsViews.fromClassLevelOutput(
+                    runJDepsCommand(jarFile.toString(), "-verbose:class"));
+                results.basicAnalysis = views.getBasicAnalysis();
+                results.verboseAnalysis = views.getVerboseAnalysis();
+                results.summaryAnalysis = views.getSummaryAnalysis();
+                
+                System.out.println("JDeps analysis completed");
+                return results;
+            }
             
-            // Summary analysis
+            // The three views are independent jdeps runs
+            Future<String> basicAnalysis = STAGE_EXECUTOR.submit(() -> runJDepsCommand(jarFile.toString()));
+            Future<String> verboseAnalysis = STAGE_EXECUTOR.submit(() -> runJDepsCommand(jarFile.toString(), "-verbose:class"));
             results.summaryAnalysis = runJDepsCommand(jarFile.toString(), "-s");
+            results.basicAnalysis = await(basicAnalysis);
+            results.verboseAnalysis = await(verboseAnalysis);
             
             System.out.println("JDeps analysis completed");
             
@@ -341,29 +582,40 @@ public class ZipProjectAnalyzer {
         return results;
     }
     
-    private String runJDepsCommand(String jarPath, String... options) throws IOException, InterruptedException {
-        List<String> command = new ArrayList<>();
-        command.add("jdeps");
-        command.addAll(Arrays.asList(options));
-        command.add(jarPath);
-        
-        ProcessBuilder pb = new ProcessBuilder(command);
-        Process process = pb.start();
+    private String runJDepsCommand(String jarPath, String... options) throws IOException {
+        List<String> args = new ArrayList<>(Arrays.asList(options));
+        args.add(jarPath);
         
-        StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-            }
+        JDepsRunner.Result result = JDepsRunner.execute(args);
+        if (!result.isSuccess()) {
+            throw new IOException("JDeps command failed with exit code: " + result.getExitCode());
         }
         
-        int exitCode = process.waitFor();
-        if (exitCode != 0) {
-            throw new IOException("JDeps command failed with exit code: " + exitCode);
+        return result.getOutput();
+    }
+    
+    /**
+     * Waits for a stage started on {@link #STAGE_EXECUTOR}, rethrowing its failure
+     */
+    private static <T> T await(Future<T> stage) throws IOException {
+        try {
+            return stage.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for an analysis stage", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause().getMessage(), e.getCause());
         }
-        
-        return output.toString();
+    }
+    
+    /**
+     * Per-class cache shared by all analyses, so unchanged classes are not parsed again
+     */
+    private ClassResultCache classCache() {
+        return ClassResultCache.isEnabled() ? ClassResultCache.shared() : null;
     }
     
     /**
@@ -372,9 +624,11 @@ public class ZipProjectAnalyzer {
     private Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> runASMAnalysis(Path jarFile) {
         System.out.println("Running ASM bytecode analysis on: " + jarFile);
         
-        try {
+        try (AnalysisMetrics.Timer timer = metrics.time("asm")) {
             Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> results = 
-                ASMBytecodeAnalyzer.analyzeJarFile(jarFile.toString());
+                ASMBytecodeAnalyzer.analyzeJarFile(jarFile.toString(), classCache());
+            timer.addBytes(Files.size(jarFile));
+            timer.addClasses(results.size());
             
             System.out.println("ASM analysis completed. Analyzed " + results.size() + " classes");
             return results;
@@ -386,27 +640,57 @@ public class ZipProjectAnalyzer {
         }
     }
     
+    /**
+     * Run the ASM dependency extractor, filling both the jdeps views and ASM metrics in one pass
+     */
+    private void runBytecodeAnalysis(Path jarFile, ProjectAnalysis analysis) {
+        System.out.println("Running bytecode dependency analysis on: " + jarFile);
+        
+        try (AnalysisMetrics.Timer timer = metrics.time("dependencies")) {
+            BytecodeDependencyExtractor.ExtractionResult extraction = BytecodeDependencyExtractor.analyzeJar(jarFile, classCache());
+            timer.addBytes(Files.size(jarFile));
+            timer.addClasses(extraction.getClassEdges().size());
+            
+            JDepsResults results = new JDepsResults();
+            results.basicAnalysis = extraction.getViews().getBasicAnalysis();
+            results.verboseAnalysis = extraction.getViews().getVerboseAnalysis();
+            results.summaryAnalysis = extraction.getViews().getSummaryAnalysis();
+            analysis.jdepsResults = results;
+            analysis.asmResults = extraction.getClassResults();
+            
+            System.out.println("Bytecode analysis completed. Analyzed " + analysis.asmResults.size() + " classes");
+            
+        } catch (Exception e) {
+            System.err.println("Bytecode analysis error: " + e.getMessage());
+            analysis.jdepsResults = new JDepsResults();
+            analysis.asmResults = new HashMap<>();
+        }
+    }
+    
     private String generateWebReport(ProjectAnalysis analysis, Path reportsDir, String projectName) throws IOException {
         System.out.println("Generating web report...");
         
         Path reportDir = reportsDir.resolve(projectName + "-" + System.currentTimeMillis());
         Files.createDirectories(reportDir);
         
+        // The JSON data file is written alongside the HTML report
+        Future<Void> jsonReport = STAGE_EXECUTOR.submit(() -> {
+            writeJsonReport(analysis, reportDir.resolve("data.json"));
+            return null;
+        });
+        
         // Generate HTML report
         String htmlContent = generateAdvancedHtmlReport(analysis);
         Path htmlFile = reportDir.resolve("index.html");
         Files.write(htmlFile, htmlContent.getBytes());
         
-        // Generate JSON data file
-        String jsonData = generateJsonReport(analysis);
-        Path jsonFile = reportDir.resolve("data.json");
-        Files.write(jsonFile, jsonData.getBytes());
+        await(jsonReport);
         
         System.out.println("Report generated at: " + reportDir.toAbsolutePath());
         return reportDir.toAbsolutePath().toString();
     }
     
-    private String generateAdvancedHtmlReport(ProjectAnalysis analysis) {
+    String generateAdvancedHtmlReport(ProjectAnalysis analysis) {
         StringBuilder html = new StringBuilder();
         
         html.append("<!DOCTYPE html>\n")
@@ -631,16 +915,160 @@ public class ZipProjectAnalyzer {
         return output.replace("<", "&lt;").replace(">", "&gt;");
     }
     
-    private String generateJsonReport(ProjectAnalysis analysis) {
-        StringBuilder json = new StringBuilder();
-        json.append("{\n")
-            .append("  \"projectName\": \"").append(analysis.projectName).append("\",\n")
-            .append("  \"projectType\": \"").append(analysis.projectType).append("\",\n")
-            .append("  \"javaFileCount\": ").append(analysis.javaFiles.size()).append(",\n")
-            .append("  \"analysisDate\": \"").append(new Date()).append("\",\n")
-            .append("  \"successful\": ").append(analysis.jdepsResults != null).append("\n")
-            .append("}");
-        return json.toString();
+    /**
+     * Streams the full structured analysis (jdeps edges, per-class ASM metrics and summaries) to data.json
+     */
+    void writeJsonReport(ProjectAnalysis analysis, Path jsonFile) throws IOException {
+        try (JsonGenerator json = JsonFiles.newGenerator(JSON_FACTORY, jsonFile)) {
+            json.writeStartObject();
+            json.writeStringField("projectName", analysis.projectName);
+            json.writeStringField("projectType", analysis.projectType);
+            json.writeNumberField("javaFileCount", analysis.javaFiles.size());
+            json.writeStringField("analysisDate", new Date().toString());
+            json.writeBooleanField("successful", analysis.jdepsResults != null);
+            json.writeStringField("jarFile", analysis.jarFile);
+            json.writeArrayFieldStart("jarFiles");
+            for (String jar : analysis.jarFiles) {
+                json.writeString(jar);
+            }
+            json.writeEndArray();
+            
+            json.writeObjectFieldStart("jdeps");
+            if (analysis.multiJarAnalysis != null) {
+                writeMultiJarEdges(json, analysis.multiJarAnalysis);
+            } else if (analysis.jdepsResults != null) {
+                writeEdges(json, "summary", analysis.jdepsResults.summaryAnalysis, DependencyGraph.LineFilter.SUMMARY);
+                writeEdges(json, "packageDependencies", analysis.jdepsResults.basicAnalysis,
+                        DependencyGraph.LineFilter.DEPENDENCIES);
+                writeEdges(json, "classDependencies", analysis.jdepsResults.verboseAnalysis,
+                        DependencyGraph.LineFilter.DEPENDENCIES);
+            }
+            json.writeEndObject();
+            
+            if (analysis.multiJarAnalysis != null) {
+                writeDuplicateClasses(json, analysis.multiJarAnalysis);
+            }
+            writeClassMetrics(json, analysis.asmResults);
+            json.writeEndObject();
+        }
+    }
+    
+    private void writeEdges(JsonGenerator json, String field, String jdepsOutput,
+                            DependencyGraph.LineFilter filter) throws IOException {
+        json.writeArrayFieldStart(field);
+        if (jdepsOutput != null) {
+            DependencyGraph graph = DependencyGraph.fromJDepsOutput(jdepsOutput, filter);
+            for (int source = 0; source < graph.nodeCount(); source++) {
+                for (int edge = graph.edgeStart(source); edge < graph.edgeEnd(source); edge++) {
+                    json.writeStartObject();
+                    json.writeStringField("source", graph.nodeName(source));
+                    json.writeStringField("target", graph.nodeName(graph.edgeTarget(edge)));
+                    if (filter != DependencyGraph.LineFilter.SUMMARY) {
+                        json.writeStringField("module", graph.edgeLabel(edge));
+                    }
+                    json.writeEndObject();
+                }
+            }
+        }
+        json.writeEndArray();
+    }
+    
+    /**
+     * Writes the combined edges of all uploaded JARs, each tagged with the JAR it came from
+     */
+    private void writeMultiJarEdges(JsonGenerator json, MultiJarAnalysis jars) throws IOException {
+        json.writeArrayFieldStart("summary");
+        jars.visitSummaryEdges((jar, source, target, module) -> writeEdge(json, jar, source, target, module));
+        json.writeEndArray();
+        json.writeArrayFieldStart("packageDependencies");
+        jars.visitPackageEdges((jar, source, target, module) -> writeEdge(json, jar, source, target, module));
+        json.writeEndArray();
+        json.writeArrayFieldStart("classDependencies");
+        jars.visitClassEdges((jar, source, target, module) -> writeEdge(json, jar, source, target, module));
+        json.writeEndArray();
+    }
+    
+    /**
+     * Writes the classes defined by more than one uploaded JAR, with the JARs defining each
+     */
+    private void writeDuplicateClasses(JsonGenerator json, MultiJarAnalysis jars) throws IOException {
+        json.writeArrayFieldStart("duplicateClasses");
+        for (Map.Entry<String, List<String>> duplicate : jars.getDuplicateClasses().entrySet()) {
+            json.writeStartObject();
+            json.writeStringField("name", duplicate.getKey());
+            json.writeArrayFieldStart("jars");
+            for (String jar : duplicate.getValue()) {
+                json.writeString(jar);
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+    }
+    
+    private void writeEdge(JsonGenerator json, String jar, String source, String target, String module) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("source", source);
+        json.writeStringField("target", target);
+        if (module != null) {
+            json.writeStringField("module", module);
+        }
+        json.writeStringField("jar", jar);
+        json.writeEndObject();
+    }
+    
+    private void writeClassMetrics(JsonGenerator json,
+                                   Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> asmResults) throws IOException {
+        Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> classes =
+            asmResults != null ? new TreeMap<>(asmResults) : Collections.emptyMap();
+        
+        int totalMethods = 0;
+        int totalFields = 0;
+        int totalComplexity = 0;
+        json.writeArrayFieldStart("classes");
+        for (ASMBytecodeAnalyzer.ClassAnalysisResult result : classes.values()) {
+            int complexity = result.getTotalComplexity();
+            totalMethods += result.getTotalMethods();
+            totalFields += result.getTotalFields();
+            totalComplexity += complexity;
+            
+            json.writeStartObject();
+            json.writeStringField("name", result.getClassName());
+            json.writeStringField("superClass", result.getSuperClass());
+            json.writeBooleanField("abstract", result.isAbstract());
+            json.writeBooleanField("interface", result.isInterface());
+            json.writeBooleanField("final", result.isFinal());
+            json.writeNumberField("methods", result.getTotalMethods());
+            json.writeNumberField("fields", result.getTotalFields());
+            json.writeNumberField("totalComplexity", complexity);
+            json.writeNumberField("averageComplexity", result.getAverageMethodComplexity());
+            json.writeNumberField("methodCalls", result.getMethodCallIds().size());
+            json.writeNumberField("fieldAccesses", result.getFieldAccessIds().size());
+            writeStrings(json, "interfaces", result.getInterfaces());
+            writeStrings(json, "annotations", result.getAnnotations());
+            json.writeObjectFieldStart("methodComplexity");
+            for (Map.Entry<String, Integer> method : result.getMethodComplexity().entrySet()) {
+                json.writeNumberField(method.getKey(), method.getValue());
+            }
+            json.writeEndObject();
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+        
+        json.writeObjectFieldStart("metrics");
+        json.writeNumberField("totalClasses", classes.size());
+        json.writeNumberField("totalMethods", totalMethods);
+        json.writeNumberField("totalFields", totalFields);
+        json.writeNumberField("totalComplexity", totalComplexity);
+        json.writeEndObject();
+    }
+    
+    private void writeStrings(JsonGenerator json, String field, Collection<String> values) throws IOException {
+        json.writeArrayFieldStart(field);
+        for (String value : values) {
+            json.writeString(value);
+        }
+        json.writeEndArray();
     }
     
     private void cleanupDirectory(Path dir) throws IOException {
@@ -668,6 +1096,7 @@ public class ZipProjectAnalyzer {
         public String jarFile;
         public JDepsResults jdepsResults;
         public Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> asmResults;
+        public MultiJarAnalysis multiJarAnalysis;
 
         public ProjectAnalysis() {
             super();
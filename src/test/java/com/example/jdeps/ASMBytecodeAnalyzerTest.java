@@ -0,0 +1,162 @@
+package com.example.jdeps;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Test class for ASMBytecodeAnalyzer
+ */
+public class ASMBytecodeAnalyzerTest {
+
+    public ASMBytecodeAnalyzerTest() {
+        super();
+    }
+
+    private static Path jarPath;
+
+    @BeforeClass
+    public static void createJar() throws IOException {
+        jarPath = packageProjectClasses();
+    }
+
+    /**
+     * Packages the project's own compiled classes so analyzers have real bytecode to read
+     */
+    static Path packageProjectClasses() throws IOException {
+        Path classesDir = Paths.get("target", "classes");
+        Path jar = Files.createTempFile("asm-analyzer-test", ".jar");
+
+        List<Path> classFiles;
+        try (Stream<Path> walk = Files.walk(classesDir)) {
+            classFiles = walk.filter(p -> p.toString().endsWith(".class")).collect(Collectors.toList());
+        }
+
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            for (Path classFile : classFiles) {
+                String name = classesDir.relativize(classFile).toString().replace(File.separatorChar, '/');
+                out.putNextEntry(new JarEntry(name));
+                Files.copy(classFile, (OutputStream) out);
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    @AfterClass
+    public static void deleteJar() throws IOException {
+        Files.deleteIfExists(jarPath);
+    }
+
+    @Test
+    public void testParallelMatchesSequential() throws IOException {
+        Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> sequential =
+            ASMBytecodeAnalyzer.analyzeJarFileSequential(jarPath.toString());
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> parallel;
+        try {
+            parallel = ASMBytecodeAnalyzer.analyzeJarFile(jarPath.toString(), pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertFalse("Sequential analysis should find classes", sequential.isEmpty());
+        assertEquals("Both modes should analyze the same classes", sequential.keySet(), parallel.keySet());
+        for (String className : sequential.keySet()) {
+            assertSameResult(sequential.get(className), parallel.get(className));
+        }
+    }
+
+    @Test
+    public void testSingleWorkerAnalyzesSequentiallyWithCache() throws IOException {
+        Path cacheDir = Files.createTempDirectory("single-worker-cache");
+        System.setProperty(ASMBytecodeAnalyzer.PARALLELISM_PROPERTY, "1");
+        try {
+            ClassResultCache cache = new ClassResultCache(cacheDir);
+            Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> results =
+                ASMBytecodeAnalyzer.analyzeJarFile(jarPath.toString(), cache);
+            assertFalse(results.isEmpty());
+            assertEquals(results.size(), cache.getMissCount());
+            ASMBytecodeAnalyzer.analyzeJarFile(jarPath.toString(), cache);
+            assertEquals(results.size(), cache.getHitCount());
+        } finally {
+            System.clearProperty(ASMBytecodeAnalyzer.PARALLELISM_PROPERTY);
+            try (Stream<Path> walk = Files.walk(cacheDir)) {
+                walk.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+        assertSame(ASMBytecodeAnalyzer.sharedPool(), ASMBytecodeAnalyzer.sharedPool());
+    }
+
+    @Test
+    public void testStreamingMatchesTree() throws IOException {
+        List<Path> classFiles;
+        try (Stream<Path> walk = Files.walk(Paths.get("target"))) {
+            classFiles = walk.filter(p -> p.toString().endsWith(".class")).collect(Collectors.toList());
+        }
+
+        assertFalse("Compiled classes should be available", classFiles.isEmpty());
+        for (Path classFile : classFiles) {
+            ASMBytecodeAnalyzer.ClassAnalysisResult tree;
+            try (InputStream in = Files.newInputStream(classFile)) {
+                tree = ASMBytecodeAnalyzer.analyzeClassTree(in);
+            }
+            ASMBytecodeAnalyzer.ClassAnalysisResult streaming;
+            try (InputStream in = Files.newInputStream(classFile)) {
+                streaming = ASMBytecodeAnalyzer.analyzeClass(in);
+            }
+            assertSameResult(tree, streaming);
+        }
+    }
+
+    @Test
+    public void testSymbolViewsUseOriginalFormat() throws IOException {
+        ASMBytecodeAnalyzer.ClassAnalysisResult result;
+        try (InputStream in = Files.newInputStream(Paths.get("target", "classes", "com", "example", "jdeps", "ASMIntegrationDemo.class"))) {
+            result = ASMBytecodeAnalyzer.analyzeClass(in);
+        }
+
+        assertTrue(result.getMethodCalls().contains("java/io/PrintStream.println(Ljava/lang/String;)V"));
+        assertTrue(result.getMethodCalls().contains("TYPE:java/io/File"));
+        assertTrue(result.getFieldAccess().contains("java/lang/System.out"));
+        assertFalse(result.getMethodCalls().contains("java/lang/System.out"));
+        for (String call : result.getMethodCalls()) {
+            assertTrue(call, result.getMethodCalls().contains(call));
+        }
+    }
+
+    static void assertSameResult(ASMBytecodeAnalyzer.ClassAnalysisResult expected,
+                                 ASMBytecodeAnalyzer.ClassAnalysisResult actual) {
+        String name = expected.getClassName();
+        assertEquals(name, expected.getClassName(), actual.getClassName());
+        assertEquals(name, expected.getSuperClass(), actual.getSuperClass());
+        assertEquals(name, expected.getInterfaces(), actual.getInterfaces());
+        assertEquals(name, expected.getMethodCalls(), actual.getMethodCalls());
+        assertEquals(name, expected.getFieldAccess(), actual.getFieldAccess());
+        assertEquals(name, expected.getAnnotations(), actual.getAnnotations());
+        assertEquals(name, expected.getMethodComplexity(), actual.getMethodComplexity());
+        assertEquals(name, expected.getTotalMethods(), actual.getTotalMethods());
+        assertEquals(name, expected.getTotalFields(), actual.getTotalFields());
+        assertEquals(name, expected.isAbstract(), actual.isAbstract());
+        assertEquals(name, expected.isInterface(), actual.isInterface());
+        assertEquals(name, expected.isFinal(), actual.isFinal());
+    }
+}
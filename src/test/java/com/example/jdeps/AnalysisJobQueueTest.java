@@ -0,0 +1,95 @@
+package com.example.jdeps;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test class for AnalysisJobQueue
+ */
+public class AnalysisJobQueueTest {
+
+    public AnalysisJobQueueTest() {
+        super();
+    }
+
+    @Test
+    public void testJobReportsProgressAndResult() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AnalysisJobQueue queue = new AnalysisJobQueue(1, 4, (filePath, progress) -> {
+            progress.onProgress(30, "Compiling Java sources");
+            release.await();
+            return "web-reports/" + filePath + "-1";
+        });
+        try {
+            AnalysisJobQueue.Job job = queue.submit("demo");
+            assertSame(job, queue.getJob(job.getId()));
+
+            waitFor(() -> job.getProgress() == 30);
+            assertEquals(AnalysisJobQueue.State.RUNNING, job.getState());
+            assertEquals("Compiling Java sources", job.getStage());
+
+            release.countDown();
+            waitFor(job::isFinished);
+            assertEquals(AnalysisJobQueue.State.COMPLETED, job.getState());
+            assertEquals(100, job.getProgress());
+            assertEquals("demo-1", job.getReportId());
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    public void testFailedJobKeepsMessage() throws Exception {
+        AnalysisJobQueue queue = new AnalysisJobQueue(1, 4, (filePath, progress) -> {
+            throw new java.io.IOException("ZIP file not found: " + filePath);
+        });
+        try {
+            AnalysisJobQueue.Job job = queue.submit("missing.zip");
+            waitFor(job::isFinished);
+            assertEquals(AnalysisJobQueue.State.FAILED, job.getState());
+            assertEquals("ZIP file not found: missing.zip", job.getMessage());
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    public void testRejectsWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AnalysisJobQueue queue = new AnalysisJobQueue(1, 1, (filePath, progress) -> {
+            release.await();
+            return filePath;
+        });
+        try {
+            AnalysisJobQueue.Job running = queue.submit("a");
+            waitFor(() -> running.getState() == AnalysisJobQueue.State.RUNNING);
+            AnalysisJobQueue.Job queued = queue.submit("b");
+            assertEquals(AnalysisJobQueue.State.QUEUED, queued.getState());
+            try {
+                queue.submit("c");
+                fail("Expected the full queue to reject the job");
+            } catch (RejectedExecutionException expected) {
+                assertEquals(1, queue.getQueuedCount());
+            }
+        } finally {
+            release.countDown();
+            queue.shutdown();
+        }
+    }
+
+    private interface Condition {
+        boolean holds();
+    }
+
+    private static void waitFor(Condition condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.holds()) {
+            assertTrue("Timed out waiting for job state", System.nanoTime() < deadline);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.jdeps;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+/**
+ * Test class for AnalysisMetrics
+ */
+public class AnalysisMetricsTest {
+
+    public AnalysisMetricsTest() {
+        super();
+    }
+
+    @Test
+    public void testTimerRecordsHistogramAndCounters() throws Exception {
+        AnalysisMetrics metrics = new AnalysisMetrics();
+        try (AnalysisMetrics.Timer timer = metrics.time("jdeps")) {
+            timer.addBytes(2048);
+            timer.addClasses(12);
+            Thread.sleep(30);
+        }
+        try (AnalysisMetrics.Timer timer = metrics.time("jdeps")) {
+            timer.addClasses(3);
+        }
+        assertEquals(2, metrics.getCount("jdeps"));
+
+        Map<String, String> samples = samples(metrics.toPrometheusText());
+        assertEquals("2", samples.get("analysis_stage_duration_seconds_count{stage=\"jdeps\"}"));
+        assertEquals("2", samples.get("analysis_stage_duration_seconds_bucket{stage=\"jdeps\",le=\"+Inf\"}"));
+        // Only the fast run fits below 25ms; buckets are cumulative
+        assertEquals("1", samples.get("analysis_stage_duration_seconds_bucket{stage=\"jdeps\",le=\"0.025\"}"));
+        assertEquals("2", samples.get("analysis_stage_duration_seconds_bucket{stage=\"jdeps\",le=\"0.05\"}"));
+        assertTrue(Double.parseDouble(samples.get("analysis_stage_duration_seconds_sum{stage=\"jdeps\"}")) >= 0.03);
+        assertEquals("2048", samples.get("analysis_stage_bytes_processed_total{stage=\"jdeps\"}"));
+        assertEquals("15", samples.get("analysis_stage_classes_processed_total{stage=\"jdeps\"}"));
+        assertTrue(Double.parseDouble(samples.get("analysis_stage_cpu_seconds_total{stage=\"jdeps\"}")) >= 0);
+        assertTrue(Long.parseLong(samples.get("analysis_stage_allocated_bytes_total{stage=\"jdeps\"}")) >= 0);
+    }
+
+    @Test
+    public void testReportsCacheHitRatio() {
+        AnalysisMetrics metrics = new AnalysisMetrics();
+        metrics.recordCacheLookup("report", true);
+        metrics.recordCacheLookup("report", false);
+        metrics.recordCacheLookup("report", false);
+        metrics.recordCacheLookup("report", false);
+
+        String text = metrics.toPrometheusText();
+        Map<String, String> samples = samples(text);
+        assertEquals("1", samples.get("analysis_cache_requests_total{cache=\"report\",result=\"hit\"}"));
+        assertEquals("3", samples.get("analysis_cache_requests_total{cache=\"report\",result=\"miss\"}"));
+        assertEquals("0.25", samples.get("analysis_cache_hit_ratio{cache=\"report\"}"));
+        assertTrue(text.contains("# TYPE analysis_cache_hit_ratio gauge\n"));
+        assertFalse("Only the shared metrics report the class cache", text.contains("cache=\"class\""));
+    }
+
+    private static Map<String, String> samples(String text) {
+        Map<String, String> samples = new HashMap<>();
+        for (String line : text.split("\n")) {
+            if (!line.startsWith("#") && !line.isEmpty()) {
+                int space = line.lastIndexOf(' ');
+                samples.put(line.substring(0, space), line.substring(space + 1));
+            }
+        }
+        return samples;
+    }
+}
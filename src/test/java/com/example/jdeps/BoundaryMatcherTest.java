@@ -0,0 +1,66 @@
+package com.example.jdeps;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Test class for BoundaryMatcher
+ */
+public class BoundaryMatcherTest {
+
+    public BoundaryMatcherTest() {
+        super();
+    }
+
+    @Test
+    public void testMatchesNaiveSearch() {
+        Random random = new Random(7);
+        for (int round = 0; round < 500; round++) {
+            // A tiny alphabet produces many partial matches and repeated bytes
+            byte[] data = randomBytes(random, random.nextInt(300), 3);
+            byte[] pattern = randomBytes(random, 1 + random.nextInt(6), 3);
+            BoundaryMatcher matcher = new BoundaryMatcher(pattern);
+
+            int from = data.length == 0 ? 0 : random.nextInt(data.length);
+            int to = from + random.nextInt(data.length - from + 1);
+            assertEquals(naiveIndexOf(data, pattern, from, to), matcher.indexOf(data, from, to));
+        }
+    }
+
+    @Test
+    public void testResumesAcrossChunks() {
+        byte[] data = "xxxx\r\n--boundary--".getBytes(StandardCharsets.US_ASCII);
+        BoundaryMatcher matcher = new BoundaryMatcher("\r\n--boundary".getBytes(StandardCharsets.US_ASCII));
+
+        // Only the first 8 bytes have arrived: no match yet, and the partial delimiter is kept
+        assertEquals(-1, matcher.indexOf(data, 0, 8));
+        int resume = matcher.resumeIndex(0, 8);
+        assertEquals(0, resume);
+        assertEquals(4, matcher.indexOf(data, resume, data.length));
+        assertEquals(data.length - 11, matcher.resumeIndex(0, data.length));
+    }
+
+    private static byte[] randomBytes(Random random, int length, int alphabet) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) ('a' + random.nextInt(alphabet));
+        }
+        return bytes;
+    }
+
+    private static int naiveIndexOf(byte[] data, byte[] pattern, int from, int to) {
+        for (int i = from; i <= to - pattern.length; i++) {
+            int j = 0;
+            while (j < pattern.length && data[i + j] == pattern[j]) {
+                j++;
+            }
+            if (j == pattern.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
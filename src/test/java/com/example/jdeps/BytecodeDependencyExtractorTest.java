@@ -0,0 +1,64 @@
+package com.example.jdeps;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Test class for BytecodeDependencyExtractor
+ */
+public class BytecodeDependencyExtractorTest {
+
+    public BytecodeDependencyExtractorTest() {
+        super();
+    }
+
+    private static Path jarPath;
+
+    @BeforeClass
+    public static void createJar() throws IOException {
+        jarPath = ASMBytecodeAnalyzerTest.packageProjectClasses();
+    }
+
+    @AfterClass
+    public static void deleteJar() throws IOException {
+        Files.deleteIfExists(jarPath);
+    }
+
+    @Test
+    public void testMatchesJDepsOutput() throws IOException {
+        BytecodeDependencyExtractor.ExtractionResult extraction = BytecodeDependencyExtractor.analyzeJar(jarPath);
+
+        assertEquals("Class-level output should match jdeps -verbose:class",
+                JDepsRunner.run("-verbose:class", jarPath.toString()), extraction.getViews().getVerboseAnalysis());
+        assertEquals("Package-level output should match jdeps",
+                JDepsRunner.run(jarPath.toString()), extraction.getViews().getBasicAnalysis());
+        assertEquals("Summary output should match jdeps -s",
+                JDepsRunner.run("-s", jarPath.toString()), extraction.getViews().getSummaryAnalysis());
+    }
+
+    @Test
+    public void testClassResultsMatchAnalyzer() throws IOException {
+        BytecodeDependencyExtractor.ExtractionResult extraction = BytecodeDependencyExtractor.analyzeJar(jarPath);
+        Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> expected =
+            ASMBytecodeAnalyzer.analyzeJarFileSequential(jarPath.toString());
+
+        assertEquals(expected.keySet(), extraction.getClassResults().keySet());
+        for (String className : expected.keySet()) {
+            ASMBytecodeAnalyzerTest.assertSameResult(expected.get(className), extraction.getClassResults().get(className));
+        }
+    }
+
+    @Test
+    public void testResolvesJdkModules() {
+        assertEquals("java.base", BytecodeDependencyExtractor.resolveModule("java.lang.String"));
+        assertEquals("JDK internal API (java.base)", BytecodeDependencyExtractor.resolveModule("jdk.internal.misc.Unsafe"));
+        assertEquals("not found", BytecodeDependencyExtractor.resolveModule("org.example.Missing"));
+    }
+}
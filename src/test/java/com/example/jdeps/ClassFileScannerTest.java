@@ -0,0 +1,111 @@
+package com.example.jdeps;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.objectweb.asm.ClassReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Test class for ClassFileScanner
+ */
+public class ClassFileScannerTest {
+
+    public ClassFileScannerTest() {
+        super();
+    }
+
+    private static List<byte[]> classesOf(Class<?> member) throws Exception {
+        Path jarPath = Paths.get(member.getProtectionDomain().getCodeSource().getLocation().toURI());
+        List<byte[]> classes = new ArrayList<>();
+        try (JarFile jarFile = new JarFile(jarPath.toFile())) {
+            for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements();) {
+                JarEntry entry = entries.nextElement();
+                if (entry.getName().endsWith(".class") && !entry.getName().startsWith("META-INF/")) {
+                    try (InputStream in = jarFile.getInputStream(entry)) {
+                        classes.add(in.readAllBytes());
+                    }
+                }
+            }
+        }
+        return classes;
+    }
+
+    private static void assertSameResult(ASMBytecodeAnalyzer.ClassAnalysisResult expected,
+                                         ASMBytecodeAnalyzer.ClassAnalysisResult actual) {
+        String name = expected.getClassName();
+        assertEquals(name, actual.getClassName());
+        assertEquals(name, expected.getSuperClass(), actual.getSuperClass());
+        assertEquals(name, expected.isAbstract(), actual.isAbstract());
+        assertEquals(name, expected.isInterface(), actual.isInterface());
+        assertEquals(name, expected.isFinal(), actual.isFinal());
+        assertEquals(name, expected.getTotalFields(), actual.getTotalFields());
+        assertEquals(name, expected.getTotalMethods(), actual.getTotalMethods());
+        assertEquals(name, expected.getInterfaces(), actual.getInterfaces());
+        assertEquals(name, expected.getAnnotations(), actual.getAnnotations());
+        assertEquals(name, expected.getMethodCalls(), actual.getMethodCalls());
+        assertEquals(name, expected.getFieldAccess(), actual.getFieldAccess());
+        assertEquals(name, expected.getMethodComplexity(), actual.getMethodComplexity());
+    }
+
+    @Test
+    public void testMatchesVisitorOnLibraryClasses() throws Exception {
+        // ASM covers switches, wide instructions and invokedynamic; Jackson covers annotations
+        List<byte[]> classes = new ArrayList<>(classesOf(ClassReader.class));
+        classes.addAll(classesOf(ObjectMapper.class));
+        assertTrue(classes.size() > 500);
+
+        for (byte[] classBytes : classes) {
+            ASMBytecodeAnalyzer.ClassAnalysisResult expected =
+                ASMBytecodeAnalyzer.analyzeClassWithVisitor(classBytes, classBytes.length, new SymbolTable());
+            ASMBytecodeAnalyzer.ClassAnalysisResult actual = new ASMBytecodeAnalyzer.ClassAnalysisResult();
+            // Trailing bytes past the given length must be ignored
+            byte[] padded = Arrays.copyOf(classBytes, classBytes.length + 7);
+            ClassFileScanner.analyze(padded, classBytes.length, actual);
+            assertSameResult(expected, actual);
+        }
+    }
+
+    @Test
+    public void testStreamAndJarAnalysisUseScanner() throws IOException {
+        Path jarPath = Files.createTempFile("scanner", ".jar");
+        try {
+            SyntheticProjectGenerator generator = new SyntheticProjectGenerator().classCount(50).cycleRatio(0.3);
+            generator.writeJar(jarPath);
+            byte[] classBytes = generator.generateClass(17);
+            Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> visited = ASMBytecodeAnalyzer.analyzeJarFileSequential(jarPath.toString());
+            Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> scanned;
+            System.setProperty(ASMBytecodeAnalyzer.ALLOCATION_LIGHT_PROPERTY, "true");
+            try {
+                assertSameResult(ASMBytecodeAnalyzer.analyzeClassWithVisitor(classBytes, classBytes.length, new SymbolTable()),
+                    ASMBytecodeAnalyzer.analyzeClass(new ByteArrayInputStream(classBytes)));
+                scanned = ASMBytecodeAnalyzer.analyzeJarFileSequential(jarPath.toString());
+            } finally {
+                System.clearProperty(ASMBytecodeAnalyzer.ALLOCATION_LIGHT_PROPERTY);
+            }
+            assertEquals(visited.keySet(), scanned.keySet());
+            for (String className : visited.keySet()) {
+                assertSameResult(visited.get(className), scanned.get(className));
+            }
+        } finally {
+            Files.deleteIfExists(jarPath);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsTruncatedClassFile() {
+        byte[] classBytes = new SyntheticProjectGenerator().classCount(1).generateClass(0);
+        ClassFileScanner.analyze(Arrays.copyOf(classBytes, classBytes.length + 100), classBytes.length / 2,
+            new ASMBytecodeAnalyzer.ClassAnalysisResult());
+    }
+}
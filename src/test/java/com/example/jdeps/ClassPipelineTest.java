@@ -0,0 +1,64 @@
+package com.example.jdeps;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Test class for ClassPipeline
+ */
+public class ClassPipelineTest {
+
+    public ClassPipelineTest() {
+        super();
+    }
+
+    @Test
+    public void testEveryStageSeesEveryClass() throws IOException {
+        Set<String> analyzed = ConcurrentHashMap.newKeySet();
+        List<String> written = new ArrayList<>();
+        ClassPipeline pipeline = new ClassPipeline(4)
+                .addStage("asm", 3, (entryName, classBytes) -> analyzed.add(entryName + ":" + classBytes.length))
+                .addStage("jar", 1, (entryName, classBytes) -> written.add(entryName));
+
+        for (int i = 0; i < 100; i++) {
+            pipeline.put("c/C" + i + ".class", new byte[i]);
+        }
+        pipeline.finish();
+
+        assertEquals(100, analyzed.size());
+        assertTrue(analyzed.contains("c/C42.class:42"));
+        // A single worker keeps the producer's order
+        assertEquals("c/C0.class", written.get(0));
+        assertEquals("c/C99.class", written.get(99));
+    }
+
+    @Test
+    public void testStageFailureStopsProducerWithoutBlocking() throws IOException {
+        ClassPipeline pipeline = new ClassPipeline(1).addStage("asm", 1, (entryName, classBytes) -> {
+            throw new IOException("bad class " + entryName);
+        });
+
+        int accepted = 0;
+        try {
+            for (int i = 0; i < 1000; i++) {
+                pipeline.put("C" + i + ".class", new byte[0]);
+                accepted++;
+            }
+            fail("Expected the failed stage to stop the producer");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().startsWith("bad class C"));
+        }
+        assertTrue(accepted < 1000);
+
+        try {
+            pipeline.finish();
+            fail("Expected finish to report the stage failure");
+        } catch (IOException expected) {
+            assertEquals("bad class C0.class", expected.getMessage());
+        }
+    }
+}
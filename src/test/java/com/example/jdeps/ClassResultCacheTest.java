@@ -0,0 +1,176 @@
+package com.example.jdeps;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Test class for ClassResultCache
+ */
+public class ClassResultCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    public ClassResultCacheTest() {
+        super();
+    }
+
+    private static Path jarPath;
+
+    @BeforeClass
+    public static void createJar() throws IOException {
+        jarPath = ASMBytecodeAnalyzerTest.packageProjectClasses();
+    }
+
+    @AfterClass
+    public static void deleteJar() throws IOException {
+        Files.deleteIfExists(jarPath);
+    }
+
+    @Test
+    public void testCachedAnalyzerResultsSurviveRestart() throws IOException {
+        Path cacheDir = folder.newFolder("classes").toPath();
+        Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> expected =
+            ASMBytecodeAnalyzer.analyzeJarFileSequential(jarPath.toString());
+
+        ClassResultCache first = new ClassResultCache(cacheDir);
+        ASMBytecodeAnalyzer.analyzeJarFile(jarPath.toString(), first);
+        assertEquals(expected.size(), first.getMissCount());
+        first.flush();
+
+        // A new instance has an empty memory layer, so every result comes back from disk
+        ClassResultCache reopened = new ClassResultCache(cacheDir);
+        Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> cached =
+            ASMBytecodeAnalyzer.analyzeJarFile(jarPath.toString(), reopened);
+        assertEquals(expected.size(), reopened.getHitCount());
+        assertEquals(0, reopened.getMissCount());
+
+        assertEquals(expected.keySet(), cached.keySet());
+        for (String className : expected.keySet()) {
+            ASMBytecodeAnalyzerTest.assertSameResult(expected.get(className), cached.get(className));
+        }
+    }
+
+    @Test
+    public void testEachAnalysisHasItsOwnSymbolTable() throws IOException {
+        ClassResultCache cache = new ClassResultCache(folder.newFolder("classes").toPath());
+        Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> first = ASMBytecodeAnalyzer.analyzeJarFile(jarPath.toString(), cache);
+        Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> second = ASMBytecodeAnalyzer.analyzeJarFile(jarPath.toString(), cache);
+        assertEquals(first.size(), cache.getHitCount());
+
+        SymbolTable firstSymbols = first.values().iterator().next().getSymbolTable();
+        SymbolTable secondSymbols = second.values().iterator().next().getSymbolTable();
+        assertNotSame(firstSymbols, secondSymbols);
+        for (String className : first.keySet()) {
+            assertSame(firstSymbols, first.get(className).getSymbolTable());
+            // Cached results are materialized into the table of the analysis that asked for them
+            assertSame(secondSymbols, second.get(className).getSymbolTable());
+        }
+    }
+
+    @Test
+    public void testMemoryOnlyCacheEvictsLeastRecentlyUsed() {
+        ASMBytecodeAnalyzer.ClassAnalysisResult result =
+            ASMBytecodeAnalyzer.analyzeClass(new SyntheticProjectGenerator().classCount(1).generateClass(0), null);
+        ClassResultCache.Entry entry = new ClassResultCache.Entry(result.getClassName(), null, result);
+        ClassResultCache sizing = new ClassResultCache();
+        sizing.put("a", entry);
+        long entryBytes = sizing.getMemoryBytes();
+
+        ClassResultCache cache = new ClassResultCache(null, 2 * entryBytes, 0);
+        SymbolTable symbols = new SymbolTable();
+        cache.put("a", entry);
+        cache.put("b", entry);
+        assertNotNull(cache.get("a", symbols, false, true));
+        cache.put("c", entry);
+        assertNull(cache.get("b", symbols, false, true));
+        assertNotNull(cache.get("a", symbols, false, true));
+        assertNotNull(cache.get("c", symbols, false, true));
+        assertEquals(2 * entryBytes, cache.getMemoryBytes());
+    }
+
+    @Test
+    public void testEntryMissingANeededPartCountsAsMiss() {
+        ClassResultCache cache = new ClassResultCache();
+        cache.put("references-only", new ClassResultCache.Entry("app/Main",
+                new HashSet<>(Collections.singletonList("lib/Util")), null));
+
+        ClassResultCache.Entry entry = cache.get("references-only", new SymbolTable(), false, true);
+        assertNotNull("the partial entry is returned so its references can be kept", entry);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0, cache.getHitCount());
+
+        assertNotNull(cache.get("references-only", new SymbolTable(), true, false));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testDiskLayerEvictsOverLimit() throws IOException {
+        Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> results =
+            ASMBytecodeAnalyzer.analyzeJarFileSequential(jarPath.toString());
+        Path unbounded = folder.newFolder("unbounded").toPath();
+        storeAll(new ClassResultCache(unbounded), results);
+        long totalBytes = directorySize(unbounded);
+
+        Path bounded = folder.newFolder("bounded").toPath();
+        storeAll(new ClassResultCache(bounded, 1L << 20, totalBytes / 2), results);
+        long boundedBytes = directorySize(bounded);
+        assertTrue("entry files take " + boundedBytes + " of " + totalBytes + " bytes",
+                boundedBytes > 0 && boundedBytes <= totalBytes / 2);
+    }
+
+    private static void storeAll(ClassResultCache cache, Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> results)
+            throws IOException {
+        for (ASMBytecodeAnalyzer.ClassAnalysisResult result : results.values()) {
+            String digest = ClassResultCache.digest(result.getClassName().getBytes(StandardCharsets.UTF_8));
+            cache.put(digest, new ClassResultCache.Entry(result.getClassName(), null, result));
+        }
+        cache.flush();
+    }
+
+    private static long directorySize(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    @Test
+    public void testCachedExtractionMatchesFullExtraction() throws IOException {
+        Path cacheDir = folder.newFolder("classes").toPath();
+        BytecodeDependencyExtractor.ExtractionResult expected = BytecodeDependencyExtractor.analyzeJar(jarPath);
+
+        // Metrics-only entries from the analyzer are upgraded with references on the first extraction
+        ClassResultCache analyzerCache = new ClassResultCache(cacheDir);
+        ASMBytecodeAnalyzer.analyzeJarFile(jarPath.toString(), analyzerCache);
+        analyzerCache.flush();
+        ClassResultCache extractorCache = new ClassResultCache(cacheDir);
+        BytecodeDependencyExtractor.analyzeJar(jarPath, extractorCache);
+        extractorCache.flush();
+
+        ClassResultCache reopened = new ClassResultCache(cacheDir);
+        BytecodeDependencyExtractor.ExtractionResult cached = BytecodeDependencyExtractor.analyzeJar(jarPath, reopened);
+        assertEquals(0, reopened.getMissCount());
+
+        assertEquals(expected.getClassEdges(), cached.getClassEdges());
+        assertEquals(expected.getViews().getVerboseAnalysis(), cached.getViews().getVerboseAnalysis());
+        assertEquals(expected.getViews().getBasicAnalysis(), cached.getViews().getBasicAnalysis());
+        assertEquals(expected.getClassResults().keySet(), cached.getClassResults().keySet());
+        for (String className : expected.getClassResults().keySet()) {
+            ASMBytecodeAnalyzerTest.assertSameResult(expected.getClassResults().get(className),
+                    cached.getClassResults().get(className));
+        }
+    }
+}
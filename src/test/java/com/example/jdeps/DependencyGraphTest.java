@@ -0,0 +1,53 @@
+package com.example.jdeps;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test class for DependencyGraph
+ */
+public class DependencyGraphTest {
+
+    public DependencyGraphTest() {
+        super();
+    }
+
+    private static final String OUTPUT =
+        "app.jar -> java.base\n" +
+        "app.jar -> not found\n" +
+        "   com.example.A                                      -> java.lang.String                                   java.base\n" +
+        "   com.example.A                                      -> org.lib.Helper                                     not found\n" +
+        "   com.example.B                                      -> java.lang.String                                   java.base\n" +
+        "   com.example.B                                      -> jdk.internal.misc.Unsafe                           JDK internal API (java.base)\n";
+
+    @Test
+    public void testParsesDependencyLines() {
+        DependencyGraph graph = DependencyGraph.fromJDepsOutput(OUTPUT, DependencyGraph.LineFilter.DEPENDENCIES);
+
+        assertEquals(4, graph.edgeCount());
+        int a = graph.nodeId("com.example.A");
+        int b = graph.nodeId("com.example.B");
+        int string = graph.nodeId("java.lang.String");
+
+        assertEquals(2, graph.outDegree(a));
+        assertEquals(2, graph.outDegree(b));
+        assertEquals(0, graph.outDegree(string));
+        assertEquals(2, graph.inDegree(string));
+        assertArrayEquals(new int[] { string, graph.nodeId("org.lib.Helper") }, graph.neighbors(a));
+        assertArrayEquals(new int[] { a, b }, graph.reverseNeighbors(string));
+        assertEquals("not found", graph.edgeLabel(graph.edgeStart(a) + 1));
+        assertEquals("JDK internal API (java.base)", graph.edgeLabel(graph.edgeStart(b) + 1));
+        assertEquals(b, graph.edgeSource(graph.edgeStart(b)));
+        assertEquals(-1, graph.nodeId("app.jar"));
+    }
+
+    @Test
+    public void testParsesSummaryLines() {
+        DependencyGraph graph = DependencyGraph.fromJDepsOutput(OUTPUT, DependencyGraph.LineFilter.SUMMARY);
+
+        assertEquals(2, graph.edgeCount());
+        assertEquals(2, graph.outDegree(graph.nodeId("app.jar")));
+        assertEquals(1, graph.inDegree(graph.nodeId("not found")));
+        assertEquals("", graph.edgeLabel(graph.edgeStart(graph.nodeId("app.jar")) + 1));
+    }
+}
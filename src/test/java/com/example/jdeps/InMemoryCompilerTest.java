@@ -0,0 +1,92 @@
+package com.example.jdeps;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Test class for InMemoryCompiler
+ */
+public class InMemoryCompilerTest {
+
+    public InMemoryCompilerTest() {
+        super();
+    }
+
+    private static Map<String, String> sources() {
+        Map<String, String> sources = new LinkedHashMap<>();
+        sources.put("src/demo/Greeter.java",
+                "package demo;\n"
+                + "public class Greeter {\n"
+                + "    private final java.util.List<String> names = new java.util.ArrayList<>();\n"
+                + "    public String greet(String name) { names.add(name); return new Helper().format(name); }\n"
+                + "    static class Helper { String format(String name) { return name.isEmpty() ? \"?\" : \"Hi \" + name; } }\n"
+                + "}\n");
+        sources.put("src/demo/app/Main.java",
+                "package demo.app;\n"
+                + "public class Main {\n"
+                + "    public static void main(String[] args) { System.out.println(new demo.Greeter().greet(\"x\")); }\n"
+                + "}\n");
+        return sources;
+    }
+
+    @Test
+    public void testCompilesClassesIntoMemory() throws IOException {
+        InMemoryCompiler.Result result = InMemoryCompiler.compile(sources(), Collections.singletonList("-proc:none"));
+
+        assertTrue(result.getDiagnostics(), result.isSuccess());
+        assertEquals(new TreeSet<>(Arrays.asList("demo/Greeter.class", "demo/Greeter$Helper.class", "demo/app/Main.class")),
+                result.getClassFiles().keySet());
+
+        Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> classes =
+            ASMBytecodeAnalyzer.analyzeClassFiles(result.getClassFiles(), null);
+        assertEquals(new HashSet<>(Arrays.asList("demo/Greeter", "demo/app/Main")), classes.keySet());
+        assertEquals(2, classes.get("demo/Greeter").getTotalMethods());
+    }
+
+    @Test
+    public void testHandsEachClassToListener() throws IOException {
+        Map<String, byte[]> received = new TreeMap<>();
+        InMemoryCompiler.Result result = InMemoryCompiler.compile(sources(), Collections.singletonList("-proc:none"),
+                received::put);
+
+        assertTrue(result.getDiagnostics(), result.isSuccess());
+        assertTrue(result.getClassFiles().isEmpty());
+        assertEquals(3, result.getClassCount());
+
+        InMemoryCompiler.Result retained = InMemoryCompiler.compile(sources(), Collections.singletonList("-proc:none"));
+        assertEquals(3, retained.getClassCount());
+        assertEquals(retained.getClassFiles().keySet(), received.keySet());
+        assertArrayEquals(retained.getClassFiles().get("demo/app/Main.class"), received.get("demo/app/Main.class"));
+    }
+
+    @Test
+    public void testInMemoryExtractionMatchesJDepsOnWrittenJar() throws IOException {
+        InMemoryCompiler.Result result = InMemoryCompiler.compile(sources(), Collections.singletonList("-proc:none"));
+        Path jarPath = Files.createTempFile("in-memory", ".jar");
+        try {
+            InMemoryCompiler.writeJar(result.getClassFiles(), jarPath);
+            BytecodeDependencyExtractor.ExtractionResult extraction = BytecodeDependencyExtractor.analyzeClassFiles(
+                    jarPath.getFileName().toString(), result.getClassFiles(), null);
+
+            assertEquals(JDepsRunner.run("-verbose:class", jarPath.toString()), extraction.getViews().getVerboseAnalysis());
+            assertEquals(JDepsRunner.run("-s", jarPath.toString()), extraction.getViews().getSummaryAnalysis());
+        } finally {
+            Files.deleteIfExists(jarPath);
+        }
+    }
+
+    @Test
+    public void testReportsCompilationErrors() throws IOException {
+        Map<String, String> sources = Collections.singletonMap("src/Broken.java",
+                "public class Broken { void run() { undefined(); } }\n");
+        InMemoryCompiler.Result result = InMemoryCompiler.compile(sources, Collections.emptyList());
+
+        assertFalse(result.isSuccess());
+        assertTrue(result.getDiagnostics(), result.getDiagnostics().contains("ERROR: /src/Broken.java:1"));
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.jdeps;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test class for JDepsWebServer executor selection
+ */
+public class JDepsWebServerTest {
+
+    public JDepsWebServerTest() {
+        super();
+    }
+
+    @Test
+    public void testFixedModeUsesBoundedPool() {
+        ExecutorService executor = JDepsWebServer.createRequestExecutor("fixed", 4);
+        try {
+            assertTrue(executor instanceof ThreadPoolExecutor);
+            assertEquals(4, ((ThreadPoolExecutor) executor).getMaximumPoolSize());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testVirtualModeRunsTasksOnAnyJdk() throws Exception {
+        ExecutorService executor = JDepsWebServer.createRequestExecutor("virtual", 2);
+        try {
+            assertEquals("done", executor.submit(() -> "done").get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsUnknownMode() {
+        JDepsWebServer.createRequestExecutor("elastic", 2);
+    }
+}
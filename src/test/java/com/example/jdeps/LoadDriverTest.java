@@ -0,0 +1,54 @@
+package com.example.jdeps;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.*;
+
+/**
+ * Test class for LoadDriver
+ */
+public class LoadDriverTest {
+
+    public LoadDriverTest() {
+        super();
+    }
+
+    @Test
+    public void testLatencyPercentiles() {
+        LoadDriver.Latencies latencies = new LoadDriver.Latencies();
+        assertEquals(0, latencies.percentile(50));
+
+        for (int i = 100; i >= 1; i--) {
+            latencies.record(i * 1_000_000L);
+        }
+        assertEquals(100, latencies.count());
+        assertEquals(50_000_000L, latencies.percentile(50));
+        assertEquals(99_000_000L, latencies.percentile(99));
+        assertEquals(100_000_000L, latencies.percentile(100));
+    }
+
+    @Test
+    public void testMultipartBodyRoundTripsThroughServerParser() throws IOException {
+        byte[] content = new byte[100_000];
+        new Random(1).nextBytes(content);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        LoadDriver.writeMultipartBody(body, "boundary42", "project.zip", content);
+
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        long length = new MultipartStreamParser(new ByteArrayInputStream(body.toByteArray()), "boundary42")
+            .transferFirstFile(Channels.newChannel(received));
+
+        assertEquals(content.length, length);
+        assertArrayEquals(content, received.toByteArray());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsUnknownGeneratorSetting() {
+        new LoadDriver().configure("concurrency=2", "classes=10", "colour=blue");
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.jdeps;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Test class for MappedJarReader
+ */
+public class MappedJarReaderTest {
+
+    public MappedJarReaderTest() {
+        super();
+    }
+
+    private static Path writeMixedJar() throws IOException {
+        Path jarPath = Files.createTempFile("mapped", ".jar");
+        Random random = new Random(3);
+        try (ZipOutputStream zip = new ZipOutputStream(JsonFiles.newOutputStream(jarPath))) {
+            zip.setComment("mapped reader test");
+            for (int i = 0; i < 20; i++) {
+                byte[] content = new byte[i * 997];
+                // Half random (incompressible), half repetitive
+                if (i % 2 == 0) {
+                    random.nextBytes(content);
+                } else {
+                    Arrays.fill(content, (byte) i);
+                }
+                ZipEntry entry = new ZipEntry("data/entry" + i + ".bin");
+                if (i % 3 == 0) {
+                    CRC32 crc = new CRC32();
+                    crc.update(content);
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(content.length);
+                    entry.setCompressedSize(content.length);
+                    entry.setCrc(crc.getValue());
+                }
+                entry.setExtra(i % 4 == 0 ? new byte[] {(byte) 0xCA, (byte) 0xFE, 2, 0, 1, 2} : null);
+                zip.putNextEntry(entry);
+                zip.write(content);
+                zip.closeEntry();
+            }
+        }
+        return jarPath;
+    }
+
+    /**
+     * Returns the offsets of the central headers, walking the directory the end header points to
+     */
+    private static List<Integer> centralHeaders(ByteBuffer jar) {
+        int end = jar.limit() - 22;
+        while (jar.getInt(end) != 0x06054b50) {
+            end--;
+        }
+        int count = jar.getShort(end + 10) & 0xFFFF;
+        int position = jar.getInt(end + 16);
+        List<Integer> headers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            headers.add(position);
+            position += 46 + (jar.getShort(position + 28) & 0xFFFF) + (jar.getShort(position + 30) & 0xFFFF)
+                    + (jar.getShort(position + 32) & 0xFFFF);
+        }
+        return headers;
+    }
+
+    private static Path writeMixedJar(BiConsumer<ByteBuffer, List<Integer>> patch) throws IOException {
+        Path jarPath = writeMixedJar();
+        ByteBuffer jar = ByteBuffer.wrap(Files.readAllBytes(jarPath)).order(ByteOrder.LITTLE_ENDIAN);
+        patch.accept(jar, centralHeaders(jar));
+        Files.write(jarPath, jar.array());
+        return jarPath;
+    }
+
+    /**
+     * Writes a single stored entry whose central header keeps its sizes in a ZIP64 extra field
+     */
+    private static Path writeZip64ExtraJar(byte[] content, int extraLength) throws IOException {
+        byte[] name = "zip64.bin".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer jar = ByteBuffer.allocate(30 + name.length + content.length + 46 + name.length + 4 + extraLength + 22)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        jar.putInt(0x04034b50).putShort((short) 20).putShort((short) 0).putShort((short) 0)
+                .putInt(0).putInt(0).putInt(content.length).putInt(content.length)
+                .putShort((short) name.length).putShort((short) 0).put(name).put(content);
+        int directoryOffset = jar.position();
+        jar.putInt(0x02014b50).putShort((short) 45).putShort((short) 45).putShort((short) 0).putShort((short) 0)
+                .putInt(0).putInt(0).putInt(0xFFFFFFFF).putInt(0xFFFFFFFF)
+                .putShort((short) name.length).putShort((short) (4 + extraLength)).putShort((short) 0)
+                .putShort((short) 0).putShort((short) 0).putInt(0).putInt(0).put(name);
+        jar.putShort((short) 0x0001).putShort((short) extraLength);
+        for (int i = 0; i + 8 <= extraLength; i += 8) {
+            jar.putLong(content.length);
+        }
+        int directorySize = jar.position() - directoryOffset;
+        jar.putInt(0x06054b50).putShort((short) 0).putShort((short) 0).putShort((short) 1).putShort((short) 1)
+                .putInt(directorySize).putInt(directoryOffset).putShort((short) 0);
+        Path jarPath = Files.createTempFile("mapped-zip64-extra", ".jar");
+        Files.write(jarPath, jar.array());
+        return jarPath;
+    }
+
+    @Test
+    public void testReadsStoredAndDeflatedEntriesLikeJarFile() throws IOException {
+        Path jarPath = writeMixedJar();
+        try (MappedJarReader reader = MappedJarReader.open(jarPath); JarFile jarFile = new JarFile(jarPath.toFile())) {
+            List<String> names = new ArrayList<>();
+            for (MappedJarReader.Entry entry : reader.getEntries()) {
+                names.add(entry.getName());
+                byte[] expected;
+                try (InputStream in = jarFile.getInputStream(jarFile.getEntry(entry.getName()))) {
+                    expected = in.readAllBytes();
+                }
+                assertArrayEquals(entry.getName(), expected, reader.readAllBytes(entry));
+                byte[] shared = reader.readShared(entry);
+                assertArrayEquals(entry.getName(), expected, Arrays.copyOf(shared, entry.getSize()));
+            }
+
+            List<String> expectedNames = new ArrayList<>();
+            for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements();) {
+                expectedNames.add(entries.nextElement().getName());
+            }
+            assertEquals(expectedNames, names);
+            assertTrue(reader.getEntries().get(3).isStored());
+            assertFalse(reader.getEntries().get(1).isStored());
+        } finally {
+            Files.deleteIfExists(jarPath);
+        }
+    }
+
+    @Test
+    public void testReadsAgainAfterScratchIsReleased() throws IOException {
+        Path jarPath = writeMixedJar();
+        try (MappedJarReader reader = MappedJarReader.open(jarPath)) {
+            MappedJarReader.Entry deflated = reader.getEntries().get(1);
+            byte[] expected = reader.readAllBytes(deflated);
+            MappedJarReader.releaseScratch();
+            MappedJarReader.releaseScratch();
+            assertArrayEquals(expected, Arrays.copyOf(reader.readShared(deflated), deflated.getSize()));
+        } finally {
+            MappedJarReader.releaseScratch();
+            Files.deleteIfExists(jarPath);
+        }
+    }
+
+    @Test
+    public void testReadsZip64CentralDirectory() throws IOException {
+        Path jarPath = Files.createTempFile("mapped-zip64", ".jar");
+        try {
+            // More than 65535 entries makes ZipOutputStream write the ZIP64 end records
+            try (ZipOutputStream zip = new ZipOutputStream(JsonFiles.newOutputStream(jarPath))) {
+                for (int i = 0; i < 70_000; i++) {
+                    zip.putNextEntry(new ZipEntry("e" + i));
+                    zip.write(i & 0xFF);
+                    zip.closeEntry();
+                }
+            }
+            try (MappedJarReader reader = MappedJarReader.open(jarPath)) {
+                assertEquals(70_000, reader.getEntries().size());
+                MappedJarReader.Entry last = reader.getEntries().get(69_999);
+                assertEquals("e69999", last.getName());
+                assertArrayEquals(new byte[] {(byte) (69_999 & 0xFF)}, reader.readAllBytes(last));
+            }
+        } finally {
+            Files.deleteIfExists(jarPath);
+        }
+    }
+
+    @Test
+    public void testJarAnalysisMatchesJarFileReading() throws IOException {
+        Path jarPath = Files.createTempFile("mapped-analysis", ".jar");
+        try {
+            new SyntheticProjectGenerator().classCount(200).cycleRatio(0.2).writeJar(jarPath);
+            Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> mapped =
+                ASMBytecodeAnalyzer.analyzeJarFileSequential(jarPath.toString());
+            BytecodeDependencyExtractor.ExtractionResult mappedExtraction = BytecodeDependencyExtractor.analyzeJar(jarPath);
+
+            Map<String, ASMBytecodeAnalyzer.ClassAnalysisResult> streamed;
+            BytecodeDependencyExtractor.ExtractionResult streamedExtraction;
+            System.setProperty(MappedJarReader.ENABLED_PROPERTY, "false");
+            try {
+                streamed = ASMBytecodeAnalyzer.analyzeJarFileSequential(jarPath.toString());
+                streamedExtraction = BytecodeDependencyExtractor.analyzeJar(jarPath);
+            } finally {
+                System.clearProperty(MappedJarReader.ENABLED_PROPERTY);
+            }
+
+            assertEquals(200, mapped.size());
+            assertEquals(streamed.keySet(), mapped.keySet());
+            for (String className : streamed.keySet()) {
+                assertEquals(streamed.get(className).getMethodCalls(), mapped.get(className).getMethodCalls());
+                assertEquals(streamed.get(className).getMethodComplexity(), mapped.get(className).getMethodComplexity());
+            }
+            assertEquals(streamedExtraction.getViews().getVerboseAnalysis(), mappedExtraction.getViews().getVerboseAnalysis());
+        } finally {
+            Files.deleteIfExists(jarPath);
+        }
+    }
+
+    @Test(expected = ZipException.class)
+    public void testRejectsFilesWithoutCentralDirectory() throws IOException {
+        Path notAJar = Files.createTempFile("not-a-jar", ".jar");
+        try {
+            Files.write(notAJar, new byte[1000]);
+            MappedJarReader.open(notAJar).close();
+        } finally {
+            Files.deleteIfExists(notAJar);
+        }
+    }
+
+    @Test
+    public void testReadsSizesFromZip64ExtraField() throws IOException {
+        byte[] content = "stored through a ZIP64 extra field".getBytes(StandardCharsets.UTF_8);
+        Path jarPath = writeZip64ExtraJar(content, 16);
+        try (MappedJarReader reader = MappedJarReader.open(jarPath)) {
+            MappedJarReader.Entry entry = reader.getEntries().get(0);
+            assertEquals(content.length, entry.getSize());
+            assertArrayEquals(content, reader.readAllBytes(entry));
+        } finally {
+            Files.deleteIfExists(jarPath);
+        }
+    }
+
+    @Test(expected = ZipException.class)
+    public void testRejectsTruncatedZip64ExtraField() throws IOException {
+        // Both sizes overflowed but the extra field only holds one of them
+        Path jarPath = writeZip64ExtraJar(new byte[10], 8);
+        try {
+            MappedJarReader.open(jarPath).close();
+        } finally {
+            Files.deleteIfExists(jarPath);
+        }
+    }
+
+    @Test(expected = ZipException.class)
+    public void testRejectsExtraFieldLongerThanItsHeader() throws IOException {
+        // Entry 0 carries a two-byte extra field; claim it runs on past the header
+        Path jarPath = writeMixedJar((jar, headers) -> {
+            int extra = headers.get(0) + 46 + (jar.getShort(headers.get(0) + 28) & 0xFFFF);
+            jar.putShort(extra + 2, (short) 40);
+        });
+        try {
+            MappedJarReader.open(jarPath).close();
+        } finally {
+            Files.deleteIfExists(jarPath);
+        }
+    }
+
+    @Test(expected = ZipException.class)
+    public void testRejectsDirectoryWithFewerEntriesThanRecorded() throws IOException {
+        Path jarPath = writeMixedJar((jar, headers) -> jar.putInt(headers.get(5), 0));
+        try {
+            MappedJarReader.open(jarPath).close();
+        } finally {
+            Files.deleteIfExists(jarPath);
+        }
+    }
+
+    @Test(expected = ZipException.class)
+    public void testRejectsTruncatedArchive() throws IOException {
+        Path jarPath = writeMixedJar();
+        try {
+            byte[] content = Files.readAllBytes(jarPath);
+            int end = content.length - 22 - "mapped reader test".length();
+            // Keep the end header but drop the second half of the central directory
+            ByteBuffer jar = ByteBuffer.wrap(content).order(ByteOrder.LITTLE_ENDIAN);
+            int cut = centralHeaders(jar).get(10);
+            byte[] truncated = new byte[cut + content.length - end];
+            System.arraycopy(content, 0, truncated, 0, cut);
+            System.arraycopy(content, end, truncated, cut, content.length - end);
+            Files.write(jarPath, truncated);
+            MappedJarReader.open(jarPath).close();
+        } finally {
+            Files.deleteIfExists(jarPath);
+        }
+    }
+
+    @Test
+    public void testRejectsUnsupportedEntriesOnlyWhenRead() throws IOException {
+        Path jarPath = writeMixedJar((jar, headers) -> {
+            jar.putShort(headers.get(1) + 10, (short) 12);
+            jar.putShort(headers.get(2) + 8, (short) 1);
+        });
+        try (MappedJarReader reader = MappedJarReader.open(jarPath)) {
+            assertEquals(20, reader.getEntries().size());
+            for (int i : new int[] {1, 2}) {
+                try {
+                    reader.readAllBytes(reader.getEntries().get(i));
+                    fail("Entry " + i + " should not be readable");
+                } catch (ZipException expected) {
+                    assertTrue(expected.getMessage(), expected.getMessage().contains("entry" + i + ".bin"));
+                }
+            }
+            assertEquals(4 * 997, reader.readAllBytes(reader.getEntries().get(4)).length);
+        } finally {
+            Files.deleteIfExists(jarPath);
+        }
+    }
+}
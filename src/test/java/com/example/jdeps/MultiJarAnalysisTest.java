@@ -0,0 +1,111 @@
+package com.example.jdeps;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Test class for MultiJarAnalysis
+ */
+public class MultiJarAnalysisTest {
+
+    public MultiJarAnalysisTest() {
+        super();
+    }
+
+    private static final Map<String, Map<String, byte[]>> JARS = new LinkedHashMap<>();
+
+    @BeforeClass
+    public static void compileJars() throws IOException {
+        Map<String, String> sources = new LinkedHashMap<>();
+        sources.put("app/Main.java", "package app;\n"
+                + "public class Main { public static void main(String[] args) { new lib.Util().run(); } }\n");
+        sources.put("lib/Util.java", "package lib;\n"
+                + "public class Util { public void run() { System.out.println(\"run\"); } }\n");
+        InMemoryCompiler.Result result = InMemoryCompiler.compile(sources, Collections.singletonList("-proc:none"));
+        assertTrue(result.getDiagnostics(), result.isSuccess());
+
+        Map<String, byte[]> app = new TreeMap<>();
+        Map<String, byte[]> lib = new TreeMap<>();
+        for (Map.Entry<String, byte[]> classFile : result.getClassFiles().entrySet()) {
+            (classFile.getKey().startsWith("app/") ? app : lib).put(classFile.getKey(), classFile.getValue());
+        }
+        JARS.put("lib/app.jar", app);
+        JARS.put("lib/broken.jar", null);
+        JARS.put("lib/util.jar", lib);
+        // Same file name in another directory, defining the same class
+        JARS.put("vendor/util.jar", lib);
+    }
+
+    private static MultiJarAnalysis analyzeJars() throws IOException {
+        return analyzeJars(Arrays.asList("lib/app.jar", "lib/broken.jar", "lib/util.jar"));
+    }
+
+    private static MultiJarAnalysis analyzeJars(List<String> paths) throws IOException {
+        return MultiJarAnalysis.analyze(paths, (path, pool) -> {
+            Map<String, byte[]> classFiles = JARS.get(path);
+            if (classFiles == null) {
+                throw new IOException("corrupt JAR");
+            }
+            String name = path.substring(path.lastIndexOf('/') + 1);
+            BytecodeDependencyExtractor.ExtractionResult extraction =
+                BytecodeDependencyExtractor.analyzeClassFiles(name, classFiles, null);
+            ZipProjectAnalyzer.JDepsResults views = new ZipProjectAnalyzer.JDepsResults();
+            views.basicAnalysis = extraction.getViews().getBasicAnalysis();
+            views.verboseAnalysis = extraction.getViews().getVerboseAnalysis();
+            views.summaryAnalysis = extraction.getViews().getSummaryAnalysis();
+            return new MultiJarAnalysis.JarResult(path, views, extraction.getClassResults());
+        });
+    }
+
+    @Test
+    public void testKeepsUploadOrderAndSkipsFailedJars() throws IOException {
+        MultiJarAnalysis jars = analyzeJars();
+
+        assertEquals(2, jars.getJarResults().size());
+        assertEquals("lib/app.jar", jars.getJarResults().get(0).getPath());
+        assertEquals("util.jar", jars.getJarResults().get(1).getName());
+        assertEquals(new HashSet<>(Arrays.asList("app/Main", "lib/Util")), jars.getClassResults().keySet());
+        assertTrue(jars.getCombinedResults().verboseAnalysis.startsWith("=== lib/app.jar ===\n"));
+        assertTrue(jars.getCombinedResults().verboseAnalysis.contains("\n\n=== lib/util.jar ===\n"));
+    }
+
+    @Test
+    public void testKeepsSameNamedJarsApartAndReportsDuplicateClasses() throws IOException {
+        MultiJarAnalysis jars = analyzeJars(Arrays.asList("lib/app.jar", "lib/util.jar", "vendor/util.jar"));
+
+        assertEquals("lib/util.jar", jars.getOwner("lib.Util"));
+        assertEquals(Collections.singletonMap("lib/Util", Arrays.asList("lib/util.jar", "vendor/util.jar")),
+                jars.getDuplicateClasses());
+        assertSame(jars.getJarResults().get(1).getClassResults().get("lib/Util"),
+                jars.getClassResults().get("lib/Util"));
+        assertTrue(jars.getCombinedResults().verboseAnalysis.contains("\n\n=== vendor/util.jar ===\n"));
+
+        List<String> classEdges = new ArrayList<>();
+        jars.visitClassEdges((jar, source, target, module) -> classEdges.add(jar + " " + source + " " + target + " " + module));
+        assertTrue(classEdges.toString(), classEdges.contains("vendor/util.jar lib.Util java.io.PrintStream java.base"));
+    }
+
+    @Test
+    public void testResolvesReferencesAcrossJars() throws IOException {
+        MultiJarAnalysis jars = analyzeJars();
+        assertEquals("lib/util.jar", jars.getOwner("lib.Util"));
+
+        List<String> classEdges = new ArrayList<>();
+        jars.visitClassEdges((jar, source, target, module) -> classEdges.add(jar + " " + source + " " + target + " " + module));
+        assertTrue(classEdges.toString(), classEdges.contains("lib/app.jar app.Main lib.Util lib/util.jar"));
+        assertTrue(classEdges.toString(), classEdges.contains("lib/util.jar lib.Util java.io.PrintStream java.base"));
+
+        List<String> packageEdges = new ArrayList<>();
+        jars.visitPackageEdges((jar, source, target, module) -> packageEdges.add(jar + " " + source + " " + target + " " + module));
+        assertTrue(packageEdges.toString(), packageEdges.contains("lib/app.jar app lib lib/util.jar"));
+
+        List<String> summaryEdges = new ArrayList<>();
+        jars.visitSummaryEdges((jar, source, target, module) -> summaryEdges.add(source + " -> " + target));
+        assertTrue(summaryEdges.toString(), summaryEdges.contains("app.jar -> lib/util.jar"));
+        assertFalse(summaryEdges.toString(), summaryEdges.contains("app.jar -> not found"));
+    }
+}
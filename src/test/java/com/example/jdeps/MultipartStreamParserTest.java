@@ -0,0 +1,95 @@
+package com.example.jdeps;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Test class for MultipartStreamParser
+ */
+public class MultipartStreamParserTest {
+
+    public MultipartStreamParserTest() {
+        super();
+    }
+
+    private static final String BOUNDARY = "----WebKitFormBoundary7MA4YWxkTrZu0gW";
+
+    @Test
+    public void testExtractsFileAcrossSmallReads() throws IOException {
+        byte[] content = new byte[200_000];
+        new Random(42).nextBytes(content);
+        // Bytes that look like the start of a delimiter must survive intact
+        byte[] decoy = ("\r\n--" + BOUNDARY.substring(0, 10)).getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(decoy, 0, content, 1000, decoy.length);
+        content[content.length - 2] = '\r';
+        content[content.length - 1] = '\n';
+
+        byte[] body = multipartBody(content);
+        for (int bufferSize : new int[] { 128, 4096, MultipartStreamParser.DEFAULT_BUFFER_SIZE }) {
+            assertArrayEquals(content, extract(new TrickleInputStream(body, 7), bufferSize));
+            assertArrayEquals(content, extract(new ByteArrayInputStream(body), bufferSize));
+        }
+    }
+
+    @Test
+    public void testExtractsEmptyFile() throws IOException {
+        assertArrayEquals(new byte[0], extract(new ByteArrayInputStream(multipartBody(new byte[0])), 128));
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsTruncatedBody() throws IOException {
+        byte[] body = multipartBody("truncated".getBytes(StandardCharsets.US_ASCII));
+        byte[] truncated = new byte[body.length - BOUNDARY.length() - 8];
+        System.arraycopy(body, 0, truncated, 0, truncated.length);
+        extract(new ByteArrayInputStream(truncated), 128);
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsBodyWithoutFilePart() throws IOException {
+        String body = "--" + BOUNDARY + "\r\n" +
+            "Content-Disposition: form-data; name=\"field\"\r\n\r\n" +
+            "value\r\n" +
+            "--" + BOUNDARY + "--\r\n";
+        extract(new ByteArrayInputStream(body.getBytes(StandardCharsets.US_ASCII)), 128);
+    }
+
+    private static byte[] extract(InputStream in, int bufferSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new MultipartStreamParser(in, BOUNDARY, bufferSize).transferFirstFile(Channels.newChannel(out));
+        return out.toByteArray();
+    }
+
+    /** Builds a body with a plain form field ahead of the file part */
+    private static byte[] multipartBody(byte[] content) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(("preamble\r\n--" + BOUNDARY + "\r\n" +
+            "Content-Disposition: form-data; name=\"description\"\r\n\r\n" +
+            "project upload\r\n" +
+            "--" + BOUNDARY + "\r\n" +
+            "Content-Disposition: form-data; name=\"file\"; filename=\"project.zip\"\r\n" +
+            "Content-Type: application/zip\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        body.write(content);
+        body.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        return body.toByteArray();
+    }
+
+    /** Returns at most a few bytes per read, like a slow network connection */
+    private static class TrickleInputStream extends ByteArrayInputStream {
+        private final int maxRead;
+
+        TrickleInputStream(byte[] data, int maxRead) {
+            super(data);
+            this.maxRead = maxRead;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, maxRead));
+        }
+    }
+}
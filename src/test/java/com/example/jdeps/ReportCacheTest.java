@@ -0,0 +1,178 @@
+package com.example.jdeps;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+/**
+ * Test class for ReportCache
+ */
+public class ReportCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    public ReportCacheTest() {
+        super();
+    }
+
+    @Test
+    public void testHitsSurviveNewCacheInstances() throws IOException {
+        Path reportsDir = folder.newFolder("web-reports").toPath();
+        Path report = createReport(reportsDir, "demo-1", 10);
+
+        new ReportCache(reportsDir, 10, Long.MAX_VALUE).store("abc", report.toString());
+
+        ReportCache reopened = new ReportCache(reportsDir, 10, Long.MAX_VALUE);
+        assertEquals(report.toAbsolutePath().toString(), reopened.lookup("abc"));
+        assertNull(reopened.lookup("def"));
+    }
+
+    @Test
+    public void testMissesWhenReportDirectoryIsGone() throws IOException {
+        Path reportsDir = folder.newFolder("web-reports").toPath();
+        ReportCache cache = new ReportCache(reportsDir, 10, Long.MAX_VALUE);
+        Path report = createReport(reportsDir, "demo-1", 10);
+        cache.store("abc", report.toString());
+
+        Files.delete(report.resolve("index.html"));
+        Files.delete(report);
+        assertNull(cache.lookup("abc"));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedReports() throws IOException {
+        Path reportsDir = folder.newFolder("web-reports").toPath();
+        ReportCache cache = new ReportCache(reportsDir, 2, Long.MAX_VALUE);
+        Path first = createReport(reportsDir, "first", 10);
+        Path second = createReport(reportsDir, "second", 10);
+        cache.store("first", first.toString());
+        cache.store("second", second.toString());
+        age(reportsDir, "first", 2000);
+        age(reportsDir, "second", 3000);
+
+        // Using "first" makes "second" the eviction candidate
+        assertNotNull(cache.lookup("first"));
+        cache.store("third", createReport(reportsDir, "third", 10).toString());
+
+        assertNotNull(cache.lookup("first"));
+        assertNull(cache.lookup("second"));
+        assertFalse(Files.exists(second));
+        assertNotNull(cache.lookup("third"));
+    }
+
+    @Test
+    public void testEvictsBySize() throws IOException {
+        Path reportsDir = folder.newFolder("web-reports").toPath();
+        ReportCache cache = new ReportCache(reportsDir, 10, 150);
+        cache.store("old", createReport(reportsDir, "old", 100).toString());
+        age(reportsDir, "old", 1000);
+        cache.store("new", createReport(reportsDir, "new", 100).toString());
+
+        assertNull(cache.lookup("old"));
+        assertNotNull(cache.lookup("new"));
+    }
+
+    @Test
+    public void testEvictsBySizeRecordedInEntries() throws IOException {
+        Path reportsDir = folder.newFolder("web-reports").toPath();
+        ReportCache cache = new ReportCache(reportsDir, 10, 150);
+        Path old = createReport(reportsDir, "old", 100);
+        // An entry from before sizes were recorded is measured once
+        Path entry = Files.createDirectories(reportsDir.resolve(".report-cache")).resolve("old");
+        Files.write(entry, "old".getBytes());
+        age(reportsDir, "old", 1000);
+        cache.store("small", createReport(reportsDir, "small", 10).toString());
+        assertEquals(Arrays.asList("old", "100"), Files.readAllLines(entry));
+
+        // Only the recorded size counts, so growth after storing does not walk the report again
+        Files.write(old.resolve("extra.bin"), new byte[1000]);
+        age(reportsDir, "small", 500);
+        cache.store("new", createReport(reportsDir, "new", 10).toString());
+        assertNotNull(cache.lookup("old"));
+        assertNotNull(cache.lookup("new"));
+    }
+
+    @Test
+    public void testCorruptEntriesNeverResolveToTheReportsDirectory() throws IOException {
+        Path reportsDir = folder.newFolder("web-reports").toPath();
+        ReportCache cache = new ReportCache(reportsDir, 1, Long.MAX_VALUE);
+        Path report = createReport(reportsDir, "kept", 10);
+        Path entries = Files.createDirectories(reportsDir.resolve(".report-cache"));
+        Files.write(entries.resolve("empty"), new byte[0]);
+        Files.write(entries.resolve("root"), ".\n10\n".getBytes());
+        Files.write(entries.resolve("outside"), "../elsewhere\n10\n".getBytes());
+
+        assertNull(cache.lookup("empty"));
+        assertFalse(Files.exists(entries.resolve("empty")));
+
+        // Eviction drops the corrupt entries without touching any directory
+        cache.store("kept", report.toString());
+        assertFalse(Files.exists(entries.resolve("root")));
+        assertFalse(Files.exists(entries.resolve("outside")));
+        assertTrue(Files.exists(report.resolve("index.html")));
+        assertEquals(report.toAbsolutePath().toString(), cache.lookup("kept"));
+    }
+
+    @Test
+    public void testSecondStoreOfSameDigestKeepsFirstReport() throws IOException {
+        Path reportsDir = folder.newFolder("web-reports").toPath();
+        ReportCache cache = new ReportCache(reportsDir, 10, Long.MAX_VALUE);
+        Path first = createReport(reportsDir, "demo-1", 10);
+        Path second = createReport(reportsDir, "demo-2", 10);
+
+        assertEquals(first.toString(), cache.store("abc", first.toString()));
+        // A concurrent identical upload finishes later: its report is a duplicate
+        assertEquals(first.toAbsolutePath().toString(), cache.store("abc", second.toString()));
+        assertFalse(Files.exists(second));
+        assertEquals(first.toAbsolutePath().toString(), cache.lookup("abc"));
+    }
+
+    @Test
+    public void testSha256OfFile() throws IOException {
+        Path file = folder.newFile("upload.zip").toPath();
+        Files.write(file, "abc".getBytes());
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", ReportCache.sha256(file));
+    }
+
+    @Test
+    public void testKeyDependsOnAnalysisSettings() throws IOException {
+        Path file = folder.newFile("upload.zip").toPath();
+        Files.write(file, "abc".getBytes());
+        String defaultKey = ReportCache.key(file);
+        assertNotEquals(ReportCache.sha256(file), defaultKey);
+        assertEquals(defaultKey, ReportCache.key(file));
+
+        String[][] settings = {
+            {BytecodeDependencyExtractor.ENGINE_PROPERTY, "asm"},
+            {ASMBytecodeAnalyzer.ALLOCATION_LIGHT_PROPERTY, "true"},
+            {InMemoryCompiler.COMPILER_PROPERTY, "javac"},
+        };
+        for (String[] setting : settings) {
+            System.setProperty(setting[0], setting[1]);
+            try {
+                assertNotEquals(setting[0], defaultKey, ReportCache.key(file));
+            } finally {
+                System.clearProperty(setting[0]);
+            }
+        }
+    }
+
+    private static Path createReport(Path reportsDir, String name, int size) throws IOException {
+        Path report = Files.createDirectories(reportsDir.resolve(name));
+        Files.write(report.resolve("index.html"), new byte[size]);
+        return report;
+    }
+
+    private static void age(Path reportsDir, String digest, long millis) throws IOException {
+        Path entry = reportsDir.resolve(".report-cache").resolve(digest);
+        Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis() - millis));
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.jdeps;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Test class for SyntheticProjectGenerator
+ */
+public class SyntheticProjectGeneratorTest {
+
+    public SyntheticProjectGeneratorTest() {
+        super();
+    }
+
+    @Test
+    public void testGeneratesConfiguredJar() throws IOException {
+        SyntheticProjectGenerator generator = new SyntheticProjectGenerator()
+            .classCount(60).classesPerPackage(5).packageFanOut(2).dependenciesPerClass(2).methodComplexity(4);
+
+        assertEquals("synthetic/C0", generator.className(0));
+        assertEquals("synthetic/p0/C5", generator.className(5));
+        assertEquals("synthetic/p1/C10", generator.className(10));
+        assertEquals("synthetic/p0/p0/C15", generator.className(15));
+
+        Path jarPath = Files.createTempFile("synthetic", ".jar");
+        try {
+            generator.writeJar(jarPath);
+            BytecodeDependencyExtractor.ExtractionResult extraction = BytecodeDependencyExtractor.analyzeJar(jarPath);
+            assertEquals(60, extraction.getClassResults().size());
+
+            for (int i = 0; i < 60; i++) {
+                String source = generator.className(i).replace('/', '.');
+                for (int target : generator.dependencies(i)) {
+                    assertTrue("Without cycles every dependency is on an earlier class", target < i);
+                    String targetName = generator.className(target).replace('/', '.');
+                    if (!targetName.substring(0, targetName.lastIndexOf('.')).equals(source.substring(0, source.lastIndexOf('.')))) {
+                        assertEquals(jarPath.getFileName().toString(), extraction.getClassEdges().get(source).get(targetName));
+                    }
+                }
+            }
+            // Four branches plus the three switch cases
+            assertEquals(Integer.valueOf(8), extraction.getClassResults().get("synthetic/p1/C10").getMethodComplexity().get("run0"));
+        } finally {
+            Files.deleteIfExists(jarPath);
+        }
+    }
+
+    @Test
+    public void testCycleRatioClosesCyclesThroughPreviousClass() {
+        SyntheticProjectGenerator generator = new SyntheticProjectGenerator().classCount(40).cycleRatio(1.0);
+        for (int i = 1; i < 39; i++) {
+            int[] dependencies = generator.dependencies(i);
+            assertEquals(i - 1, dependencies[0]);
+            int later = dependencies[dependencies.length - 1];
+            assertTrue(later > i && later <= i + 8);
+        }
+        assertArrayEquals(generator.dependencies(7), new SyntheticProjectGenerator().classCount(40).cycleRatio(1.0).dependencies(7));
+    }
+
+    @Test
+    public void testSourcesCompileToSameDependencies() throws IOException {
+        SyntheticProjectGenerator generator = new SyntheticProjectGenerator()
+            .classCount(25).classesPerPackage(4).cycleRatio(0.5).seed(7);
+
+        Map<String, String> sources = new LinkedHashMap<>();
+        Map<String, byte[]> generated = new TreeMap<>();
+        for (int i = 0; i < 25; i++) {
+            sources.put("src/main/java/" + generator.className(i) + ".java", generator.generateSource(i));
+            generated.put(generator.className(i) + ".class", generator.generateClass(i));
+        }
+        InMemoryCompiler.Result compiled = InMemoryCompiler.compile(sources, Collections.singletonList("-proc:none"));
+        assertTrue(compiled.getDiagnostics(), compiled.isSuccess());
+        assertEquals(generated.keySet(), compiled.getClassFiles().keySet());
+
+        BytecodeDependencyExtractor.ExtractionResult fromSources =
+            BytecodeDependencyExtractor.analyzeClassFiles("synthetic.jar", compiled.getClassFiles(), null);
+        BytecodeDependencyExtractor.ExtractionResult fromClasses =
+            BytecodeDependencyExtractor.analyzeClassFiles("synthetic.jar", generated, null);
+        assertEquals(fromClasses.getClassEdges(), fromSources.getClassEdges());
+        for (String className : fromClasses.getClassResults().keySet()) {
+            assertEquals(fromClasses.getClassResults().get(className).getMethodComplexity(),
+                fromSources.getClassResults().get(className).getMethodComplexity());
+        }
+    }
+}